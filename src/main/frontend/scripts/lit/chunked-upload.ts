@@ -0,0 +1,247 @@
+import { css, html, LitElement } from "lit";
+import { customElement, property, state } from "lit/decorators.js";
+
+/**
+ * State of an upload session as returned by ChunkedUploadHandler.
+ */
+interface UploadStatus {
+    id: string;
+    fileName: string;
+    size: number;
+    chunkSize: number;
+    chunkCount: number;
+    received: number[];
+}
+
+interface Entry {
+    file: File;
+    sent: number;
+    total: number;
+    error?: string;
+    done: boolean;
+    running: boolean;
+}
+
+const MAX_ATTEMPTS = 6;
+
+class FatalUploadError extends Error {
+}
+
+/**
+ * Uploads files in checksummed chunks, several chunks of a file at a time. Failed chunks are retried
+ * with backoff; a file that still fails can be resumed, and re-adding the same file continues from the
+ * chunks the server already has.
+ */
+@customElement('chunked-upload')
+export class ChunkedUpload extends LitElement {
+    static styles = css`
+        :host {
+            display: block;
+        }
+
+        .drop {
+            border: 1px dashed var(--lumo-contrast-30pct, #ccc);
+            border-radius: var(--lumo-border-radius-m, 4px);
+            padding: var(--lumo-space-m, 1em);
+        }
+
+        .drop.over {
+            background-color: var(--lumo-primary-color-10pct, #eef);
+        }
+
+        ul {
+            list-style: none;
+            padding: 0;
+        }
+
+        progress {
+            width: 200px;
+            margin: 0 0.5em;
+        }
+
+        .error {
+            color: var(--lumo-error-text-color, red);
+        }
+    `;
+
+    @property({type: Number})
+    maxFiles = 100;
+
+    @property({type: Number})
+    maxFileSize = 1024 * 1024 * 1024;
+
+    @property({type: Number})
+    parallelChunks = 4;
+
+    @property({type: String})
+    dropLabel = 'Drop files here';
+
+    @state()
+    private entries: Entry[] = [];
+
+    @state()
+    private over = false;
+
+    render() {
+        return html`
+            <div class="drop ${this.over ? 'over' : ''}"
+                 @dragover="${this.onDragOver}" @dragleave="${() => this.over = false}" @drop="${this.onDrop}">
+                <input type="file" multiple @change="${this.onChange}">
+                <span>${this.dropLabel}</span>
+            </div>
+            <ul>
+                ${this.entries.map(entry => html`
+                    <li>
+                        <span>${entry.file.name}</span>
+                        <progress max="${entry.total}" value="${entry.sent}"></progress>
+                        ${entry.error ? html`
+                            <span class="error">${entry.error}</span>
+                            <button @click="${() => this.upload(entry)}">Resume</button>` : ''}
+                        ${entry.done ? html`<span>done</span>` : ''}
+                    </li>`)}
+            </ul>
+        `;
+    }
+
+    private onDragOver(event: DragEvent) {
+        event.preventDefault();
+        this.over = true;
+    }
+
+    private onDrop(event: DragEvent) {
+        event.preventDefault();
+        this.over = false;
+        this.addFiles(Array.from(event.dataTransfer?.files ?? []));
+    }
+
+    private onChange(event: Event) {
+        const input = event.target as HTMLInputElement;
+        this.addFiles(Array.from(input.files ?? []));
+        input.value = '';
+    }
+
+    private addFiles(files: File[]) {
+        for (const file of files) {
+            if (this.entries.filter(entry => !entry.done).length >= this.maxFiles) {
+                this.fail(file.name, 'Too many files');
+                continue;
+            }
+            if (file.size > this.maxFileSize) {
+                this.fail(file.name, 'File is too big');
+                continue;
+            }
+            // the same file again resumes its upload
+            const existing = this.entries.find(entry => sameFile(entry.file, file) && !entry.done);
+            const entry = existing ?? {file, sent: 0, total: file.size, done: false, running: false};
+            if (!existing) {
+                this.entries = [...this.entries, entry];
+            }
+            this.upload(entry);
+        }
+    }
+
+    private async upload(entry: Entry) {
+        if (entry.running) {
+            return;
+        }
+        entry.running = true;
+        entry.error = undefined;
+        this.requestUpdate();
+
+        try {
+            const query = new URLSearchParams({
+                name: entry.file.name,
+                size: String(entry.file.size),
+                lastModified: String(entry.file.lastModified)
+            });
+            const status: UploadStatus = await (await this.send('POST', `uploads?${query}`)).json();
+
+            const received = new Set(status.received);
+            entry.sent = Math.min(entry.file.size, received.size * status.chunkSize);
+            const pending: number[] = [];
+            for (let index = 0; index < status.chunkCount; index++) {
+                if (!received.has(index)) {
+                    pending.push(index);
+                }
+            }
+
+            const workers = Array.from({length: Math.max(1, Math.min(this.parallelChunks, pending.length))},
+                async () => {
+                    let index: number | undefined;
+                    while ((index = pending.shift()) !== undefined) {
+                        const length = await this.sendChunk(status, entry.file, index);
+                        entry.sent += length;
+                        this.requestUpdate();
+                    }
+                });
+            await Promise.all(workers);
+
+            // stored under another name if the file name was taken by other content
+            const stored: UploadStatus = await (await this.send('POST', `uploads/${status.id}/complete`)).json();
+            entry.sent = entry.total;
+            entry.done = true;
+            this.dispatchEvent(new CustomEvent('upload-succeeded', {detail: {fileName: stored.fileName}}));
+        } catch (error) {
+            entry.error = error instanceof Error ? error.message : String(error);
+            this.fail(entry.file.name, entry.error);
+        } finally {
+            entry.running = false;
+            this.requestUpdate();
+        }
+    }
+
+    private async sendChunk(status: UploadStatus, file: File, index: number): Promise<number> {
+        const start = index * status.chunkSize;
+        const data = await file.slice(start, Math.min(file.size, start + status.chunkSize)).arrayBuffer();
+        const checksum = toHex(await crypto.subtle.digest('SHA-256', data));
+
+        for (let attempt = 1; ; attempt++) {
+            try {
+                await this.send('PUT', `uploads/${status.id}/chunks/${index}`, data, {'X-Chunk-Sha256': checksum});
+                return data.byteLength;
+            } catch (error) {
+                if (error instanceof FatalUploadError || attempt >= MAX_ATTEMPTS) {
+                    throw error;
+                }
+                await new Promise(resolve => setTimeout(resolve, 500 * 2 ** attempt));
+            }
+        }
+    }
+
+    private async send(method: string, url: string, body?: BodyInit, headers: Record<string, string> = {}) {
+        const response = await fetch(url, {
+            method,
+            body,
+            headers: {...headers, ...csrfHeaders()},
+            credentials: 'same-origin'
+        });
+        if (!response.ok) {
+            const message = `${method} ${url} failed: ${response.status}`;
+            // a missing session or a rejected request will not succeed on retry; a bad checksum will
+            const fatal = response.status === 404 || response.status === 403 || response.status === 409;
+            throw fatal ? new FatalUploadError(message) : new Error(message);
+        }
+        return response;
+    }
+
+    private fail(fileName: string, message: string) {
+        this.dispatchEvent(new CustomEvent('upload-failed', {detail: {fileName, message}}));
+    }
+}
+
+function sameFile(a: File, b: File) {
+    return a.name === b.name && a.size === b.size && a.lastModified === b.lastModified;
+}
+
+function toHex(buffer: ArrayBuffer) {
+    return Array.from(new Uint8Array(buffer), byte => byte.toString(16).padStart(2, '0')).join('');
+}
+
+/**
+ * The Spring Security CSRF token that Vaadin writes into the page.
+ */
+function csrfHeaders(): Record<string, string> {
+    const token = document.head.querySelector<HTMLMetaElement>('meta[name="_csrf"]')?.content;
+    const header = document.head.querySelector<HTMLMetaElement>('meta[name="_csrf_header"]')?.content;
+    return token && header ? {[header]: token} : {};
+}
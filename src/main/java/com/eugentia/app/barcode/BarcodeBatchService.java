@@ -0,0 +1,221 @@
+package com.eugentia.app.barcode;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders many barcodes at once and streams them as a ZIP of SVG or PNG files or as a PDF with one
+ * barcode per page.
+ * <p>
+ * Barcodes are rendered on a bounded pool shared by all batches, at most a window of barcodes ahead
+ * of the one being written, and written in input order as soon as they are ready. Memory therefore
+ * stays proportional to the window, not to the batch. Contents that cannot be encoded are skipped;
+ * ZIP archives list them in an {@value #ERRORS_ENTRY} entry.
+ */
+@Service
+public class BarcodeBatchService {
+
+    public static final String ERRORS_ENTRY = "errors.txt";
+
+    /**
+     * Image pixels per barcode module for PNG and PDF output.
+     */
+    public static final double IMAGE_MAGNIFICATION = 4.0;
+
+    /**
+     * PDF points per image pixel, i.e. images are placed at 288 dpi.
+     */
+    private static final double POINTS_PER_PIXEL = 72.0 / 288;
+
+    public enum ImageFormat {
+        SVG("svg"), PNG("png");
+
+        private final String extension;
+
+        ImageFormat(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final BarcodeRenderer renderer;
+
+    private final BarcodeSymbologyRegistry registry;
+
+    private final ExecutorService executor;
+
+    private final int window;
+
+    public BarcodeBatchService(BarcodeRenderer renderer, BarcodeSymbologyRegistry registry) {
+        this.renderer = renderer;
+        this.registry = registry;
+
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.window = threads * 4;
+        // the caller renders itself when the queue is full, which throttles concurrent batches
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 16), runnable -> {
+            Thread thread = new Thread(runnable, "barcode-batch");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private Logger getLogger() {
+        return LoggerFactory.getLogger(getClass());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Writes a ZIP archive with one file per barcode.
+     *
+     * @param symbology symbology name
+     * @param contents  contents to encode, one barcode each
+     * @param format    file format of the barcodes
+     * @param out       destination; not closed
+     * @return number of contents that could not be encoded
+     */
+    public int writeZip(String symbology, List<String> contents, ImageFormat format, OutputStream out)
+            throws IOException {
+        Symbology found = find(symbology);
+        BarcodeOptions options = format == ImageFormat.PNG
+                ? found.getDefaults().withMagnification(IMAGE_MAGNIFICATION)
+                : found.getDefaults();
+
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        // PNG is compressed already and SVG compresses well even at the fastest level
+        zip.setLevel(Deflater.BEST_SPEED);
+
+        List<String> errors = new ArrayList<>();
+        renderInOrder(contents, content -> format == ImageFormat.PNG
+                ? png(found, content, options)
+                : renderer.renderSvg(found, content, options), (index, content, bytes) -> {
+            zip.putNextEntry(new ZipEntry(entryName(index, content, format)));
+            zip.write(bytes);
+            zip.closeEntry();
+        }, errors);
+
+        if (!errors.isEmpty()) {
+            zip.putNextEntry(new ZipEntry(ERRORS_ENTRY));
+            zip.write(String.join("\n", errors).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+        return errors.size();
+    }
+
+    /**
+     * Writes a PDF with one barcode per page, each page the size of its barcode.
+     *
+     * @param symbology symbology name
+     * @param contents  contents to encode, one page each
+     * @param out       destination; not closed
+     * @return number of contents that could not be encoded
+     */
+    public int writePdf(String symbology, List<String> contents, OutputStream out) throws IOException {
+        Symbology found = find(symbology);
+        BarcodeOptions options = found.getDefaults().withMagnification(IMAGE_MAGNIFICATION);
+
+        PdfImageWriter pdf = new PdfImageWriter(out, POINTS_PER_PIXEL);
+        List<String> errors = new ArrayList<>();
+        renderInOrder(contents, content -> PdfImageWriter.compress(renderer.renderImage(found, content, options)),
+                (index, content, image) -> pdf.addPage(image), errors);
+        pdf.finish();
+        return errors.size();
+    }
+
+    private Symbology find(String symbology) {
+        return registry.find(symbology)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown symbology: " + symbology));
+    }
+
+    private byte[] png(Symbology symbology, String content, BarcodeOptions options) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(renderer.renderImage(symbology, content, options), "png", stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stream.toByteArray();
+    }
+
+    /**
+     * Renders on the pool, keeping at most {@link #window} barcodes in flight, and hands the results
+     * to the sink in input order. Contents whose rendering failed are added to the errors instead.
+     */
+    private <T> void renderInOrder(List<String> contents, Function<String, T> render, Sink<T> sink,
+            List<String> errors) throws IOException {
+        Deque<Rendering<T>> pending = new ArrayDeque<>();
+        Iterator<String> remaining = contents.iterator();
+        int written = 0;
+
+        try {
+            while (remaining.hasNext() || !pending.isEmpty()) {
+                while (remaining.hasNext() && pending.size() < window) {
+                    String content = remaining.next();
+                    pending.add(new Rendering<>(content, executor.submit(() -> render.apply(content))));
+                }
+
+                Rendering<T> next = pending.poll();
+                try {
+                    sink.accept(written, next.content(), next.result().get());
+                } catch (ExecutionException e) {
+                    errors.add((written + 1) + ": " + next.content() + ": " + e.getCause().getMessage());
+                }
+                written++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Barcode batch interrupted after " + written + " barcodes");
+        } finally {
+            pending.forEach(rendering -> rendering.result().cancel(true));
+        }
+
+        if (!errors.isEmpty()) {
+            getLogger().info("{} of {} barcodes could not be encoded", errors.size(), contents.size());
+        }
+    }
+
+    private static String entryName(int index, String content, ImageFormat format) {
+        String name = content.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (name.length() > 40) {
+            name = name.substring(0, 40);
+        }
+        return String.format("%05d-%s.%s", index + 1, name, format.getExtension());
+    }
+
+    private record Rendering<T>(String content, Future<T> result) {
+    }
+
+    @FunctionalInterface
+    private interface Sink<T> {
+        void accept(int index, String content, T result) throws IOException;
+    }
+}
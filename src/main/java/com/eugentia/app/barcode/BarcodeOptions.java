@@ -0,0 +1,38 @@
+package com.eugentia.app.barcode;
+
+import uk.org.okapibarcode.graphics.Color;
+
+/**
+ * How a barcode is drawn. Part of the render cache key, so instances must be immutable.
+ *
+ * @param quietZoneHorizontal horizontal quiet zone in modules
+ * @param quietZoneVertical   vertical quiet zone in modules
+ * @param fontName            font of the human readable text
+ * @param fontSize            font size of the human readable text
+ * @param magnification       scale of the output
+ * @param paper               background color as 0xRRGGBB
+ * @param ink                 foreground color as 0xRRGGBB
+ * @param xmlProlog           whether the SVG starts with an XML declaration
+ */
+public record BarcodeOptions(int quietZoneHorizontal, int quietZoneVertical, String fontName, int fontSize,
+                             double magnification, int paper, int ink, boolean xmlProlog) {
+
+    public static final BarcodeOptions DEFAULT = new BarcodeOptions(5, 5, "Arial", 14, 1.0, 0xFFFFFF, 0x000000, true);
+
+    public BarcodeOptions withMagnification(double magnification) {
+        return new BarcodeOptions(quietZoneHorizontal, quietZoneVertical, fontName, fontSize, magnification, paper,
+                ink, xmlProlog);
+    }
+
+    Color paperColor() {
+        return color(paper);
+    }
+
+    Color inkColor() {
+        return color(ink);
+    }
+
+    private static Color color(int rgb) {
+        return new Color((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+    }
+}
@@ -0,0 +1,167 @@
+package com.eugentia.app.barcode;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import uk.org.okapibarcode.backend.OkapiException;
+import uk.org.okapibarcode.backend.Symbol;
+import uk.org.okapibarcode.output.Java2DRenderer;
+import uk.org.okapibarcode.output.SvgRenderer;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Renders barcodes as SVG. Rendered documents are cached by symbology, content and options in a
+ * cache shared by all sessions, so a barcode that was rendered before costs a map lookup.
+ * Symbologies are resolved through the {@link BarcodeSymbologyRegistry}.
+ */
+@Service
+public class BarcodeRenderer {
+
+    public static final long DEFAULT_CACHE_CHARS = 16L * 1024 * 1024;
+
+    private final BarcodeSymbologyRegistry registry;
+
+    private final SvgCache<Key> cache;
+
+    @Autowired
+    public BarcodeRenderer(BarcodeSymbologyRegistry registry) {
+        this(registry, DEFAULT_CACHE_CHARS);
+    }
+
+    /**
+     * @param cacheChars total size of the cached SVG documents, in characters
+     */
+    public BarcodeRenderer(BarcodeSymbologyRegistry registry, long cacheChars) {
+        this.registry = registry;
+        this.cache = new SvgCache<>(cacheChars);
+    }
+
+    /**
+     * Renders with the default options of the symbology.
+     *
+     * @see #render(String, String, BarcodeOptions)
+     */
+    @Nullable
+    public String render(String symbology, String content) {
+        return registry.find(symbology)
+                .map(found -> render(found, content, found.getDefaults()))
+                .orElse(null);
+    }
+
+    /**
+     * @param symbology symbology name, e.g. {@code "Code128"}
+     * @param content   data to encode
+     * @param options   rendering options
+     * @return SVG document, or null if the symbology is unknown
+     * @throws OkapiException if the content cannot be encoded with the symbology
+     */
+    @Nullable
+    public String render(String symbology, String content, BarcodeOptions options) {
+        return registry.find(symbology)
+                .map(found -> render(found, content, options))
+                .orElse(null);
+    }
+
+    private String render(Symbology symbology, String content, BarcodeOptions options) {
+        Key key = new Key(symbology, content, options);
+        String svg = cache.get(key);
+        if (svg != null) {
+            return svg;
+        }
+
+        svg = new String(renderSvg(symbology, content, options), StandardCharsets.UTF_8);
+        cache.put(key, svg);
+        return svg;
+    }
+
+    /**
+     * Renders an SVG document without going through the cache, for barcodes that are unlikely to be
+     * requested again such as batch jobs.
+     *
+     * @throws OkapiException if the content cannot be encoded with the symbology
+     */
+    public byte[] renderSvg(Symbology symbology, String content, BarcodeOptions options) {
+        return encode(symbology, content, options, symbol -> {
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            SvgRenderer renderer = new SvgRenderer(stream, options.magnification(), options.paperColor(),
+                    options.inkColor(), options.xmlProlog());
+            renderer.render(symbol);
+            return stream.toByteArray();
+        });
+    }
+
+    /**
+     * Renders a grayscale image without going through the cache. One module is
+     * {@link BarcodeOptions#magnification()} pixels wide.
+     *
+     * @throws OkapiException if the content cannot be encoded with the symbology
+     */
+    public BufferedImage renderImage(Symbology symbology, String content, BarcodeOptions options) {
+        return encode(symbology, content, options, symbol -> {
+            int width = (int) Math.ceil(symbol.getWidth() * options.magnification());
+            int height = (int) Math.ceil(symbol.getHeight() * options.magnification());
+            BufferedImage image = new BufferedImage(Math.max(1, width), Math.max(1, height),
+                    BufferedImage.TYPE_BYTE_GRAY);
+
+            Graphics2D graphics = image.createGraphics();
+            try {
+                graphics.setColor(new Color(options.paper()));
+                graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+                new Java2DRenderer(graphics, options.magnification(), options.paperColor(), options.inkColor())
+                        .render(symbol);
+            } finally {
+                graphics.dispose();
+            }
+            return image;
+        });
+    }
+
+    private <T> T encode(Symbology symbology, String content, BarcodeOptions options, SymbolOutput<T> output) {
+        Symbol symbol = symbology.acquire();
+        symbol.setQuietZoneHorizontal(options.quietZoneHorizontal());
+        symbol.setQuietZoneVertical(options.quietZoneVertical());
+        symbol.setFontName(options.fontName());
+        symbol.setFontSize(options.fontSize());
+        symbol.setContent(content);
+
+        T result;
+        try {
+            result = output.write(symbol);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        symbology.release(symbol);
+        return result;
+    }
+
+    public void clearCache() {
+        cache.clear();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    public long getCacheHits() {
+        return cache.hits();
+    }
+
+    public long getCacheMisses() {
+        return cache.misses();
+    }
+
+    @FunctionalInterface
+    private interface SymbolOutput<T> {
+        T write(Symbol symbol) throws IOException;
+    }
+
+    private record Key(Symbology symbology, String content, BarcodeOptions options) {
+    }
+}
@@ -0,0 +1,159 @@
+package com.eugentia.app.barcode;
+
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import uk.org.okapibarcode.backend.*;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Maps the symbology names stored in {@code BarcodeType.type} to symbol factories and default options.
+ * <p>
+ * The Okapi symbologies are registered up front, together with aliases for the misspelled names in
+ * the demo data. A name that is not registered is looked up as a class in the Okapi backend package
+ * and registered on first use, so adding a {@code BarcodeType} row is enough to offer another Okapi
+ * symbology.
+ */
+@Component
+public class BarcodeSymbologyRegistry {
+
+    /**
+     * Defaults for two-dimensional symbologies, with the four module quiet zone their specifications ask for.
+     */
+    public static final BarcodeOptions MATRIX_DEFAULTS = new BarcodeOptions(4, 4, BarcodeOptions.DEFAULT.fontName(),
+            BarcodeOptions.DEFAULT.fontSize(), 1.0, 0xFFFFFF, 0x000000, true);
+
+    private static final Pattern CLASS_NAME = Pattern.compile("[A-Z][A-Za-z0-9]*");
+
+    private final Map<String, Symbology> symbologies = new ConcurrentHashMap<>();
+
+    public BarcodeSymbologyRegistry() {
+        register("AustraliaPost", AustraliaPost::new);
+        register("AztecCode", AztecCode::new, MATRIX_DEFAULTS);
+        register("AztecRune", AztecRune::new, MATRIX_DEFAULTS);
+        register("ChannelCode", ChannelCode::new);
+        register("Codabar", Codabar::new);
+        register("CodablockF", CodablockF::new);
+        register("Code2Of5", Code2Of5::new);
+        register("Code3Of9", Code3Of9::new);
+        register("Code3Of9Extended", Code3Of9Extended::new);
+        register("Code11", Code11::new);
+        register("Code16k", Code16k::new);
+        register("Code32", Code32::new);
+        register("Code49", Code49::new);
+        register("Code93", Code93::new);
+        register("Code128", Code128::new);
+        register("CodeOne", CodeOne::new, MATRIX_DEFAULTS);
+        register("Composite", Composite::new);
+        register("DataBar14", DataBar14::new);
+        register("DataBarExpanded", DataBarExpanded::new);
+        register("DataBarLimited", DataBarLimited::new);
+        register("DataMatrix", DataMatrix::new, MATRIX_DEFAULTS);
+        register("Ean", Ean::new);
+        register("EanUpcAddOn", EanUpcAddOn::new);
+        register("GridMatrix", GridMatrix::new, MATRIX_DEFAULTS);
+        register("JapanPost", JapanPost::new);
+        register("KixCode", KixCode::new);
+        register("KoreaPost", KoreaPost::new);
+        register("Logmars", Logmars::new);
+        register("MaxiCode", MaxiCode::new, MATRIX_DEFAULTS);
+        register("MicroQrCode", MicroQrCode::new, MATRIX_DEFAULTS);
+        register("MsiPlessey", MsiPlessey::new);
+        register("Nve18", Nve18::new);
+        register("Pdf417", Pdf417::new);
+        register("Pharmacode", Pharmacode::new);
+        register("Pharmacode2Track", Pharmacode2Track::new);
+        register("Pharmazentralnummer", Pharmazentralnummer::new);
+        register("Plessey", Plessey::new);
+        register("Postnet", Postnet::new);
+        register("QrCode", QrCode::new, MATRIX_DEFAULTS);
+        register("RoyalMail4State", RoyalMail4State::new);
+        register("Telepen", Telepen::new);
+        register("Upc", Upc::new);
+        register("UspsOneCode", UspsOneCode::new);
+        register("UspsPackage", UspsPackage::new);
+
+        // names as they are spelled in data.sql
+        alias("Codebar", "Codabar");
+        alias("CodeblockF", "CodablockF");
+        alias("Code2Of9", "Code3Of9");
+    }
+
+    public void register(String name, Supplier<? extends Symbol> factory) {
+        register(name, factory, BarcodeOptions.DEFAULT);
+    }
+
+    public void register(String name, Supplier<? extends Symbol> factory, BarcodeOptions defaults) {
+        symbologies.put(name, new Symbology(name, factory, defaults));
+    }
+
+    /**
+     * Makes a registered symbology also available under another name.
+     */
+    public void alias(String alias, String name) {
+        Symbology symbology = symbologies.get(name);
+        if (symbology == null) {
+            throw new IllegalArgumentException("Unknown symbology: " + name);
+        }
+        symbologies.put(alias, symbology);
+    }
+
+    /**
+     * @param name symbology name, e.g. {@code "QrCode"}
+     * @return the symbology, if it is registered or an Okapi backend class of that name exists
+     */
+    public Optional<Symbology> find(String name) {
+        Symbology symbology = symbologies.get(name);
+        if (symbology != null) {
+            return Optional.of(symbology);
+        }
+
+        Supplier<Symbol> factory = okapiFactory(name);
+        if (factory == null) {
+            return Optional.empty();
+        }
+        return Optional.of(symbologies.computeIfAbsent(name,
+                key -> new Symbology(key, factory, BarcodeOptions.DEFAULT)));
+    }
+
+    /**
+     * @return the registered names, including aliases
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(symbologies.keySet());
+    }
+
+    @Nullable
+    private static Supplier<Symbol> okapiFactory(String name) {
+        if (!CLASS_NAME.matcher(name).matches()) {
+            return null;
+        }
+
+        try {
+            Class<?> type = Class.forName(Symbol.class.getPackageName() + "." + name);
+            if (!Symbol.class.isAssignableFrom(type) || Modifier.isAbstract(type.getModifiers())) {
+                return null;
+            }
+
+            Constructor<? extends Symbol> constructor = type.asSubclass(Symbol.class).getConstructor();
+            return () -> {
+                try {
+                    return constructor.newInstance();
+                } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                    throw new IllegalStateException("Cannot create " + name, e);
+                }
+            };
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
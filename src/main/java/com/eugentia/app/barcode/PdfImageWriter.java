@@ -0,0 +1,174 @@
+package com.eugentia.app.barcode;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a PDF with one grayscale image per page, each page exactly the size of its image.
+ * <p>
+ * Pages are written to the stream as they are added; only the object offsets are kept until
+ * {@link #finish()} writes the page tree, the catalog and the cross-reference table. Images are
+ * compressed by {@link #compress}, which callers may run in parallel before adding the pages in order.
+ */
+final class PdfImageWriter {
+
+    private static final int CATALOG = 1;
+
+    private static final int PAGES = 2;
+
+    private final CountingOutputStream out;
+
+    private final double pointsPerPixel;
+
+    private final List<Long> offsets = new ArrayList<>(List.of(0L, 0L));
+
+    private final List<Integer> pages = new ArrayList<>();
+
+    /**
+     * @param out            destination; not closed by the writer
+     * @param pointsPerPixel page size of one image pixel, in points of 1/72 inch
+     */
+    PdfImageWriter(OutputStream out, double pointsPerPixel) throws IOException {
+        this.out = new CountingOutputStream(out);
+        this.pointsPerPixel = pointsPerPixel;
+
+        write("%PDF-1.4\n");
+        // binary marker so that transfer programs treat the file as binary
+        this.out.write(new byte[]{'%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'});
+    }
+
+    /**
+     * Deflates the pixels of an image, independently of any writer.
+     */
+    static Image compress(BufferedImage image) {
+        BufferedImage gray = image;
+        if (image.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D graphics = gray.createGraphics();
+            graphics.drawImage(image, 0, 0, null);
+            graphics.dispose();
+        }
+
+        byte[] pixels = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(pixels.length / 8 + 64);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+            deflater.write(pixels);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new Image(gray.getWidth(), gray.getHeight(), compressed.toByteArray());
+    }
+
+    void addPage(Image image) throws IOException {
+        double width = image.width() * pointsPerPixel;
+        double height = image.height() * pointsPerPixel;
+
+        int imageObject = beginObject();
+        write("<< /Type /XObject /Subtype /Image /Width " + image.width() + " /Height " + image.height()
+                + " /ColorSpace /DeviceGray /BitsPerComponent 8 /Filter /FlateDecode /Length "
+                + image.data().length + " >>\nstream\n");
+        out.write(image.data());
+        write("\nendstream\nendobj\n");
+
+        byte[] content = ("q " + number(width) + " 0 0 " + number(height) + " 0 0 cm /Im0 Do Q")
+                .getBytes(StandardCharsets.US_ASCII);
+        int contentObject = beginObject();
+        write("<< /Length " + content.length + " >>\nstream\n");
+        out.write(content);
+        write("\nendstream\nendobj\n");
+
+        int pageObject = beginObject();
+        write("<< /Type /Page /Parent " + PAGES + " 0 R /MediaBox [0 0 " + number(width) + " " + number(height)
+                + "] /Resources << /XObject << /Im0 " + imageObject + " 0 R >> >> /Contents "
+                + contentObject + " 0 R >>\nendobj\n");
+        pages.add(pageObject);
+    }
+
+    /**
+     * Writes the document trailer. The writer must not be used afterwards.
+     */
+    void finish() throws IOException {
+        StringBuilder kids = new StringBuilder();
+        for (int page : pages) {
+            kids.append(page).append(" 0 R ");
+        }
+
+        beginObject(PAGES);
+        write("<< /Type /Pages /Kids [" + kids + "] /Count " + pages.size() + " >>\nendobj\n");
+        beginObject(CATALOG);
+        write("<< /Type /Catalog /Pages " + PAGES + " 0 R >>\nendobj\n");
+
+        long xref = out.count;
+        StringBuilder table = new StringBuilder("xref\n0 ").append(offsets.size() + 1).append('\n');
+        table.append("0000000000 65535 f \n");
+        for (long offset : offsets) {
+            table.append(String.format("%010d 00000 n \n", offset));
+        }
+        write(table.toString());
+        write("trailer\n<< /Size " + (offsets.size() + 1) + " /Root " + CATALOG + " 0 R >>\nstartxref\n"
+                + xref + "\n%%EOF\n");
+        out.flush();
+    }
+
+    int getPageCount() {
+        return pages.size();
+    }
+
+    private int beginObject() throws IOException {
+        offsets.add(0L);
+        int object = offsets.size();
+        beginObject(object);
+        return object;
+    }
+
+    private void beginObject(int object) throws IOException {
+        offsets.set(object - 1, out.count);
+        write(object + " 0 obj\n");
+    }
+
+    private void write(String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    /**
+     * @param width  width in pixels
+     * @param height height in pixels
+     * @param data   deflated 8-bit gray pixels, row by row
+     */
+    record Image(int width, int height, byte[] data) {
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
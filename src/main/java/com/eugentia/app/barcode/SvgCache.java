@@ -0,0 +1,85 @@
+package com.eugentia.app.barcode;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of rendered SVG documents, bounded by the total number of characters
+ * rather than the number of entries, since a QR code renders much larger than a postal code.
+ * Documents larger than a fraction of the budget are not cached so one of them cannot flush the cache.
+ *
+ * @param <K> cache key
+ */
+final class SvgCache<K> {
+
+    private final long maxChars;
+
+    private final long maxEntryChars;
+
+    private final LinkedHashMap<K, String> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long chars;
+
+    private long hits;
+
+    private long misses;
+
+    SvgCache(long maxChars) {
+        this.maxChars = maxChars;
+        this.maxEntryChars = Math.max(1, maxChars / 16);
+    }
+
+    @Nullable
+    synchronized String get(K key) {
+        String svg = entries.get(key);
+        if (svg != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return svg;
+    }
+
+    synchronized void put(K key, String svg) {
+        if (svg.length() > maxEntryChars) {
+            return;
+        }
+
+        String previous = entries.put(key, svg);
+        if (previous != null) {
+            chars -= previous.length();
+        }
+        chars += svg.length();
+
+        Iterator<Map.Entry<K, String>> eldest = entries.entrySet().iterator();
+        while (chars > maxChars && eldest.hasNext()) {
+            Map.Entry<K, String> entry = eldest.next();
+            chars -= entry.getValue().length();
+            eldest.remove();
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        chars = 0;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long chars() {
+        return chars;
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+}
@@ -0,0 +1,59 @@
+package com.eugentia.app.barcode;
+
+import uk.org.okapibarcode.backend.Symbol;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * A barcode symbology known to the {@link BarcodeSymbologyRegistry}.
+ * <p>
+ * Okapi symbols hold the state of their last encoding, so an instance is never shared between
+ * threads. Instead, released instances go back into a small pool and are reused by the next
+ * encoding of the same symbology, since {@code setContent} re-encodes from scratch.
+ */
+public final class Symbology {
+
+    private static final int POOL_SIZE = 4;
+
+    private final String name;
+
+    private final Supplier<? extends Symbol> factory;
+
+    private final BarcodeOptions defaults;
+
+    private final BlockingQueue<Symbol> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    Symbology(String name, Supplier<? extends Symbol> factory, BarcodeOptions defaults) {
+        this.name = name;
+        this.factory = factory;
+        this.defaults = defaults;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return options to render this symbology with when the caller has no preference
+     */
+    public BarcodeOptions getDefaults() {
+        return defaults;
+    }
+
+    /**
+     * @return a pooled or new symbol for exclusive use until it is {@link #release released}
+     */
+    Symbol acquire() {
+        Symbol symbol = pool.poll();
+        return symbol != null ? symbol : factory.get();
+    }
+
+    /**
+     * Returns a symbol to the pool. Symbols whose encoding failed must not be released.
+     */
+    void release(Symbol symbol) {
+        pool.offer(symbol);
+    }
+}
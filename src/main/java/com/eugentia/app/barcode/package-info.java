@@ -0,0 +1,4 @@
+@NonNullApi
+package com.eugentia.app.barcode;
+
+import org.springframework.lang.NonNullApi;
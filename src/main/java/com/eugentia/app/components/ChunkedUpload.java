@@ -0,0 +1,83 @@
+package com.eugentia.app.components;
+
+import com.eugentia.app.upload.ChunkedUploadHandler;
+import com.eugentia.app.upload.UploadSessionRegistry;
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.ComponentEvent;
+import com.vaadin.flow.component.ComponentEventListener;
+import com.vaadin.flow.component.DomEvent;
+import com.vaadin.flow.component.EventData;
+import com.vaadin.flow.component.HasSize;
+import com.vaadin.flow.component.HasStyle;
+import com.vaadin.flow.component.Tag;
+import com.vaadin.flow.component.dependency.JsModule;
+import com.vaadin.flow.shared.Registration;
+import lombok.Getter;
+
+/**
+ * Resumable upload into the upload folder. The browser sends each file in checksummed chunks, several
+ * at a time, to {@link ChunkedUploadHandler}; see {@code chunked-upload.ts}.
+ */
+@Tag("chunked-upload")
+@JsModule("./scripts/lit/chunked-upload.ts")
+public class ChunkedUpload extends Component implements HasSize, HasStyle {
+
+    public ChunkedUpload() {
+        setMaxFileSize(UploadSessionRegistry.MAX_FILE_SIZE);
+    }
+
+    public void setMaxFiles(int maxFiles) {
+        getElement().setProperty("maxFiles", maxFiles);
+    }
+
+    public void setMaxFileSize(long maxFileSize) {
+        getElement().setProperty("maxFileSize", Math.min(maxFileSize, UploadSessionRegistry.MAX_FILE_SIZE));
+    }
+
+    /**
+     * @param parallelChunks number of chunks of one file sent at the same time
+     */
+    public void setParallelChunks(int parallelChunks) {
+        getElement().setProperty("parallelChunks", parallelChunks);
+    }
+
+    public void setDropLabel(String dropLabel) {
+        getElement().setProperty("dropLabel", dropLabel);
+    }
+
+    public Registration addSucceededListener(ComponentEventListener<SucceededEvent> listener) {
+        return addListener(SucceededEvent.class, listener);
+    }
+
+    public Registration addFailedListener(ComponentEventListener<FailedEvent> listener) {
+        return addListener(FailedEvent.class, listener);
+    }
+
+    @Getter
+    @DomEvent("upload-succeeded")
+    public static class SucceededEvent extends ComponentEvent<ChunkedUpload> {
+        private final String fileName;
+
+        public SucceededEvent(ChunkedUpload source, boolean fromClient,
+                @EventData("event.detail.fileName") String fileName) {
+            super(source, fromClient);
+            this.fileName = fileName;
+        }
+    }
+
+    @Getter
+    @DomEvent("upload-failed")
+    public static class FailedEvent extends ComponentEvent<ChunkedUpload> {
+        private final String fileName;
+
+        private final String message;
+
+        public FailedEvent(ChunkedUpload source, boolean fromClient,
+                @EventData("event.detail.fileName") String fileName,
+                @EventData("event.detail.message") String message) {
+            super(source, fromClient);
+            this.fileName = fileName;
+            this.message = message;
+        }
+    }
+}
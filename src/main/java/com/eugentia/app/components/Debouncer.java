@@ -0,0 +1,76 @@
+package com.eugentia.app.components;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
+import com.vaadin.flow.shared.communication.PushMode;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs only the last of a burst of UI actions, once no new action came in for a while.
+ * <p>
+ * Actions are run through {@link UI#access} and their results are pushed to the browser. Without a
+ * current UI, with push disabled or with a zero delay they run right away.
+ */
+public class Debouncer {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ui-debounce");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Duration delay;
+
+    @Nullable
+    private ScheduledFuture<?> pending;
+
+    private long generation;
+
+    public Debouncer(Duration delay) {
+        this.delay = delay;
+    }
+
+    /**
+     * Schedules an action in place of the pending one. Must be called with the session locked.
+     */
+    public void run(Runnable action) {
+        cancel();
+        long scheduled = ++generation;
+
+        UI ui = UI.getCurrent();
+        if (delay.isZero() || ui == null || ui.getPushConfiguration().getPushMode() == PushMode.DISABLED) {
+            action.run();
+            return;
+        }
+
+        pending = SCHEDULER.schedule(() -> {
+            try {
+                ui.access(() -> {
+                    // A newer action may have been scheduled while this one waited for the session lock
+                    if (scheduled == generation) {
+                        pending = null;
+                        action.run();
+                    }
+                });
+            } catch (UIDetachedException ignored) {
+                // the view is gone, nothing to update
+            }
+        }, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops the pending action, if any.
+     */
+    public void cancel() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+}
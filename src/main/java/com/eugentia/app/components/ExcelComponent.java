@@ -1,28 +1,32 @@
 package com.eugentia.app.components;
 
-import com.eugentia.app.components.base.BaseExcelComponent;
+import com.eugentia.app.components.base.ExcelRowSource;
+import com.eugentia.app.components.base.ExcelWriteContext;
+import com.eugentia.app.components.base.RowSourceExcelComponent;
 import com.eugentia.app.data.entity.BookInfo;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Sheet;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  *
  */
-public class ExcelComponent extends BaseExcelComponent {
-    private List<BookInfo> books;
+public class ExcelComponent extends RowSourceExcelComponent<BookInfo> {
 
     public ExcelComponent(String text) {
-        super(text);
+        super(text, BookInfo.class);
+    }
+
+    public ExcelComponent(String text, boolean streaming) {
+        super(text, BookInfo.class, streaming);
     }
 
     @Override
-    protected void setCellStyle() {
+    protected void setCellStyle(ExcelWriteContext context) {
         //Sheet 생성
-        sheet = workbook.createSheet("도서정보");
+        Sheet sheet = context.getWorkbook().createSheet("도서정보");
+        context.setSheet(sheet);
 
         var widths = new int[]{12, 20, 20, 20, 12};
         int column = 0;
@@ -32,57 +36,25 @@ public class ExcelComponent extends BaseExcelComponent {
     }
 
     @Override
-    protected void setFont() {
+    protected void setFont(ExcelWriteContext context) {
         //폰트 설정
-        font = workbook.createFont();
+        Font font = context.getWorkbook().createFont();
         font.setFontName("나눔고딕");
 
         //글씨체
         font.setFontHeight((short) (11 * 20));
-    }
-
-    @Override
-    protected void getArrayNode() {
-        // jackson objectMapper 객체 생성
-        ObjectMapper objectMapper = new ObjectMapper();
 
-        // List -> Json 문자열
-        arrayNode = objectMapper.valueToTree(books);
+        context.setFont(font);
     }
 
     @Override
     protected void generateData() {
-        books = new ArrayList<>();
-
-        books.add(new BookInfo("b1", "레미제라블", "빅토르위고", 3000.000000, 32));
-        books.add(new BookInfo("b32", "홍길동", "허균", 8000.000000, 15));
-    }
-
-    @Override
-    protected void setData() {
-        for (BookInfo book : books) {
-            Row row = sheet.createRow(rowCount++);
-            int cellCount = 0;
-
-            Cell cell = row.createCell(cellCount++);
-            cell.setCellStyle(stringStyle);
-            cell.setCellValue(book.getBookId());
-
-            cell = row.createCell(cellCount++);
-            cell.setCellStyle(stringStyle);
-            cell.setCellValue(book.getName());
-
-            cell = row.createCell(cellCount++);
-            cell.setCellStyle(stringStyle);
-            cell.setCellValue(book.getAuthor());
-
-            cell = row.createCell(cellCount++);
-            cell.setCellStyle(doubleNumberStyle);
-            cell.setCellValue(book.getPrice());
-
-            cell = row.createCell(cellCount);
-            cell.setCellStyle(intNumberStyle);
-            cell.setCellValue(book.getCount());
+        if (rowSource != null) {
+            return;
         }
+
+        setRowSource(ExcelRowSource.of(List.of(
+                new BookInfo("b1", "레미제라블", "빅토르위고", 3000.000000, 32),
+                new BookInfo("b32", "홍길동", "허균", 8000.000000, 15))));
     }
 }
@@ -0,0 +1,84 @@
+package com.eugentia.app.components;
+
+import com.eugentia.app.data.service.BatchImportService;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.notification.NotificationVariant;
+import com.vaadin.flow.component.progressbar.ProgressBar;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Streaming .xlsx upload that saves every row as an entity through {@link BatchImportService}.
+ * The import runs in the background and progress is pushed to the UI after every chunk.
+ */
+public class ExcelImportComponent<T> extends ExcelUploadComponent {
+    private final BatchImportService importService;
+    private final Function<List<String>, T> rowMapper;
+    private final int chunkSize;
+    private final int headerRows;
+    private final ProgressBar progressBar = new ProgressBar();
+    private final Span progressText = new Span();
+
+    /**
+     * @param importService persistence pipeline
+     * @param rowMapper     maps the cell values of a row to a new entity, or null to skip the row
+     */
+    public ExcelImportComponent(BatchImportService importService, Function<List<String>, T> rowMapper) {
+        this(importService, rowMapper, BatchImportService.DEFAULT_CHUNK_SIZE, 1);
+    }
+
+    public ExcelImportComponent(BatchImportService importService, Function<List<String>, T> rowMapper,
+            int chunkSize, int headerRows) {
+        super(true, chunkSize);
+        this.importService = importService;
+        this.rowMapper = rowMapper;
+        this.chunkSize = chunkSize;
+        this.headerRows = headerRows;
+
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(false);
+        progressText.setVisible(false);
+
+        add(progressBar, progressText);
+    }
+
+    @Override
+    protected void readSpoolFile(File file) {
+        UI ui = UI.getCurrent();
+
+        progressBar.setVisible(true);
+        progressText.setVisible(true);
+        progressText.setText("Importing...");
+
+        importService.importExcel(file, chunkSize, headerRows, rowMapper,
+                        saved -> ui.access(() -> progressText.setText(saved + " rows imported")))
+                .whenComplete((saved, error) -> {
+                    deleteQuietly(file);
+                    ui.access(() -> {
+                        progressBar.setVisible(false);
+
+                        if (error == null) {
+                            progressText.setText(saved + " rows imported");
+                        } else {
+                            progressText.setVisible(false);
+                            Notification notification = Notification.show("Import failed: " + error.getMessage());
+                            notification.addThemeVariants(NotificationVariant.LUMO_ERROR);
+                        }
+                    });
+                });
+    }
+
+    private static void deleteQuietly(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException ignored) {
+            file.deleteOnExit();
+        }
+    }
+}
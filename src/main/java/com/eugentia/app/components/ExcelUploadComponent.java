@@ -1,21 +1,43 @@
 package com.eugentia.app.components;
 
+import com.eugentia.app.components.base.StreamingExcelReader;
 import com.vaadin.flow.component.formlayout.FormLayout;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.component.upload.SucceededEvent;
 import com.vaadin.flow.component.upload.Upload;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.util.List;
 
 public class ExcelUploadComponent extends FormLayout {
     private final Upload upload;
+    private final boolean streaming;
+    private final StreamingExcelReader streamingReader;
     protected OutputStream outputStream;
     protected XSSFWorkbook workbook;
     protected InputStream inputStream;
+    protected File spoolFile;
 
     public ExcelUploadComponent() {
+        this(false);
+    }
+
+    /**
+     * @param streaming true 이면 업로드를 임시 파일로 받고 SAX 로 읽어
+     *                  {@link #readExcel(String, int, List)} 에 배치 단위로 넘긴다.
+     */
+    public ExcelUploadComponent(boolean streaming) {
+        this(streaming, StreamingExcelReader.DEFAULT_BATCH_SIZE);
+    }
+
+    public ExcelUploadComponent(boolean streaming, int batchSize) {
+        this.streaming = streaming;
+        this.streamingReader = new StreamingExcelReader(batchSize);
+
         // create the upload component and delegate actions to the receiveUpload method
         upload = new Upload(this::receiveUpload);
         upload.setAcceptedFileTypes("application/xlsx", ".xlsx");
@@ -24,13 +46,16 @@ public class ExcelUploadComponent extends FormLayout {
         // listen to state changes
         upload.addSucceededListener(this::uploadSuccess);
 
-        upload.addFailedListener(e -> setFailed(e.getReason().getMessage()));
+        upload.addFailedListener(e -> {
+            deleteSpoolFile();
+            setFailed(e.getReason().getMessage());
+        });
         upload.addFileRejectedListener(e -> setFailed(e.getErrorMessage()));
 
         // only allow single file at a time
         upload.setMaxFiles(1);
 
-        // set max file size to 1 MB
+        // set max file size to 1 GB
         upload.setMaxFileSize(1024 * 1024 * 1024);
 
         add(upload);
@@ -43,33 +68,84 @@ public class ExcelUploadComponent extends FormLayout {
      * care of the actual network operations.
      */
     private OutputStream receiveUpload(String fileName, String mimeType) {
-        // set up receiving Stream
-        outputStream = new ByteArrayOutputStream();
-        return outputStream;
+        if (!streaming) {
+            // set up receiving Stream
+            outputStream = new ByteArrayOutputStream();
+            return outputStream;
+        }
+
+        // spool to disk instead of the heap
+        try {
+            deleteSpoolFile();
+            spoolFile = Files.createTempFile("excel-upload-", ".xlsx").toFile();
+            spoolFile.deleteOnExit();
+            outputStream = new BufferedOutputStream(new FileOutputStream(spoolFile));
+            return outputStream;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
      * Called when an upload is successfully completed.
      */
     private void uploadSuccess(SucceededEvent e) {
-        //Create Workbook instance holding reference to .xlsx file
-        var buffer = (ByteArrayOutputStream) outputStream;
-        inputStream = new ByteArrayInputStream(buffer.toByteArray());
-
-        try {
-            workbook = new XSSFWorkbook(inputStream);
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
+        if (streaming) {
+            // the file now belongs to readSpoolFile
+            File file = spoolFile;
+            spoolFile = null;
+            readSpoolFile(file);
+        } else {
+            //Create Workbook instance holding reference to .xlsx file
+            var buffer = (ByteArrayOutputStream) outputStream;
+            inputStream = new ByteArrayInputStream(buffer.toByteArray());
+
+            try {
+                workbook = new XSSFWorkbook(inputStream);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+
+            readExcel();
         }
 
-        readExcel();
-
         // clear the upload component 'finished files' list for a cleaner appearance.
         // there is yet no API for it on the server side, see
         // https://github.com/vaadin/vaadin-upload-flow/issues/96
         upload.getElement().executeJs("this.files=[]");
     }
 
+    /**
+     * Reads a completed streaming upload and deletes it afterwards. Overrides take ownership
+     * of the file and must delete it themselves.
+     */
+    protected void readSpoolFile(File file) {
+        try {
+            streamingReader.read(file, this::readExcel);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException ex) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    private void deleteSpoolFile() {
+        if (spoolFile == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(spoolFile.toPath());
+        } catch (IOException e) {
+            LoggerFactory.getLogger(getClass()).warn("Could not delete spool file " + spoolFile, e);
+        }
+        spoolFile = null;
+    }
+
     /**
      * Shows an error message to the user.
      */
@@ -80,4 +156,14 @@ public class ExcelUploadComponent extends FormLayout {
 
     protected void readExcel() {
     }
-}
\ No newline at end of file
+
+    /**
+     * Streaming mode row callback, called once per batch of at most batchSize rows.
+     *
+     * @param sheetName   sheet the rows belong to
+     * @param firstRowNum zero based index of the first row in the batch; rows.get(i) is row firstRowNum + i
+     * @param rows        cell values per row, empty cells are null and empty rows are empty lists
+     */
+    protected void readExcel(String sheetName, int firstRowNum, List<List<String>> rows) {
+    }
+}
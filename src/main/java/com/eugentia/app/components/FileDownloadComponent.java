@@ -1,5 +1,7 @@
 package com.eugentia.app.components;
 
+import com.eugentia.app.download.FileDownloadHandler;
+import com.eugentia.app.storage.StoredFile;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.HasSize;
 import com.vaadin.flow.component.HasStyle;
@@ -79,6 +81,13 @@ public class FileDownloadComponent extends LitTemplate implements HasSize, HasSt
         anchor.setHref(new StreamResource(getModel().getFileName(), () -> createResource(file)));
     }
 
+    /**
+     * Links to {@link FileDownloadHandler}, which supports ranges and conditional requests.
+     */
+    public void setStoredFile(StoredFile file) {
+        anchor.setHref(FileDownloadHandler.getUrl(file.name()));
+    }
+
     private FileDownloadWrapperModel getModel() {
         return new FileDownloadWrapperModel() {
             @Override
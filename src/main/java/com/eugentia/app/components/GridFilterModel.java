@@ -0,0 +1,205 @@
+package com.eugentia.app.components;
+
+import com.vaadin.flow.component.HasValue;
+import com.vaadin.flow.component.grid.dataview.GridListDataView;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Column filters for a grid backed by an in-memory list.
+ * <p>
+ * The data view gets a single filter, installed once, that looks rows up in a bit set of matching rows.
+ * Filter keys are extracted once per row when a filter is added, so evaluating a filter never converts
+ * or parses row values. Value changes are debounced on the server and applied together; when every
+ * changed filter only narrows, just the currently matching rows are re-tested against the changed
+ * filters, and when every changed filter only widens, just the rejected rows are re-tested.
+ *
+ * @param <T> row type
+ */
+public class GridFilterModel<T> {
+
+    public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(250);
+
+    private final GridListDataView<T> dataView;
+    private final List<T> items;
+    private final Debouncer debouncer;
+    private final Map<T, Integer> rows = new IdentityHashMap<>();
+    private final List<Criterion<?>> criteria = new ArrayList<>();
+    private final BitSet matching = new BitSet();
+
+    public GridFilterModel(GridListDataView<T> dataView, List<T> items) {
+        this(dataView, items, DEFAULT_DEBOUNCE);
+    }
+
+    /**
+     * @param dataView data view of the grid; its filter is replaced
+     * @param items    items the data view was created from
+     * @param debounce how long to wait for further input before filtering, zero to filter immediately
+     */
+    public GridFilterModel(GridListDataView<T> dataView, List<T> items, Duration debounce) {
+        this.dataView = dataView;
+        this.items = List.copyOf(items);
+        this.debouncer = new Debouncer(debounce);
+
+        for (int row = 0; row < this.items.size(); row++) {
+            rows.put(this.items.get(row), row);
+        }
+        matching.set(0, this.items.size());
+
+        dataView.setFilter(item -> {
+            Integer row = rows.get(item);
+            return row == null || matching.get(row);
+        });
+    }
+
+    /**
+     * Filters rows whose text contains the field value, ignoring case. A blank value matches every row.
+     */
+    public GridFilterModel<T> addTextFilter(HasValue<?, String> field, Function<T, ?> text) {
+        Criterion<String> criterion = new Criterion<>(
+                item -> normalize(text.apply(item)),
+                String::contains,
+                String::contains);
+        field.addValueChangeListener(event -> request(criterion, normalizeFilter(event.getValue())));
+        return this;
+    }
+
+    /**
+     * Filters rows whose value equals the field value. An empty field matches every row.
+     */
+    public <V> GridFilterModel<T> addEqualsFilter(HasValue<?, V> field, Function<T, V> value) {
+        Criterion<V> criterion = new Criterion<>(value, Objects::equals, Objects::equals);
+        field.addValueChangeListener(event -> request(criterion, event.getValue()));
+        return this;
+    }
+
+    /**
+     * Re-extracts the filter keys of an item after it was edited and updates its visibility.
+     */
+    public void refreshItem(T item) {
+        Integer row = rows.get(item);
+        if (row == null) {
+            return;
+        }
+
+        criteria.forEach(criterion -> criterion.index(row));
+        matching.set(row, accepts(criteria, row));
+        dataView.refreshItem(item);
+    }
+
+    private <K> void request(Criterion<K> criterion, @Nullable K value) {
+        criterion.requested = value;
+        debouncer.run(this::apply);
+    }
+
+    private void apply() {
+        List<Criterion<?>> changed = criteria.stream().filter(Criterion::isChanged).toList();
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        boolean narrowing = changed.stream().allMatch(Criterion::narrows);
+        boolean widening = changed.stream().allMatch(Criterion::widens);
+        changed.forEach(Criterion::commit);
+
+        if (narrowing) {
+            for (int row = matching.nextSetBit(0); row >= 0; row = matching.nextSetBit(row + 1)) {
+                if (!accepts(changed, row)) {
+                    matching.clear(row);
+                }
+            }
+        } else if (widening) {
+            for (int row = matching.nextClearBit(0); row < items.size(); row = matching.nextClearBit(row + 1)) {
+                if (accepts(criteria, row)) {
+                    matching.set(row);
+                }
+            }
+        } else {
+            for (int row = 0; row < items.size(); row++) {
+                matching.set(row, accepts(criteria, row));
+            }
+        }
+
+        dataView.refreshAll();
+    }
+
+    private boolean accepts(List<Criterion<?>> criteria, int row) {
+        for (Criterion<?> criterion : criteria) {
+            if (!criterion.accepts(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(@Nullable Object text) {
+        return text == null ? "" : text.toString().toLowerCase(Locale.ROOT);
+    }
+
+    @Nullable
+    private static String normalizeFilter(@Nullable String filter) {
+        return filter == null || filter.isBlank() ? null : filter.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One column filter. A null value matches every row.
+     *
+     * @param <K> filter key type
+     */
+    private final class Criterion<K> {
+        private final Function<T, K> key;
+        private final BiPredicate<K, K> test;
+        private final BiPredicate<K, K> implies;
+        private final Object[] keys;
+        @Nullable
+        private K applied;
+        @Nullable
+        private K requested;
+
+        /**
+         * @param key     extracts the filter key of a row
+         * @param test    whether a row key matches a filter value
+         * @param implies whether every row matching the first filter value also matches the second
+         */
+        Criterion(Function<T, K> key, BiPredicate<K, K> test, BiPredicate<K, K> implies) {
+            this.key = key;
+            this.test = test;
+            this.implies = implies;
+            this.keys = new Object[items.size()];
+
+            for (int row = 0; row < keys.length; row++) {
+                index(row);
+            }
+            criteria.add(this);
+        }
+
+        void index(int row) {
+            keys[row] = key.apply(items.get(row));
+        }
+
+        @SuppressWarnings("unchecked")
+        boolean accepts(int row) {
+            return applied == null || test.test((K) keys[row], applied);
+        }
+
+        boolean isChanged() {
+            return !Objects.equals(applied, requested);
+        }
+
+        boolean narrows() {
+            return applied == null || requested != null && implies.test(requested, applied);
+        }
+
+        boolean widens() {
+            return requested == null || applied != null && implies.test(applied, requested);
+        }
+
+        void commit() {
+            applied = requested;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.eugentia.app.components;
+
+import com.eugentia.app.pdf.PdfDocumentInfo;
+import com.eugentia.app.pdf.PdfPageHandler;
+import com.eugentia.app.pdf.PdfPageService.Kind;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.GridVariant;
+import com.vaadin.flow.data.renderer.LitRenderer;
+import org.springframework.lang.Nullable;
+
+import java.util.stream.IntStream;
+
+/**
+ * Column of server-rendered page thumbnails, one row per page number. The grid only renders the rows
+ * in view, so the browser only loads the images of those pages; high density screens get the preview
+ * image instead of the thumbnail.
+ */
+public class PdfPageStrip extends Grid<Integer> {
+
+    @Nullable
+    private PdfDocumentInfo document;
+
+    public PdfPageStrip() {
+        addColumn(LitRenderer.<Integer>of("""
+                        <div style="text-align: center">
+                            <img loading="lazy" width="${item.width}" alt="Page ${item.page}" src="${item.thumbnail}"
+                                 srcset="${item.thumbnail} ${item.width}w, ${item.preview} ${item.previewWidth}w"
+                                 sizes="${item.width}px">
+                            <div>${item.page}</div>
+                        </div>""")
+                .withProperty("page", page -> page)
+                .withProperty("width", page -> Kind.THUMBNAIL.getWidth())
+                .withProperty("previewWidth", page -> Kind.PREVIEW.getWidth())
+                .withProperty("thumbnail", page -> url(Kind.THUMBNAIL, page))
+                .withProperty("preview", page -> url(Kind.PREVIEW, page)));
+        addThemeVariants(GridVariant.LUMO_NO_BORDER, GridVariant.LUMO_NO_ROW_BORDERS);
+        setWidth(Kind.THUMBNAIL.getWidth() + 48 + "px");
+        setDocument(null);
+    }
+
+    public void setDocument(@Nullable PdfDocumentInfo document) {
+        this.document = document;
+        int pageCount = document != null ? document.pageCount() : 0;
+        setItems(query -> IntStream.rangeClosed(1, pageCount).skip(query.getOffset()).limit(query.getLimit())
+                .boxed(), query -> pageCount);
+    }
+
+    private String url(Kind kind, int page) {
+        return document != null ? PdfPageHandler.getUrl(document, kind, page) : "";
+    }
+}
@@ -1,51 +1,56 @@
 package com.eugentia.app.components.base;
 
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.confirmdialog.ConfirmDialog;
 import com.vaadin.flow.server.StreamRegistration;
 import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.server.StreamResourceWriter;
 import com.vaadin.flow.server.VaadinSession;
 import lombok.Setter;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFDataFormat;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
  *
  */
 public class BaseExcelComponent extends Button {
-    //첫줄 개행
-    protected int rowCount;
-    protected XSSFWorkbook workbook;
-    protected Sheet sheet;
-    protected CellStyle stringStyle;
-    protected CellStyle intNumberStyle;
-    protected CellStyle doubleNumberStyle;
-    protected Font font;
-    protected XSSFDataFormat fmt;
+    //스트리밍 모드에서 메모리에 유지되는 행 수
+    public static final int DEFAULT_ROW_ACCESS_WINDOW_SIZE = 100;
+
     protected ConfirmDialog dialog;
-    protected ArrayNode arrayNode;
     @Setter
     private String fileName;
+    private final boolean streaming;
+    @Setter
+    private int rowAccessWindowSize = DEFAULT_ROW_ACCESS_WINDOW_SIZE;
 
     public BaseExcelComponent(String text) {
+        this(text, false);
+    }
+
+    /**
+     * @param text      버튼 텍스트
+     * @param streaming true 이면 {@link SXSSFWorkbook} 으로 행을 윈도우 단위로 flush 하면서
+     *                  다운로드 응답 스트림에 바로 기록한다.
+     */
+    public BaseExcelComponent(String text, boolean streaming) {
         super(text);
+        this.streaming = streaming;
         this.setConfirmDialog();
         this.addClickListener(event -> dialog.open());
     }
 
-    protected void createDoubleNumberStyle() {
+    protected void createDoubleNumberStyle(ExcelWriteContext context) {
         //4.셀 스타일 및 폰트 설정(금액)
-        doubleNumberStyle = workbook.createCellStyle();
+        CellStyle doubleNumberStyle = context.getWorkbook().createCellStyle();
 
         //정렬
         //우측 정렬
@@ -61,18 +66,20 @@ public class BaseExcelComponent extends Button {
         doubleNumberStyle.setBorderBottom(BorderStyle.THIN);
 
         //폰트 설정 (위 폰트 사용)
-        doubleNumberStyle.setFont(font);
+        doubleNumberStyle.setFont(context.getFont());
 
         //천단위 쉼표, 금액
-        doubleNumberStyle.setDataFormat(fmt.getFormat("#.000000"));
+        doubleNumberStyle.setDataFormat(context.getFmt().getFormat("#.000000"));
+
+        context.setDoubleNumberStyle(doubleNumberStyle);
     }
 
     /**
      *
      */
-    protected void createIntNumberStyle() {
+    protected void createIntNumberStyle(ExcelWriteContext context) {
         //4.셀 스타일 및 폰트 설정(금액)
-        intNumberStyle = workbook.createCellStyle();
+        CellStyle intNumberStyle = context.getWorkbook().createCellStyle();
 
         //정렬
         //우측 정렬
@@ -88,18 +95,20 @@ public class BaseExcelComponent extends Button {
         intNumberStyle.setBorderBottom(BorderStyle.THIN);
 
         //폰트 설정 (위 폰트 사용)
-        intNumberStyle.setFont(font);
+        intNumberStyle.setFont(context.getFont());
 
         //천단위 쉼표, 금액
-        intNumberStyle.setDataFormat(fmt.getFormat("#,##0"));
+        intNumberStyle.setDataFormat(context.getFmt().getFormat("#,##0"));
+
+        context.setIntNumberStyle(intNumberStyle);
     }
 
     /**
      *
      */
-    protected void createStringStyle() {
+    protected void createStringStyle(ExcelWriteContext context) {
         //4.셀 스타일 및 폰트 설정(일반 텍스트)
-        stringStyle = workbook.createCellStyle();
+        CellStyle stringStyle = context.getWorkbook().createCellStyle();
 
         //정렬
         stringStyle.setAlignment(HorizontalAlignment.CENTER);
@@ -115,19 +124,22 @@ public class BaseExcelComponent extends Button {
         stringStyle.setBorderBottom(BorderStyle.THIN);
 
         //폰트 설정 (위 폰트 사용)
-        stringStyle.setFont(font);
+        stringStyle.setFont(context.getFont());
+
+        context.setStringStyle(stringStyle);
     }
 
     /**
      *
      */
-    protected void createHeader() {
-        rowCount = 1;
+    protected void createHeader(ExcelWriteContext context) {
+        //첫줄 개행
+        context.setRowCount(1);
 
-        List<String> headers = getKeys();
+        List<String> headers = getHeaders();
 
         //3.셀 스타일 및 폰트 설정
-        CellStyle style = workbook.createCellStyle();
+        CellStyle style = context.getWorkbook().createCellStyle();
 
         //정렬
         //가운데 정렬
@@ -147,10 +159,10 @@ public class BaseExcelComponent extends Button {
         style.setBorderBottom(BorderStyle.THIN);
 
         //사이즈
-        style.setFont(font);
+        style.setFont(context.getFont());
 
         //2열 작성
-        Row row = sheet.createRow(rowCount++);
+        Row row = context.createRow();
 
         int cellCount = 0;
 
@@ -166,11 +178,9 @@ public class BaseExcelComponent extends Button {
      */
     private byte[] generateExcel() {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        workbook = new XSSFWorkbook();
-        fmt = workbook.createDataFormat();
-        generateWorkbook();
 
-        try {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            generateWorkbook(new ExcelWriteContext(workbook));
             workbook.write(outputStream);
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -191,11 +201,38 @@ public class BaseExcelComponent extends Button {
         dialog.setCancelable(true);
 
         dialog.addConfirmListener(confirmEvent -> {
-            final byte[] byteArray = generateExcel();
-            this.downloadExcel(byteArray);
+            if (streaming) {
+                this.downloadExcel(this::writeExcel);
+            } else {
+                final byte[] byteArray = generateExcel();
+                this.downloadExcel(byteArray);
+            }
         });
     }
 
+    /**
+     * 스트리밍 모드. 최근 rowAccessWindowSize 개의 행만 메모리에 두고 나머지는 임시 파일로 flush 한 뒤
+     * 응답 스트림으로 바로 기록하므로 행 수와 상관없이 힙 사용량이 일정하다.
+     *
+     * @param outputStream
+     * @param session
+     */
+    protected void writeExcel(OutputStream outputStream, VaadinSession session) throws IOException {
+        SXSSFWorkbook streamingWorkbook = new SXSSFWorkbook(rowAccessWindowSize);
+        streamingWorkbook.setCompressTempFiles(true);
+
+        try {
+            //다운로드마다 새 컨텍스트를 쓰므로 동시에 내려받아도 서로의 워크북을 건드리지 않는다
+            generateWorkbook(new ExcelWriteContext(streamingWorkbook));
+
+            streamingWorkbook.write(outputStream);
+        } finally {
+            //임시 파일 삭제
+            streamingWorkbook.dispose();
+            streamingWorkbook.close();
+        }
+    }
+
     /**
      * @param byteArray
      */
@@ -206,63 +243,55 @@ public class BaseExcelComponent extends Button {
     }
 
     /**
-     * @return
+     * @param writer
      */
-    private List<String> getKeys() {
-        this.getArrayNode();
-
-        List<String> keys = null;
-
-        if (!arrayNode.isEmpty()) {
-            keys = new ArrayList<>();
-            Iterator<String> iterator = arrayNode.get(1).fieldNames();
-
-            iterator.forEachRemaining(keys::add);
-        }
-
-        return keys;
+    protected void downloadExcel(StreamResourceWriter writer) {
+        final StreamResource resource = new StreamResource(fileName, writer);
+        final StreamRegistration registration = VaadinSession.getCurrent().getResourceRegistry().registerResource(resource);
+        UI.getCurrent().getPage().open(registration.getResourceUri().toString());
     }
 
     /**
      *
      */
-    protected void generateWorkbook() {
+    protected void generateWorkbook(ExcelWriteContext context) {
         this.generateData();
 
-        this.setFont();
+        this.setFont(context);
 
-        this.createDoubleNumberStyle();
+        this.createDoubleNumberStyle(context);
 
-        this.createIntNumberStyle();
+        this.createIntNumberStyle(context);
 
-        this.createStringStyle();
+        this.createStringStyle(context);
 
-        this.setCellStyle();
+        this.setCellStyle(context);
 
         //눈금선 없애기
-        sheet.setDisplayGridlines(false);
+        context.getSheet().setDisplayGridlines(false);
 
-        this.createHeader();
+        this.createHeader(context);
 
-        this.setData();
+        this.setData(context);
     }
 
     /**
      *
      */
-    protected void setFont() {
+    protected void setFont(ExcelWriteContext context) {
     }
 
     /**
      *
      */
-    protected void setCellStyle() {
+    protected void setCellStyle(ExcelWriteContext context) {
     }
 
     /**
-     *
+     * @return 헤더 이름 목록
      */
-    protected void getArrayNode() {
+    protected List<String> getHeaders() {
+        return List.of();
     }
 
     /**
@@ -274,6 +303,6 @@ public class BaseExcelComponent extends Button {
     /**
      *
      */
-    protected void setData() {
+    protected void setData(ExcelWriteContext context) {
     }
 }
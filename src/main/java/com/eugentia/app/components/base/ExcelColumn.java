@@ -0,0 +1,67 @@
+package com.eugentia.app.components.base;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 엑셀 한 열의 메타데이터. 헤더 이름은 필드의 {@link JsonProperty} 값을, 열 순서는 {@link JsonProperty#index()} 를
+ * 사용한다.
+ *
+ * @param header 헤더 이름
+ * @param type   값 타입 (셀 스타일 선택에 사용)
+ * @param getter 행 객체에서 값을 읽는 함수
+ */
+public record ExcelColumn<T>(String header, Class<?> type, Function<T, Object> getter) {
+
+    /**
+     * 상위 클래스를 포함해 {@link JsonProperty} 가 붙은 필드를 {@link JsonProperty#index()} 순서대로 열로 변환한다.
+     * 필드 선언 순서는 JVM 이 보장하지 않으므로 index 가 없는 열은 index 가 있는 열 뒤에 순서 없이 온다.
+     *
+     * @param rowType 행 타입
+     * @return 열 목록
+     */
+    public static <T> List<ExcelColumn<T>> of(Class<T> rowType) {
+        record Indexed<T>(int index, ExcelColumn<T> column) {
+        }
+        List<Indexed<T>> columns = new ArrayList<>();
+
+        for (Class<?> type = rowType; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                JsonProperty property = field.getAnnotation(JsonProperty.class);
+
+                if (property == null || Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+
+                String header = property.value().isEmpty() ? field.getName() : property.value();
+                int index = property.index() == JsonProperty.INDEX_UNKNOWN ? Integer.MAX_VALUE : property.index();
+                columns.add(new Indexed<>(index, new ExcelColumn<>(header, field.getType(), getter(rowType, field))));
+            }
+        }
+
+        columns.sort(Comparator.comparingInt(Indexed::index));
+        return columns.stream().map(Indexed::column).toList();
+    }
+
+    private static <T> Function<T, Object> getter(Class<T> rowType, Field field) {
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(rowType, field.getName());
+        Method readMethod = descriptor != null ? descriptor.getReadMethod() : null;
+
+        if (readMethod != null) {
+            return row -> ReflectionUtils.invokeMethod(readMethod, row);
+        }
+
+        ReflectionUtils.makeAccessible(field);
+        return row -> ReflectionUtils.getField(field, row);
+    }
+}
@@ -0,0 +1,109 @@
+package com.eugentia.app.components.base;
+
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 엑셀 내보내기용 pull 방식 행 공급자. {@link #open()} 을 호출할 때마다 새 스트림을 연다.
+ * 반환된 스트림은 사용 후 닫아야 한다.
+ */
+@FunctionalInterface
+public interface ExcelRowSource<T> {
+
+    int DEFAULT_PAGE_SIZE = 1000;
+
+    String ID_PROPERTY = "id";
+
+    /**
+     * @return 행 스트림
+     */
+    Stream<T> open();
+
+    /**
+     * @param rows 이미 메모리에 있는 행
+     * @return 행 공급자
+     */
+    static <T> ExcelRowSource<T> of(Collection<T> rows) {
+        return rows::stream;
+    }
+
+    /**
+     * 저장소에서 키셋(seek) 방식으로 필요한 만큼만 읽는다. 다음 페이지는 앞 페이지 마지막 행의 정렬 키보다 뒤의
+     * 행을 조회하므로 COUNT 쿼리도 OFFSET 도 없고, 한 번에 한 페이지만 메모리에 유지된다.
+     *
+     * @param repository 저장소
+     * @param filter     조회 조건
+     * @param sort       정렬. 키 값은 null 이 아니어야 하며, 페이지 경계가 안정적이도록 id 가 없으면 id 를 덧붙인다.
+     * @param pageSize   페이지 크기
+     * @return 행 공급자
+     */
+    static <T> ExcelRowSource<T> paged(JpaSpecificationExecutor<T> repository, Specification<T> filter, Sort sort,
+                                       int pageSize) {
+        Sort stableSort = sort.getOrderFor(ID_PROPERTY) != null ? sort : sort.and(Sort.by(ID_PROPERTY));
+        return () -> StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                new WindowIterator<>(repository, filter, stableSort, pageSize),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * @see #paged(JpaSpecificationExecutor, Specification, Sort, int)
+     */
+    static <T> ExcelRowSource<T> paged(JpaSpecificationExecutor<T> repository, Specification<T> filter, Sort sort) {
+        return paged(repository, filter, sort, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     *
+     */
+    final class WindowIterator<T> implements Iterator<T> {
+        private final JpaSpecificationExecutor<T> repository;
+        private final Specification<T> filter;
+        private final Sort sort;
+        private final int pageSize;
+        private ScrollPosition position = ScrollPosition.keyset();
+        private Iterator<T> current;
+        private boolean last;
+
+        private WindowIterator(JpaSpecificationExecutor<T> repository, Specification<T> filter, Sort sort,
+                               int pageSize) {
+            this.repository = repository;
+            this.filter = filter;
+            this.sort = sort;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ((current == null || !current.hasNext()) && !last) {
+                ScrollPosition from = position;
+                Window<T> window = repository.<T, Window<T>>findBy(filter,
+                        query -> query.sortBy(sort).limit(pageSize).scroll(from));
+                current = window.iterator();
+                last = window.isEmpty() || !window.hasNext();
+                if (!last) {
+                    position = window.positionAt(window.size() - 1);
+                }
+            }
+            return current != null && current.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.eugentia.app.components.base;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * 엑셀 파일 하나를 기록하는 동안의 상태. 다운로드마다 새로 만들어지므로 동시에 진행되는
+ * 다운로드끼리 워크북, 시트, 스타일을 공유하지 않는다.
+ */
+@Getter
+@Setter
+public class ExcelWriteContext {
+    private final Workbook workbook;
+    private final DataFormat fmt;
+    private Sheet sheet;
+    private Font font;
+    private CellStyle stringStyle;
+    private CellStyle intNumberStyle;
+    private CellStyle doubleNumberStyle;
+    //다음에 기록할 행 번호
+    private int rowCount;
+
+    public ExcelWriteContext(Workbook workbook) {
+        this.workbook = workbook;
+        this.fmt = workbook.createDataFormat();
+    }
+
+    /**
+     * @return 다음 행
+     */
+    public Row createRow() {
+        return sheet.createRow(rowCount++);
+    }
+}
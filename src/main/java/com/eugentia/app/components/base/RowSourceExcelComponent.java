@@ -0,0 +1,95 @@
+package com.eugentia.app.components.base;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * {@link ExcelRowSource} 에서 행을 하나씩 당겨와 기록하는 엑셀 다운로드 버튼.
+ * 헤더와 열 순서는 행 타입의 {@link com.fasterxml.jackson.annotation.JsonProperty} 에서 가져온다.
+ */
+public class RowSourceExcelComponent<T> extends BaseExcelComponent {
+    protected final List<ExcelColumn<T>> columns;
+    protected ExcelRowSource<T> rowSource;
+
+    public RowSourceExcelComponent(String text, Class<T> rowType) {
+        this(text, rowType, false);
+    }
+
+    public RowSourceExcelComponent(String text, Class<T> rowType, boolean streaming) {
+        super(text, streaming);
+        this.columns = ExcelColumn.of(rowType);
+    }
+
+    /**
+     * @param rowSource 행 공급자
+     */
+    public void setRowSource(ExcelRowSource<T> rowSource) {
+        this.rowSource = rowSource;
+    }
+
+    @Override
+    protected List<String> getHeaders() {
+        return columns.stream().map(ExcelColumn::header).toList();
+    }
+
+    @Override
+    protected void setData(ExcelWriteContext context) {
+        if (rowSource == null) {
+            return;
+        }
+
+        try (Stream<T> rows = rowSource.open()) {
+            rows.forEachOrdered(item -> writeRow(context, item));
+        }
+    }
+
+    /**
+     * @param context
+     * @param item
+     */
+    protected void writeRow(ExcelWriteContext context, T item) {
+        Row row = context.createRow();
+        int cellCount = 0;
+
+        for (ExcelColumn<T> column : columns) {
+            Cell cell = row.createCell(cellCount++);
+            Object value = column.getter().apply(item);
+            cell.setCellStyle(getCellStyle(context, column.type()));
+            setCellValue(cell, value);
+        }
+    }
+
+    /**
+     * @param context
+     * @param type
+     * @return
+     */
+    protected CellStyle getCellStyle(ExcelWriteContext context, Class<?> type) {
+        if (type == double.class || type == float.class || type == Double.class || type == Float.class) {
+            return context.getDoubleNumberStyle();
+        }
+
+        if (type.isPrimitive() && type != boolean.class && type != char.class || Number.class.isAssignableFrom(type)) {
+            return context.getIntNumberStyle();
+        }
+
+        return context.getStringStyle();
+    }
+
+    private void setCellValue(Cell cell, Object value) {
+        switch (value) {
+            case null -> cell.setBlank();
+            case Number number -> cell.setCellValue(number.doubleValue());
+            case Boolean bool -> cell.setCellValue(bool);
+            case LocalDate date -> cell.setCellValue(date);
+            case LocalDateTime dateTime -> cell.setCellValue(dateTime);
+            default -> cell.setCellValue(value.toString());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.eugentia.app.components.base;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * SAX 기반 .xlsx 리더. DOM 워크북을 만들지 않고 시트 XML 을 이벤트로 읽어
+ * batchSize 개의 행마다 {@link RowBatchHandler} 로 넘긴다. 메모리에는 공유 문자열 표와 한 배치만 유지된다.
+ */
+public class StreamingExcelReader {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final int batchSize;
+
+    public StreamingExcelReader() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public StreamingExcelReader(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param file    .xlsx 파일
+     * @param handler 배치 콜백
+     */
+    public void read(File file, RowBatchHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+            DataFormatter formatter = new DataFormatter();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            int sheetIndex = 0;
+
+            while (sheets.hasNext()) {
+                try (InputStream stream = sheets.next()) {
+                    String sheetName = sheets instanceof XSSFReader.SheetIterator iterator
+                            ? iterator.getSheetName()
+                            : String.valueOf(sheetIndex);
+                    BatchingHandler contents = new BatchingHandler(sheetName, handler);
+
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, strings, contents, formatter, false));
+                    parser.parse(new InputSource(stream));
+
+                    contents.flush();
+                }
+                sheetIndex++;
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * 배치 단위 행 콜백. rows 의 각 원소는 열 위치에 맞춘 셀 문자열 목록이며 빈 셀은 null 이다.
+     * 시트 XML 에 없는 빈 행은 빈 목록으로 채워지므로 rows.get(i) 는 항상 firstRowNum + i 번째 행이다.
+     */
+    @FunctionalInterface
+    public interface RowBatchHandler {
+        void rows(String sheetName, int firstRowNum, List<List<String>> rows);
+    }
+
+    /**
+     *
+     */
+    private class BatchingHandler implements SheetContentsHandler {
+        private final String sheetName;
+        private final RowBatchHandler handler;
+        private List<List<String>> batch = new ArrayList<>(batchSize);
+        private List<String> row;
+        private int firstRowNum;
+        //지금까지 넘긴 행 수, 즉 다음 행의 번호
+        private int nextRowNum;
+
+        private BatchingHandler(String sheetName, RowBatchHandler handler) {
+            this.sheetName = sheetName;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            //빈 행은 XML 에 없으므로 행 번호를 맞춘다
+            while (nextRowNum < rowNum) {
+                add(List.of());
+            }
+            row = new ArrayList<>();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            add(row);
+            row = null;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            //빈 셀은 XML 에 없으므로 열 위치를 맞춘다
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : row.size();
+            while (row.size() < column) {
+                row.add(null);
+            }
+            row.add(formattedValue);
+        }
+
+        private void add(List<String> cells) {
+            if (batch.isEmpty()) {
+                firstRowNum = nextRowNum;
+            }
+            batch.add(cells);
+            nextRowNum++;
+
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            handler.rows(sheetName, firstRowNum, batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+}
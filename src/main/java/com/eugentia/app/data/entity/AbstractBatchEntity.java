@@ -0,0 +1,27 @@
+package com.eugentia.app.data.entity;
+
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.SequenceGenerator;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Base of entities that are imported in bulk through the BatchImportService. Ids come from their
+ * own sequence in blocks of a chunk, so a chunk of inserts needs one sequence call instead of one per
+ * row, without changing how ids of the other entities are allocated.
+ */
+@Getter
+@Setter
+@MappedSuperclass
+public abstract class AbstractBatchEntity extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "batchidgenerator")
+    // The initial value is to account for data.sql demo data ids, the block size is the default chunk size
+    @SequenceGenerator(name = "batchidgenerator", sequenceName = "batch_id_seq", initialValue = 1000,
+            allocationSize = 500)
+    private Long id;
+}
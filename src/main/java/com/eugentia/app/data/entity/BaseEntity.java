@@ -0,0 +1,26 @@
+package com.eugentia.app.data.entity;
+
+import jakarta.persistence.MappedSuperclass;
+
+/**
+ * Identity of all entities; subclasses decide how ids are generated.
+ */
+@MappedSuperclass
+public abstract class BaseEntity {
+
+    public abstract Long getId();
+
+    @Override
+    public int hashCode() {
+        return getId().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof BaseEntity that)) {
+            return false; // null or not a BaseEntity class
+        }
+
+        return getId().equals(that.getId());
+    }
+}
@@ -9,19 +9,19 @@ import lombok.Setter;
 @Getter
 @Setter
 public class BookInfo {
-    @JsonProperty("ID")
+    @JsonProperty(value = "ID", index = 0)
     private String bookId;
 
-    @JsonProperty("도서명")
+    @JsonProperty(value = "도서명", index = 1)
     private String name;
 
-    @JsonProperty("작가")
+    @JsonProperty(value = "작가", index = 2)
     private String author;
 
-    @JsonProperty("가격")
+    @JsonProperty(value = "가격", index = 3)
     private double price;
 
-    @JsonProperty("수량")
+    @JsonProperty(value = "수량", index = 4)
     private int count;
 
     @Override
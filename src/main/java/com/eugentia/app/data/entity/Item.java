@@ -1,5 +1,6 @@
 package com.eugentia.app.data.entity;
 
+import com.eugentia.app.search.SearchIndexListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Getter;
@@ -11,6 +12,7 @@ import java.util.List;
 @Setter
 @Entity
 @Table(name = "items")
+@EntityListeners(SearchIndexListener.class)
 public class Item {
     
     @Id
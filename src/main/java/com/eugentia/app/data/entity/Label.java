@@ -1,5 +1,6 @@
 package com.eugentia.app.data.entity;
 
+import com.eugentia.app.search.SearchIndexListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Getter;
@@ -9,6 +10,7 @@ import lombok.Setter;
 @Setter
 @Entity
 @Table(name = "labels")
+@EntityListeners(SearchIndexListener.class)
 public class Label {
     
     @Id
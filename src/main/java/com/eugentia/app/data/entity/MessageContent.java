@@ -1,5 +1,6 @@
 package com.eugentia.app.data.entity;
 
+import com.eugentia.app.provider.MessageContentListener;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -10,6 +11,7 @@ import org.hibernate.annotations.OnDeleteAction;
 @Setter
 @Entity
 @Table(name = "messageContents")
+@EntityListeners(MessageContentListener.class)
 public class MessageContent extends AbstractEntity {
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @OnDelete(action = OnDeleteAction.CASCADE)
@@ -1,16 +1,25 @@
 package com.eugentia.app.data.entity;
 
-import jakarta.persistence.Entity;
+import com.eugentia.app.search.SearchIndexListener;
+import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
 @Getter
 @Setter
-public class SamplePerson extends AbstractEntity {
+@Table(indexes = {
+        @Index(name = "idx_sample_person_first_name_key", columnList = "first_name_key"),
+        @Index(name = "idx_sample_person_last_name_key", columnList = "last_name_key")
+})
+@EntityListeners(SearchIndexListener.class)
+public class SamplePerson extends AbstractBatchEntity {
 
     private String firstName;
 
@@ -28,4 +37,54 @@ public class SamplePerson extends AbstractEntity {
     private String role;
 
     private boolean important;
+
+    // Search columns, kept in sync by the setters; see SearchKeys
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "first_name_key")
+    private String firstNameKey;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "last_name_key")
+    private String lastNameKey;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "phone_digits")
+    private String phoneDigits;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ElementCollection
+    @CollectionTable(name = "sample_person_phone_gram", joinColumns = @JoinColumn(name = "sample_person_id"),
+            indexes = @Index(name = "idx_sample_person_phone_gram", columnList = "gram, sample_person_id"))
+    @Column(name = "gram", length = SearchKeys.GRAM_LENGTH)
+    private Set<String> phoneGrams = new HashSet<>();
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+        this.firstNameKey = SearchKeys.text(firstName);
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+        this.lastNameKey = SearchKeys.text(lastName);
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+        this.phoneDigits = SearchKeys.digits(phone);
+        // Replaced rather than cleared, the collection of a detached entity may not be initialized
+        this.phoneGrams = new HashSet<>(SearchKeys.grams(phoneDigits));
+    }
+
+    /**
+     * Recomputes the search columns, for rows that were written without going through the setters.
+     */
+    public void updateSearchKeys() {
+        setFirstName(firstName);
+        setLastName(lastName);
+        setPhone(phone);
+    }
 }
@@ -0,0 +1,58 @@
+package com.eugentia.app.data.entity;
+
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Normalization shared by the indexed search columns of the entities and the queries on them.
+ */
+public final class SearchKeys {
+
+    public static final int GRAM_LENGTH = 3;
+
+    private SearchKeys() {
+    }
+
+    /**
+     * @return the lower-cased text, or null for null
+     */
+    @Nullable
+    public static String text(@Nullable String text) {
+        return text == null ? null : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return only the digits of the text, or null for null
+     */
+    @Nullable
+    public static String digits(@Nullable String text) {
+        if (text == null) {
+            return null;
+        }
+
+        StringBuilder digits = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    /**
+     * @return the distinct substrings of {@link #GRAM_LENGTH} characters, empty if the key is shorter
+     */
+    public static Set<String> grams(@Nullable String key) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (key != null) {
+            for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+                grams.add(key.substring(i, i + GRAM_LENGTH));
+            }
+        }
+        return grams;
+    }
+}
@@ -1,9 +1,21 @@
 package com.eugentia.app.data.repository;
 
 import com.eugentia.app.data.entity.Item;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 public interface ItemRepository extends JpaRepository<Item, Long>, JpaSpecificationExecutor<Item> {
-    
+
+    /**
+     * Does not flush, so it can be called from entity lifecycle callbacks.
+     */
+    @Query("select i.id from Item i join i.labels l where l.id = :labelId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    List<Long> findIdsByLabelId(Long labelId);
 }
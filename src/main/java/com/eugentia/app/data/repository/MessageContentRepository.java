@@ -8,8 +8,21 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface MessageContentRepository extends JpaRepository<MessageContent, Integer>, JpaSpecificationExecutor<MessageContent> {
 	@Query("select s.content from MessageContent s where s.locale = :locale and s.key = :key")
 	String getMessageContent(MessageLocale locale, MessageKey key);
+
+	@Query("select s.locale.locale as localeCode, s.key.key as messageKey, s.content as content from MessageContent s")
+	List<Translation> getTranslations();
+
+	interface Translation {
+		String getLocaleCode();
+
+		String getMessageKey();
+
+		String getContent();
+	}
 }
@@ -0,0 +1,101 @@
+package com.eugentia.app.data.service;
+
+import com.eugentia.app.components.base.StreamingExcelReader;
+import jakarta.persistence.EntityManager;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Persists imported rows in chunks: one transaction per chunk, JDBC batched inserts
+ * (see hibernate.jdbc.batch_size) and a cleared persistence context after every chunk,
+ * so memory stays bounded regardless of the import size.
+ */
+@Service
+public class BatchImportService {
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public BatchImportService(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Inserts new entities in a single transaction.
+     *
+     * @return number of persisted entities
+     */
+    public <T> int saveChunk(List<T> entities) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+
+        Integer saved = transactionTemplate.execute(status -> {
+            for (T entity : entities) {
+                entityManager.persist(entity);
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return entities.size();
+        });
+
+        return saved != null ? saved : 0;
+    }
+
+    /**
+     * Streams an .xlsx file into the database. Rows are read with {@link StreamingExcelReader},
+     * mapped to entities and saved chunk by chunk.
+     *
+     * @param file             spooled upload
+     * @param chunkSize        rows per transaction
+     * @param headerRows       leading rows of each sheet to skip
+     * @param rowMapper        maps cell values to a new entity, or null to skip the row
+     * @param progressListener called with the running total after each chunk
+     * @return total number of persisted rows
+     */
+    @Async
+    public <T> CompletableFuture<Long> importExcel(File file, int chunkSize, int headerRows,
+            Function<List<String>, T> rowMapper, LongConsumer progressListener) {
+        AtomicLong saved = new AtomicLong();
+        StreamingExcelReader reader = new StreamingExcelReader(chunkSize);
+
+        try {
+            reader.read(file, (sheetName, firstRowNum, rows) -> {
+                List<T> chunk = new ArrayList<>(rows.size());
+
+                for (int i = 0; i < rows.size(); i++) {
+                    // rows.get(i) is row firstRowNum + i, blank rows included
+                    if (firstRowNum + i < headerRows || rows.get(i).isEmpty()) {
+                        continue;
+                    }
+
+                    T entity = rowMapper.apply(rows.get(i));
+                    if (entity != null) {
+                        chunk.add(entity);
+                    }
+                }
+
+                progressListener.accept(saved.addAndGet(saveChunk(chunk)));
+            });
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return CompletableFuture.completedFuture(saved.get());
+    }
+}
@@ -0,0 +1,14 @@
+package com.eugentia.app.data.service;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Specification with a normalized key, so that counts of equal filters can be cached. Two
+ * specifications with equal keys must select the same rows.
+ *
+ * @param <T> entity type
+ */
+public interface CacheableSpecification<T> extends Specification<T> {
+
+    Object cacheKey();
+}
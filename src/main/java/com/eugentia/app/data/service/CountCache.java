@@ -0,0 +1,62 @@
+package com.eugentia.app.data.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches row counts by filter key. Services invalidate it on every write they perform; the time
+ * to live bounds how stale a count can get through writes that bypass the service.
+ */
+public class CountCache {
+
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofSeconds(30);
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final Map<Object, Entry> counts = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final long timeToLiveNanos;
+
+    private final int maxEntries;
+
+    public CountCache() {
+        this(DEFAULT_TIME_TO_LIVE, DEFAULT_MAX_ENTRIES);
+    }
+
+    public CountCache(Duration timeToLive, int maxEntries) {
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    public long count(Object key, LongSupplier counter) {
+        long now = System.nanoTime();
+        Entry entry = counts.get(key);
+        if (entry != null && now - entry.time() < timeToLiveNanos) {
+            return entry.count();
+        }
+
+        long generation = this.generation.get();
+        long count = counter.getAsLong();
+        // a count that raced with a write may already be stale, so it is not cached
+        if (generation == this.generation.get()) {
+            if (counts.size() >= maxEntries) {
+                counts.clear();
+            }
+            counts.put(key, new Entry(count, now));
+        }
+        return count;
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        counts.clear();
+    }
+
+    private record Entry(long count, long time) {
+    }
+}
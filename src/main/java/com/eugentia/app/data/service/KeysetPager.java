@@ -0,0 +1,114 @@
+package com.eugentia.app.data.service;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.*;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Maps the offset/limit requests of a lazy Grid to keyset (seek) queries.
+ * <p>
+ * The sort is made unique by appending the id. After each fetched window the sort keys of its
+ * last row are remembered as the {@link KeysetScrollPosition} of the next offset, so scrolling on
+ * continues with {@code where (sort keys) > (last keys)} instead of an OFFSET that the database
+ * has to count through. A request for an offset without a remembered position (a jump with the
+ * scroll bar) falls back to a page query once and continues with keysets from there.
+ * <p>
+ * Positions are only valid for one sort and one filter state; call {@link #reset()} when the data
+ * or the filter changes. Offsets are expected to be multiples of the limit, as the Grid requests
+ * them.
+ *
+ * @param <T> entity type
+ */
+public class KeysetPager<T> {
+
+    public static final String DEFAULT_ID_PROPERTY = "id";
+
+    /**
+     * Bound on remembered positions; older ones are dropped and refetched through a page query.
+     */
+    public static final int MAX_POSITIONS = 10_000;
+
+    @FunctionalInterface
+    public interface WindowQuery<T> {
+        Window<T> scroll(KeysetScrollPosition position, Sort sort, int limit);
+    }
+
+    @FunctionalInterface
+    public interface PageQuery<T> {
+        List<T> page(Pageable pageable);
+    }
+
+    private final WindowQuery<T> windowQuery;
+
+    private final PageQuery<T> pageQuery;
+
+    private final String idProperty;
+
+    private final NavigableMap<Integer, KeysetScrollPosition> positions = new TreeMap<>();
+
+    private Sort sort = Sort.unsorted();
+
+    public KeysetPager(WindowQuery<T> windowQuery, PageQuery<T> pageQuery) {
+        this(windowQuery, pageQuery, DEFAULT_ID_PROPERTY);
+    }
+
+    public KeysetPager(WindowQuery<T> windowQuery, PageQuery<T> pageQuery, String idProperty) {
+        this.windowQuery = windowQuery;
+        this.pageQuery = pageQuery;
+        this.idProperty = idProperty;
+    }
+
+    public synchronized Stream<T> fetch(int offset, int limit, Sort requested) {
+        Sort sort = requested.getOrderFor(idProperty) != null ? requested : requested.and(Sort.by(idProperty));
+        if (!sort.equals(this.sort)) {
+            positions.clear();
+            this.sort = sort;
+        }
+
+        KeysetScrollPosition position = offset == 0 ? ScrollPosition.keyset() : positions.get(offset);
+        List<T> rows = position != null
+                ? windowQuery.scroll(position, sort, limit).getContent()
+                : pageQuery.page(PageRequest.of(offset / limit, limit, sort));
+
+        if (!rows.isEmpty()) {
+            KeysetScrollPosition next = position(rows.getLast(), sort);
+            if (next != null) {
+                if (positions.size() >= MAX_POSITIONS) {
+                    positions.pollFirstEntry();
+                }
+                positions.put(offset + rows.size(), next);
+            }
+        }
+        return rows.stream();
+    }
+
+    public synchronized void reset() {
+        positions.clear();
+    }
+
+    /**
+     * @return the position after a row, or null if one of its sort keys is null, which keyset
+     * predicates cannot compare
+     */
+    @Nullable
+    private static KeysetScrollPosition position(Object row, Sort sort) {
+        BeanWrapper wrapper = new BeanWrapperImpl(row);
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (Sort.Order order : sort) {
+            Object value = wrapper.getPropertyValue(order.getProperty());
+            if (value == null) {
+                return null;
+            }
+            keys.put(order.getProperty(), value);
+        }
+        return ScrollPosition.forward(keys);
+    }
+}
@@ -0,0 +1,126 @@
+package com.eugentia.app.data.service;
+
+import com.eugentia.app.data.entity.SamplePerson;
+import com.eugentia.app.data.entity.SearchKeys;
+import com.eugentia.app.data.repository.SamplePersonRepository;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Search filters on the indexed search columns of {@link SamplePerson}.
+ * <p>
+ * Names are matched by prefix on lower-cased copies of the name columns, which a B-tree index can
+ * serve. Phone numbers are matched anywhere in a digits-only copy: the candidates are the persons
+ * owning every trigram of the searched digits, found through the indexed trigram table, and only
+ * those are checked with {@code like}. Rows inserted by SQL scripts get their search columns on startup.
+ */
+@Service
+public class SamplePersonSearch {
+
+    private static final int BACKFILL_CHUNK_SIZE = 500;
+
+    private final SamplePersonRepository repository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public SamplePersonSearch(SamplePersonRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    private Logger getLogger() {
+        return LoggerFactory.getLogger(getClass());
+    }
+
+    /**
+     * @return persons whose first or last name starts with the filter, ignoring case
+     */
+    public static Specification<SamplePerson> nameStartsWith(String filter) {
+        String pattern = escapeLike(SearchKeys.text(filter)) + "%";
+        return (root, query, criteriaBuilder) -> criteriaBuilder.or(
+                criteriaBuilder.like(root.get("firstNameKey"), pattern, '\\'),
+                criteriaBuilder.like(root.get("lastNameKey"), pattern, '\\'));
+    }
+
+    /**
+     * @return persons whose phone number contains the digits of the filter; none if it has no digits
+     */
+    public static Specification<SamplePerson> phoneContains(String filter) {
+        String digits = SearchKeys.digits(filter);
+        Set<String> grams = SearchKeys.grams(digits);
+
+        return (root, query, criteriaBuilder) -> {
+            if (digits == null || digits.isEmpty()) {
+                return criteriaBuilder.disjunction();
+            }
+
+            Predicate match = criteriaBuilder.like(root.get("phoneDigits"), "%" + digits + "%");
+            if (grams.isEmpty()) {
+                return match;
+            }
+
+            Subquery<Long> candidates = query.subquery(Long.class);
+            Root<SamplePerson> person = candidates.from(SamplePerson.class);
+            Join<SamplePerson, String> gram = person.join("phoneGrams");
+            candidates.select(person.<Long>get("id"))
+                    .where(gram.in(grams))
+                    .groupBy(person.get("id"))
+                    .having(criteriaBuilder.equal(criteriaBuilder.countDistinct(gram), (long) grams.size()));
+
+            return criteriaBuilder.and(root.get("id").in(candidates), match);
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long start = System.nanoTime();
+        long updated = 0;
+
+        int chunk;
+        do {
+            chunk = backfillChunk();
+            updated += chunk;
+        } while (chunk == BACKFILL_CHUNK_SIZE);
+
+        if (updated > 0) {
+            getLogger().info("Indexed {} persons for search in {} ms", updated, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private int backfillChunk() {
+        Integer updated = transactionTemplate.execute(status -> {
+            List<SamplePerson> persons = repository.findBy(missingSearchKeys(),
+                    query -> query.limit(BACKFILL_CHUNK_SIZE).all());
+            persons.forEach(SamplePerson::updateSearchKeys);
+            return persons.size();
+        });
+        return updated != null ? updated : 0;
+    }
+
+    private static Specification<SamplePerson> missingSearchKeys() {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.or(
+                criteriaBuilder.and(criteriaBuilder.isNull(root.get("firstNameKey")),
+                        criteriaBuilder.isNotNull(root.get("firstName"))),
+                criteriaBuilder.and(criteriaBuilder.isNull(root.get("lastNameKey")),
+                        criteriaBuilder.isNotNull(root.get("lastName"))),
+                criteriaBuilder.and(criteriaBuilder.isNull(root.get("phoneDigits")),
+                        criteriaBuilder.isNotNull(root.get("phone"))));
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -2,43 +2,118 @@ package com.eugentia.app.data.service;
 
 import com.eugentia.app.data.entity.SamplePerson;
 import com.eugentia.app.data.repository.SamplePersonRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 
 @Service
 public class SamplePersonService {
 
+    private static final Object ALL = "all";
+
     private final SamplePersonRepository repository;
 
-    public SamplePersonService(SamplePersonRepository repository) {
+    private final SliceService sliceService;
+
+    private final CountCache countCache = new CountCache();
+
+    public SamplePersonService(SamplePersonRepository repository, SliceService sliceService) {
         this.repository = repository;
+        this.sliceService = sliceService;
     }
 
     public Optional<SamplePerson> get(Long id) {
         return repository.findById(id);
     }
 
+    /**
+     * @return the persons with the given ids in the order of the ids, skipping those that do not exist
+     */
+    public List<SamplePerson> get(List<Long> ids) {
+        Map<Long, SamplePerson> persons = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(SamplePerson::getId, Function.identity()));
+        return ids.stream().map(persons::get).filter(Objects::nonNull).toList();
+    }
+
     public SamplePerson update(SamplePerson entity) {
-        return repository.save(entity);
+        try {
+            return repository.save(entity);
+        } finally {
+            countCache.invalidate();
+        }
     }
 
     public void delete(Long id) {
-        repository.deleteById(id);
+        try {
+            repository.deleteById(id);
+        } finally {
+            countCache.invalidate();
+        }
     }
 
     public Page<SamplePerson> list(Pageable pageable) {
-        return repository.findAll(pageable);
+        return PageableExecutionUtils.getPage(slice(pageable, Specification.where(null)).getContent(), pageable,
+                this::count);
     }
 
+    /**
+     * Reads the rows with one query and takes the total from the count cache.
+     */
     public Page<SamplePerson> list(Pageable pageable, Specification<SamplePerson> filter) {
-        return repository.findAll(filter, pageable);
+        return PageableExecutionUtils.getPage(slice(pageable, filter).getContent(), pageable, () -> count(filter));
+    }
+
+    /**
+     * Reads the rows without counting, for grids that scroll without a known size.
+     */
+    public Slice<SamplePerson> slice(Pageable pageable, Specification<SamplePerson> filter) {
+        return sliceService.slice(SamplePerson.class, filter, pageable);
+    }
+
+    public Window<SamplePerson> scroll(KeysetScrollPosition position, Sort sort, int limit,
+            Specification<SamplePerson> filter) {
+        return repository.findBy(filter, query -> query.sortBy(sort).limit(limit).scroll(position));
+    }
+
+    /**
+     * @return a keyset pager over all persons
+     */
+    public KeysetPager<SamplePerson> pager() {
+        return pager(Specification.where(null));
+    }
+
+    /**
+     * @return a keyset pager over the persons matching a filter; reset it when the filter changes
+     */
+    public KeysetPager<SamplePerson> pager(Specification<SamplePerson> filter) {
+        return new KeysetPager<>((position, sort, limit) -> scroll(position, sort, limit, filter),
+                pageable -> slice(pageable, filter).getContent());
     }
 
     public int count() {
-        return (int) repository.count();
+        return (int) countCache.count(ALL, repository::count);
+    }
+
+    /**
+     * @return the number of matching persons; cached if the filter is a {@link CacheableSpecification}
+     */
+    public long count(Specification<SamplePerson> filter) {
+        if (filter instanceof CacheableSpecification<SamplePerson> cacheable) {
+            return countCache.count(cacheable.cacheKey(), () -> repository.count(filter));
+        }
+        return repository.count(filter);
     }
 
 }
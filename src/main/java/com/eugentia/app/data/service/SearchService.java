@@ -0,0 +1,39 @@
+package com.eugentia.app.data.service;
+
+import com.eugentia.app.search.SearchHit;
+import com.eugentia.app.search.SearchIndex;
+import com.eugentia.app.search.SearchIndexer;
+import com.vaadin.hilla.BrowserCallable;
+import jakarta.annotation.security.RolesAllowed;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * Full-text search over persons, items and labels, ranked by relevance and tolerant to typos.
+ */
+@BrowserCallable
+@RolesAllowed("USER")
+public class SearchService {
+
+    private final SearchIndexer indexer;
+
+    public SearchService(SearchIndexer indexer) {
+        this.indexer = indexer;
+    }
+
+    /**
+     * @param query    search text; the last word also matches as a prefix
+     * @param type     {@value SearchIndexer#PERSON}, {@value SearchIndexer#ITEM} or {@value SearchIndexer#LABEL},
+     *                 or null for all
+     * @param pageable page of the ranked hits; its sort is ignored
+     * @return hits, best first; pages beyond the first {@value SearchIndex#MAX_HITS} hits are empty
+     */
+    public List<SearchHit> search(String query, @Nullable String type, Pageable pageable) {
+        if (pageable.getOffset() >= SearchIndex.MAX_HITS) {
+            return List.of();
+        }
+        return indexer.getIndex().search(query, type, (int) pageable.getOffset(), pageable.getPageSize());
+    }
+}
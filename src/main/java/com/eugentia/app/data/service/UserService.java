@@ -5,16 +5,25 @@ import com.eugentia.app.data.repository.UserRepository;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 
 @Service
 public class UserService {
 
+    private static final Object ALL = "all";
+
     private final UserRepository repository;
 
-    public UserService(UserRepository repository) {
+    private final SliceService sliceService;
+
+    private final CountCache countCache = new CountCache();
+
+    public UserService(UserRepository repository, SliceService sliceService) {
         this.repository = repository;
+        this.sliceService = sliceService;
     }
 
     public Optional<User> get(Long id) {
@@ -22,23 +31,52 @@ public class UserService {
     }
 
     public User update(User entity) {
-        return repository.save(entity);
+        try {
+            return repository.save(entity);
+        } finally {
+            countCache.invalidate();
+        }
     }
 
     public void delete(Long id) {
-        repository.deleteById(id);
+        try {
+            repository.deleteById(id);
+        } finally {
+            countCache.invalidate();
+        }
     }
 
     public Page<User> list(Pageable pageable) {
-        return repository.findAll(pageable);
+        return PageableExecutionUtils.getPage(slice(pageable, Specification.where(null)).getContent(), pageable,
+                this::count);
     }
 
+    /**
+     * Reads the rows with one query and takes the total from the count cache.
+     */
     public Page<User> list(Pageable pageable, Specification<User> filter) {
-        return repository.findAll(filter, pageable);
+        return PageableExecutionUtils.getPage(slice(pageable, filter).getContent(), pageable, () -> count(filter));
+    }
+
+    /**
+     * Reads the rows without counting, for grids that scroll without a known size.
+     */
+    public Slice<User> slice(Pageable pageable, Specification<User> filter) {
+        return sliceService.slice(User.class, filter, pageable);
     }
 
     public int count() {
-        return (int) repository.count();
+        return (int) countCache.count(ALL, repository::count);
+    }
+
+    /**
+     * @return the number of matching users; cached if the filter is a {@link CacheableSpecification}
+     */
+    public long count(Specification<User> filter) {
+        if (filter instanceof CacheableSpecification<User> cacheable) {
+            return countCache.count(cacheable.cacheKey(), () -> repository.count(filter));
+        }
+        return repository.count(filter);
     }
 
 }
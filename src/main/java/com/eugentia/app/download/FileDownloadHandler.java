@@ -0,0 +1,95 @@
+package com.eugentia.app.download;
+
+import com.eugentia.app.storage.FileStore;
+import com.eugentia.app.storage.StoredFile;
+import com.vaadin.flow.server.RequestHandler;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinServletRequest;
+import com.vaadin.flow.server.VaadinServletResponse;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.spring.annotation.SpringComponent;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Serves the files of the {@link FileStore} under {@value #PATH_PREFIX}, outside of any
+ * {@code StreamResource}, so the session is not locked while a file is sent.
+ * <p>
+ * Files are sent by the {@link RangeFileSender} with the content hash as ETag, so conditional requests
+ * are answered with {@code 304 Not Modified} and interrupted downloads can be resumed.
+ */
+@SpringComponent
+public class FileDownloadHandler implements RequestHandler {
+
+    public static final String PATH_PREFIX = "/files/";
+
+    private static final String ROLE = "USER";
+
+    private final FileStore fileStore;
+
+    public FileDownloadHandler(FileStore fileStore) {
+        this.fileStore = fileStore;
+    }
+
+    /**
+     * @param name name of a file in the {@link FileStore}
+     * @return the download URL of the file, relative to the application root
+     */
+    public static String getUrl(String name) {
+        return PATH_PREFIX.substring(1) + URLEncoder.encode(name, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    @Override
+    public boolean handleRequest(VaadinSession session, VaadinRequest vaadinRequest, VaadinResponse vaadinResponse)
+            throws IOException {
+        String pathInfo = vaadinRequest.getPathInfo();
+        if (pathInfo == null || !pathInfo.startsWith(PATH_PREFIX)
+                || !(vaadinRequest instanceof VaadinServletRequest servletRequest)
+                || !(vaadinResponse instanceof VaadinServletResponse servletResponse)) {
+            return false;
+        }
+
+        HttpServletRequest request = servletRequest.getHttpServletRequest();
+        HttpServletResponse response = servletResponse.getHttpServletResponse();
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            response.setHeader("Allow", "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return true;
+        }
+        if (!request.isUserInRole(ROLE)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return true;
+        }
+
+        Optional<StoredFile> file = fileStore.find(pathInfo.substring(PATH_PREFIX.length()));
+        if (file.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return true;
+        }
+
+        serve(request, response, file.get(), "HEAD".equals(method));
+        return true;
+    }
+
+    private void serve(HttpServletRequest request, HttpServletResponse response, StoredFile file, boolean headOnly)
+            throws IOException {
+        // files are private to logged in users and a name may be reused once its file was deleted
+        response.setHeader("Cache-Control", "private, no-cache");
+
+        String fileName = file.name();
+        String contentType = request.getServletContext().getMimeType(fileName);
+        String disposition = "attachment; filename*=UTF-8''"
+                + URLEncoder.encode(fileName, StandardCharsets.UTF_8).replace("+", "%20");
+        // blobs are addressed by content, so the hash is a strong validator as it is
+        RangeFileSender.send(request, response, fileStore.getContent(file), file.size(),
+                file.lastModified().toEpochMilli(), "\"" + file.sha256() + "\"",
+                contentType != null ? contentType : "application/octet-stream", disposition, headOnly);
+    }
+}
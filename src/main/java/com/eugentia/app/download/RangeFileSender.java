@@ -0,0 +1,203 @@
+package com.eugentia.app.download;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends a file that does not change while it is served, with support for conditional and range requests.
+ * <p>
+ * Responses carry a length, an ETag and a modification date, answer conditional requests with
+ * {@code 304 Not Modified} and honour single byte ranges, including {@code If-Range}, so interrupted
+ * downloads can be resumed and viewers can load only the parts of a file they show. The bytes are handed
+ * to Tomcat's sendfile support when the connector offers it and are otherwise transferred from a
+ * {@link FileChannel}; either way no copy passes through a heap buffer of our own.
+ */
+public final class RangeFileSender {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Largest chunk handed to {@link FileChannel#transferTo} at once.
+     */
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    private RangeFileSender() {
+    }
+
+    /**
+     * @param path         the file to send
+     * @param length       its length
+     * @param lastModified its modification time in milliseconds
+     * @param etag         a strong validator, including the quotes
+     * @param contentType  the media type
+     * @param disposition  the {@code Content-Disposition} header
+     * @param headOnly     whether only the headers are sent
+     */
+    public static void send(HttpServletRequest request, HttpServletResponse response, Path path, long length,
+            long lastModified, String etag, String contentType, String disposition, boolean headOnly)
+            throws IOException {
+        // HTTP dates have a resolution of seconds
+        long lastModifiedSeconds = lastModified / 1000 * 1000;
+
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModifiedSeconds);
+        response.setHeader("Accept-Ranges", "bytes");
+
+        if (notModified(request, etag, lastModifiedSeconds)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(contentType);
+        response.setHeader("Content-Disposition", disposition);
+
+        long start = 0;
+        long end = length;
+        String range = request.getHeader("Range");
+        if (range != null && rangeApplies(request.getHeader("If-Range"), etag, lastModifiedSeconds)) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader("Content-Range", "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + (end - 1) + "/" + length);
+            }
+        }
+        response.setContentLengthLong(end - start);
+
+        if (headOnly || start == end) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat sends the file itself once the request has been handled
+            request.setAttribute(SENDFILE_FILENAME, path.toFile().getCanonicalPath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                long transferred = channel.transferTo(position, Math.min(TRANSFER_CHUNK, end - position), target);
+                if (transferred <= 0) {
+                    // the file was truncated while it was being sent
+                    throw new IOException("Unexpected end of " + path + " at " + position);
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return matches(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = dateHeader(request, "If-Modified-Since");
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * A range only applies if the client's copy, identified by {@code If-Range}, is still current.
+     */
+    private static boolean rangeApplies(@Nullable String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // weak validators never match, see RFC 9110 13.1.5
+            return ifRange.equals(etag);
+        }
+        try {
+            return lastModified == ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static boolean matches(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return {@code {start, end}} with an exclusive end for a single satisfiable range, an empty array
+     * when the whole file should be sent, or {@code null} when the range cannot be satisfied
+     */
+    @Nullable
+    private static long[] parseRange(String header, long length) {
+        Matcher matcher = RANGE.matcher(header.trim());
+        if (!matcher.matches()) {
+            // multiple ranges or other units; sending the whole file is always allowed
+            return new long[0];
+        }
+
+        String first = matcher.group(1);
+        String last = matcher.group(2);
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return new long[0];
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix == 0 || length == 0) {
+                    return null;
+                }
+                return new long[]{Math.max(0, length - suffix), length};
+            }
+
+            long start = Long.parseLong(first);
+            if (start >= length) {
+                return null;
+            }
+            long end = last.isEmpty() ? length : Math.min(length, Long.parseLong(last) + 1);
+            return end > start ? new long[]{start, end} : new long[0];
+        } catch (NumberFormatException e) {
+            // more digits than a long holds
+            return new long[0];
+        }
+    }
+}
@@ -0,0 +1,4 @@
+@NonNullApi
+package com.eugentia.app.download;
+
+import org.springframework.lang.NonNullApi;
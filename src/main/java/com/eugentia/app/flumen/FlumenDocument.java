@@ -0,0 +1,357 @@
+package com.eugentia.app.flumen;
+
+import com.eugentia.app.antlr4.flumenLexer;
+import com.eugentia.app.antlr4.flumenParser;
+import com.eugentia.app.antlr4.flumenParser.FlumenImportContext;
+import com.eugentia.app.antlr4.flumenParser.FlumenModelContext;
+import com.eugentia.app.antlr4.flumenParser.FlumenModelElementContext;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An editable flumen model that is re-parsed one statement at a time.
+ * <p>
+ * The source is split into segments, each ending with the {@code EOS} token that terminates the
+ * model header, an import or a {@code flumenModelElement}. Each segment is lexed and parsed on its
+ * own with positions relative to the segment start, so its subtree stays valid when text before it
+ * moves. An edit re-lexes from the segment in front of the change until an {@code EOS} lines up
+ * with an old segment boundary again; only the segments in between are parsed, the rest are
+ * reused and shifted.
+ * <p>
+ * Not thread-safe; use one instance per editor.
+ */
+public class FlumenDocument {
+
+    private String source;
+
+    private final List<Segment> segments = new ArrayList<>();
+
+    public FlumenDocument(String source) {
+        this.source = source;
+        segments.addAll(scan(source, 0, 1, 0, -1, 0, null));
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public List<Segment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Replaces the source, e.g. with the content of an editor that only reports whole values, and
+     * re-parses the statements between the first and the last changed character.
+     *
+     * @return number of segments that were re-parsed
+     */
+    public int setSource(String text) {
+        int common = Math.min(source.length(), text.length());
+        int prefix = 0;
+        while (prefix < common && source.charAt(prefix) == text.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < common - prefix
+                && source.charAt(source.length() - 1 - suffix) == text.charAt(text.length() - 1 - suffix)) {
+            suffix++;
+        }
+        if (prefix == source.length() && prefix == text.length()) {
+            return 0;
+        }
+        return replace(prefix, source.length() - prefix - suffix, text.substring(prefix, text.length() - suffix));
+    }
+
+    /**
+     * Replaces a range of the source and re-parses the affected statements.
+     *
+     * @param offset start of the replaced range
+     * @param length length of the replaced range
+     * @param text   new text
+     * @return number of segments that were re-parsed
+     */
+    public int replace(int offset, int length, String text) {
+        if (offset < 0 || length < 0 || offset + length > source.length()) {
+            throw new IndexOutOfBoundsException("replace [" + offset + ", " + (offset + length) + ") of "
+                    + source.length());
+        }
+
+        String oldSource = source;
+        source = oldSource.substring(0, offset) + text + oldSource.substring(offset + length);
+        int delta = text.length() - length;
+
+        if (segments.isEmpty()) {
+            segments.addAll(scan(source, 0, 1, 0, -1, 0, null));
+            return segments.size();
+        }
+
+        // a token ending right in front of the edit can change too, e.g. "." followed by digits
+        int first = indexOf(Math.max(offset - 1, 0));
+        Segment from = segments.get(first);
+
+        List<Segment> scanned = scan(source, from.start, from.startLine, from.startColumn,
+                offset + text.length(), delta, segments.subList(first, segments.size()));
+
+        Segment last = scanned.isEmpty() ? null : scanned.getLast();
+        int removedUpTo = segments.size();
+
+        if (last != null && last.syncIndex >= 0) {
+            // everything after the synchronized boundary is unchanged text
+            removedUpTo = first + last.syncIndex + 1;
+            last.syncIndex = -1;
+
+            if (removedUpTo < segments.size()) {
+                int syncLine = last.startLine + lineBreaks(source, last.start, last.end());
+                int lineShift = syncLine - segments.get(removedUpTo).startLine;
+
+                for (int i = removedUpTo; i < segments.size(); i++) {
+                    Segment segment = segments.get(i);
+                    segment.start += delta;
+                    segment.startLine += lineShift;
+                    // only segments starting on the line of the edit move sideways
+                    if (segment.startLine == syncLine) {
+                        segment.startColumn = segment.start - (source.lastIndexOf('\n', segment.start - 1) + 1);
+                    }
+                }
+            }
+        }
+
+        segments.subList(first, removedUpTo).clear();
+        segments.addAll(first, scanned);
+
+        return scanned.size();
+    }
+
+    /**
+     * @return header tree, or null if the document has no header segment
+     */
+    @Nullable
+    public FlumenModelContext getHeader() {
+        for (Segment segment : segments) {
+            if (segment.kind == Kind.HEADER) {
+                return (FlumenModelContext) segment.tree;
+            }
+        }
+        return null;
+    }
+
+    public List<FlumenImportContext> getImports() {
+        List<FlumenImportContext> imports = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.kind == Kind.IMPORT) {
+                imports.add((FlumenImportContext) segment.tree);
+            }
+        }
+        return imports;
+    }
+
+    public List<FlumenModelElementContext> getElements() {
+        List<FlumenModelElementContext> elements = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.kind == Kind.ELEMENT) {
+                elements.add((FlumenModelElementContext) segment.tree);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * @return syntax errors of all segments with document line and column numbers
+     */
+    public List<SyntaxError> getErrors() {
+        List<SyntaxError> errors = new ArrayList<>();
+        for (Segment segment : segments) {
+            for (SyntaxError error : segment.errors) {
+                errors.add(new SyntaxError(segment.startLine + error.line() - 1,
+                        error.line() == 1 ? segment.startColumn + error.column() : error.column(), error.message()));
+            }
+        }
+        if (!segments.isEmpty() && segments.getFirst().kind != Kind.HEADER) {
+            errors.addFirst(new SyntaxError(1, 0, "model must start with 'uri'"));
+        }
+        return errors;
+    }
+
+    private int indexOf(int offset) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (segments.get(mid).start <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Lexes from {@code start} and cuts segments at every {@code EOS}. When {@code oldSegments} is
+     * given, scanning stops at the first boundary past {@code syncAfter} that matches the end of an
+     * old segment; that segment's position in {@code oldSegments} is stored in its
+     * {@link Segment#syncIndex}.
+     */
+    private static List<Segment> scan(String source, int start, int startLine, int startColumn, int syncAfter,
+                                      int delta, List<Segment> oldSegments) {
+        List<Segment> result = new ArrayList<>();
+        flumenLexer lexer = new flumenLexer(new SourceWindow(source, start, source.length()));
+        lexer.removeErrorListeners();
+
+        int segmentStart = start;
+        int line = startLine;
+        int column = startColumn;
+        Token firstToken = null;
+        int oldIndex = 0;
+
+        for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+            if (firstToken == null) {
+                firstToken = token;
+            }
+            if (token.getType() != flumenLexer.EOS) {
+                continue;
+            }
+
+            int end = start + token.getStopIndex() + 1;
+            Segment segment = parse(source, kindOf(firstToken), segmentStart, end, line, column);
+            result.add(segment);
+
+            int nextLine = line + lineBreaks(source, segmentStart, end);
+            column = nextLine == line ? column + (end - segmentStart) : end - (source.lastIndexOf('\n', end - 1) + 1);
+            line = nextLine;
+            segmentStart = end;
+            firstToken = null;
+
+            if (oldSegments != null && syncAfter >= 0 && end >= syncAfter) {
+                int oldEnd = end - delta;
+                while (oldIndex < oldSegments.size() && oldSegments.get(oldIndex).end() < oldEnd) {
+                    oldIndex++;
+                }
+                if (oldIndex < oldSegments.size() && oldSegments.get(oldIndex).end() == oldEnd) {
+                    segment.syncIndex = oldIndex;
+                    return result;
+                }
+            }
+        }
+
+        if (segmentStart < source.length()) {
+            // text after the last terminator: an unfinished statement or only whitespace and comments
+            result.add(firstToken == null
+                    ? new Segment(Kind.BLANK, segmentStart, source.length() - segmentStart, line, column, null,
+                    List.of())
+                    : parse(source, kindOf(firstToken), segmentStart, source.length(), line, column));
+        }
+
+        return result;
+    }
+
+    private static Segment parse(String source, Kind kind, int start, int end, int line, int column) {
+        List<SyntaxError> errors = new ArrayList<>();
+        SourceWindow input = new SourceWindow(source, start, end);
+
+        ParserRuleContext tree = switch (kind) {
+            case HEADER -> FlumenParsing.parse(input, flumenParser::flumenModel, errors);
+            case IMPORT -> FlumenParsing.parse(input, flumenParser::flumenImport, errors);
+            default -> FlumenParsing.parse(input, parser -> {
+                FlumenModelElementContext element = parser.flumenModelElement();
+                FlumenParsing.matchEos(parser);
+                return element;
+            }, errors);
+        };
+
+        return new Segment(kind, start, end - start, line, column, tree, List.copyOf(errors));
+    }
+
+    private static Kind kindOf(Token firstToken) {
+        if (firstToken.getType() != flumenLexer.ID) {
+            if ("uri".equals(firstToken.getText())) {
+                return Kind.HEADER;
+            }
+            if ("import".equals(firstToken.getText())) {
+                return Kind.IMPORT;
+            }
+        }
+        return Kind.ELEMENT;
+    }
+
+    private static int lineBreaks(String source, int start, int end) {
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (source.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public enum Kind {
+        HEADER,
+        IMPORT,
+        ELEMENT,
+        BLANK
+    }
+
+    /**
+     * One statement of the document, including the whitespace and comments in front of it.
+     * Positions inside {@link #getTree()} and {@link #getErrors()} are relative to the segment.
+     */
+    public static final class Segment {
+        private final Kind kind;
+        private final int length;
+        @Nullable
+        private final ParserRuleContext tree;
+        private final List<SyntaxError> errors;
+        private int start;
+        private int startLine;
+        private int startColumn;
+        private int syncIndex = -1;
+
+        private Segment(Kind kind, int start, int length, int startLine, int startColumn, @Nullable ParserRuleContext tree,
+                        List<SyntaxError> errors) {
+            this.kind = kind;
+            this.start = start;
+            this.length = length;
+            this.startLine = startLine;
+            this.startColumn = startColumn;
+            this.tree = tree;
+            this.errors = errors;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public int getStartLine() {
+            return startLine;
+        }
+
+        /**
+         * @return parse tree, null for {@link Kind#BLANK} segments
+         */
+        @Nullable
+        public ParserRuleContext getTree() {
+            return tree;
+        }
+
+        public List<SyntaxError> getErrors() {
+            return errors;
+        }
+
+        private int end() {
+            return start + length;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.eugentia.app.flumen;
+
+import com.eugentia.app.antlr4.flumenParser;
+import com.eugentia.app.antlr4.flumenParser.FlumenImportContext;
+import com.eugentia.app.antlr4.flumenParser.FlumenModelContext;
+import jakarta.annotation.PostConstruct;
+import org.antlr.v4.runtime.CharStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Parses flumen models.
+ * <p>
+ * Parsing first runs in SLL prediction mode with a bail-out error strategy and only falls back
+ * to full LL prediction when SLL fails, which is rare for valid input. The generated parser keeps
+ * its DFA and {@code PredictionContextCache} in static fields, so they are shared by all parses
+ * and warmed up once at startup. Parsed trees are cached by the SHA-256 of the source text.
+ */
+@Service
+public class FlumenParserService {
+
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    private static final String WARMUP_MODEL = "/flumen/warmup.flumen";
+
+    private final Map<String, ParsedModel> cache;
+
+    public FlumenParserService() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public FlumenParserService(int cacheSize) {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParsedModel> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    private Logger getLogger() {
+        return LoggerFactory.getLogger(getClass());
+    }
+
+    @PostConstruct
+    private void warmUp() {
+        try (InputStream stream = getClass().getResourceAsStream(WARMUP_MODEL)) {
+            if (stream == null) {
+                return;
+            }
+
+            String source = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            long start = System.nanoTime();
+            ParsedModel model = doParse(hash(source), source);
+            getLogger().info("flumen parser warmed up in {} ms{}", (System.nanoTime() - start) / 1_000_000,
+                    model.hasErrors() ? " (with " + model.errors().size() + " syntax errors)" : "");
+        } catch (IOException e) {
+            getLogger().warn("Could not read " + WARMUP_MODEL, e);
+        }
+    }
+
+    /**
+     * Parses a model, returning the cached tree when the same source was parsed before.
+     *
+     * @param source model text
+     * @return parsed model
+     */
+    public ParsedModel parse(String source) {
+        String hash = hash(source);
+        ParsedModel model = cache.get(hash);
+
+        if (model == null) {
+            model = doParse(hash, source);
+            cache.put(hash, model);
+        }
+
+        return model;
+    }
+
+    /**
+     * Parses a model and, transitively, the models it imports. Every model goes through the cache,
+     * so unchanged imports are not parsed again, and a model imported along several paths is resolved
+     * once and shared with its own imports. Import cycles are cut where a model imports one of the
+     * models it is imported by.
+     *
+     * @param source   model text
+     * @param resolver resolves imported models
+     * @return parsed model with its imports
+     */
+    public ParsedModel parse(String source, ImportResolver resolver) {
+        return parseWithImports(parse(source), resolver, new HashSet<>(), new HashMap<>());
+    }
+
+    /**
+     * @param path     hashes of the models being resolved, from the root down to this model
+     * @param resolved models resolved with their imports, by hash
+     */
+    private ParsedModel parseWithImports(ParsedModel model, ImportResolver resolver, Set<String> path,
+            Map<String, ParsedModel> resolved) {
+        ParsedModel done = resolved.get(model.hash());
+        if (done != null) {
+            return done;
+        }
+        if (!path.add(model.hash())) {
+            return model;
+        }
+
+        Map<String, ParsedModel> imports = new LinkedHashMap<>();
+        for (FlumenImportContext importContext : model.tree().imports) {
+            if (importContext.importedResource == null) {
+                continue;
+            }
+
+            String uri = unquote(importContext.importedResource.getText());
+            resolver.resolve(uri)
+                    .map(this::parse)
+                    .ifPresent(imported -> imports.put(uri, parseWithImports(imported, resolver, path, resolved)));
+        }
+        path.remove(model.hash());
+
+        ParsedModel result = imports.isEmpty() ? model : model.withImports(Collections.unmodifiableMap(imports));
+        resolved.put(model.hash(), result);
+        return result;
+    }
+
+    /**
+     * Drops all cached trees.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    private ParsedModel doParse(String hash, String source) {
+        List<SyntaxError> errors = new ArrayList<>();
+        FlumenModelContext tree = FlumenParsing.parse(CharStreams.fromString(source), flumenParser::flumenModel, errors);
+
+        return new ParsedModel(hash, tree, List.copyOf(errors), Map.of());
+    }
+
+    static String hash(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String unquote(String text) {
+        if (text.length() >= 2 && (text.startsWith("\"") || text.startsWith("'"))) {
+            return text.substring(1, text.length() - 1);
+        }
+        return text;
+    }
+}
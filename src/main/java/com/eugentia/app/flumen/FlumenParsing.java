@@ -0,0 +1,101 @@
+package com.eugentia.app.flumen;
+
+import com.eugentia.app.antlr4.flumenLexer;
+import com.eugentia.app.antlr4.flumenParser;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Two-stage parsing shared by {@link FlumenParserService} and {@link FlumenDocument}.
+ */
+final class FlumenParsing {
+
+    private FlumenParsing() {
+    }
+
+    /**
+     * Runs a parser rule in SLL mode and re-runs it in LL mode with error recovery only
+     * when SLL fails. The rule must consume the whole input; tokens left over after it are
+     * an error, since rules ending in a loop simply stop at the first statement they cannot
+     * match.
+     *
+     * @param input  characters to parse
+     * @param rule   start rule
+     * @param errors receives lexer and parser errors
+     * @return parse tree
+     */
+    static <T extends ParserRuleContext> T parse(CharStream input, Function<flumenParser, T> rule,
+                                                 List<SyntaxError> errors) {
+        ErrorCollector collector = new ErrorCollector(errors);
+
+        flumenLexer lexer = new flumenLexer(input);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(collector);
+
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        flumenParser parser = new flumenParser(tokens);
+
+        // stage 1: SLL, give up on the first error
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+
+        try {
+            T tree = rule.apply(parser);
+            if (tokens.LA(1) != Token.EOF) {
+                throw new ParseCancellationException("extraneous input");
+            }
+            return tree;
+        } catch (ParseCancellationException e) {
+            // stage 2: full LL with error reporting and recovery
+            tokens.seek(0);
+            parser.reset();
+            parser.addErrorListener(collector);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+
+            T tree = rule.apply(parser);
+            if (tokens.LA(1) != Token.EOF) {
+                Token token = tokens.LT(1);
+                parser.notifyErrorListeners(token, "extraneous input '" + token.getText() + "' expecting <EOF>",
+                        null);
+            }
+            return tree;
+        }
+    }
+
+    /**
+     * Consumes the statement terminator, or reports it as missing. Meant to be called from a
+     * rule function passed to {@link #parse}.
+     */
+    static void matchEos(flumenParser parser) {
+        if (parser.getCurrentToken().getType() == flumenParser.EOS) {
+            parser.consume();
+        } else if (parser.getErrorHandler() instanceof BailErrorStrategy) {
+            throw new ParseCancellationException("missing '.'");
+        } else {
+            parser.notifyErrorListeners(parser.getCurrentToken(), "missing '.' at end of statement", null);
+        }
+    }
+
+    /**
+     *
+     */
+    private static class ErrorCollector extends BaseErrorListener {
+        private final List<SyntaxError> errors;
+
+        private ErrorCollector(List<SyntaxError> errors) {
+            this.errors = errors;
+        }
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            errors.add(new SyntaxError(line, charPositionInLine, msg));
+        }
+    }
+}
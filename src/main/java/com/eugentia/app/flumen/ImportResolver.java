@@ -0,0 +1,18 @@
+package com.eugentia.app.flumen;
+
+import java.util.Optional;
+
+/**
+ * Resolves the source text of a model referenced by an {@code import} statement.
+ */
+@FunctionalInterface
+public interface ImportResolver {
+
+    ImportResolver NONE = uri -> Optional.empty();
+
+    /**
+     * @param uri imported resource without the surrounding quotes
+     * @return model source, or empty if the import cannot be resolved
+     */
+    Optional<String> resolve(String uri);
+}
@@ -0,0 +1,27 @@
+package com.eugentia.app.flumen;
+
+import com.eugentia.app.antlr4.flumenParser.FlumenModelContext;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of parsing a flumen model. Instances are shared through the parser cache and
+ * must be treated as read-only.
+ *
+ * @param hash    SHA-256 of the source text
+ * @param tree    parse tree
+ * @param errors  syntax errors, empty if the model is valid
+ * @param imports imported models by import URI; only filled when imports were resolved
+ */
+public record ParsedModel(String hash, FlumenModelContext tree, List<SyntaxError> errors,
+                          Map<String, ParsedModel> imports) {
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    ParsedModel withImports(Map<String, ParsedModel> imports) {
+        return new ParsedModel(hash, tree, errors, imports);
+    }
+}
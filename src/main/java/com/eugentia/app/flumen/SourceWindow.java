@@ -0,0 +1,95 @@
+package com.eugentia.app.flumen;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * A {@link CharStream} over a slice of a string, without copying it. Indexes are relative to the
+ * start of the slice, so tokens lexed from it do not depend on where the slice sits in the document.
+ */
+final class SourceWindow implements CharStream {
+
+    private final String source;
+
+    private final int start;
+
+    private final int size;
+
+    private int position;
+
+    SourceWindow(String source, int start, int end) {
+        if (start < 0 || end > source.length() || start > end) {
+            throw new IndexOutOfBoundsException("window [" + start + ", " + end + ") of " + source.length());
+        }
+        this.source = source;
+        this.start = start;
+        this.size = end - start;
+    }
+
+    @Override
+    public void consume() {
+        if (position >= size) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        position++;
+    }
+
+    @Override
+    public int LA(int i) {
+        int offset;
+        if (i < 0) {
+            offset = position + i;
+            if (offset < 0) {
+                return IntStream.EOF;
+            }
+        } else if (i > 0) {
+            offset = position + i - 1;
+            if (offset >= size) {
+                return IntStream.EOF;
+            }
+        } else {
+            return 0;
+        }
+        return source.charAt(start + offset);
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return position;
+    }
+
+    @Override
+    public void seek(int index) {
+        position = Math.min(Math.max(index, 0), size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return IntStream.UNKNOWN_SOURCE_NAME;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int a = Math.max(interval.a, 0);
+        int b = Math.min(interval.b, size - 1);
+        if (a > b) {
+            return "";
+        }
+        return source.substring(start + a, start + b + 1);
+    }
+}
@@ -0,0 +1,16 @@
+package com.eugentia.app.flumen;
+
+/**
+ * A syntax error reported while parsing a flumen model.
+ *
+ * @param line    1-based line
+ * @param column  0-based column
+ * @param message parser message
+ */
+public record SyntaxError(int line, int column, String message) {
+
+    @Override
+    public String toString() {
+        return "line " + line + ":" + column + " " + message;
+    }
+}
@@ -0,0 +1,4 @@
+@NonNullApi
+package com.eugentia.app.flumen;
+
+import org.springframework.lang.NonNullApi;
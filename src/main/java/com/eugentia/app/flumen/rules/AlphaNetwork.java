@@ -0,0 +1,76 @@
+package com.eugentia.app.flumen.rules;
+
+import com.eugentia.app.flumen.store.TripleStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Constant tests of the rule conditions. Conditions with the same constants share one node, and
+ * nodes are indexed by predicate, so a new triple only visits the nodes it can match.
+ */
+final class AlphaNetwork {
+
+    private final Map<Pattern, Node> nodes = new HashMap<>();
+
+    private final Map<Integer, List<Node>> byPredicate = new HashMap<>();
+
+    private final List<Node> anyPredicate = new ArrayList<>();
+
+    void add(CompiledRule rule) {
+        for (int condition = 0; condition < rule.conditions.length; condition++) {
+            Pattern constants = rule.conditions[condition].constants();
+            Node node = nodes.computeIfAbsent(constants, key -> {
+                Node created = new Node(key);
+                if (key.predicate() == TripleStore.ANY) {
+                    anyPredicate.add(created);
+                } else {
+                    byPredicate.computeIfAbsent(key.predicate(), predicate -> new ArrayList<>()).add(created);
+                }
+                return created;
+            });
+            node.activations.add(new Activation(rule, condition));
+        }
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    void activate(int subject, int predicate, int object, List<Activation> activations) {
+        List<Node> candidates = byPredicate.get(predicate);
+        if (candidates != null) {
+            activate(candidates, subject, predicate, object, activations);
+        }
+        activate(anyPredicate, subject, predicate, object, activations);
+    }
+
+    private static void activate(List<Node> candidates, int subject, int predicate, int object,
+                                 List<Activation> activations) {
+        for (Node node : candidates) {
+            if (node.matches(subject, predicate, object)) {
+                activations.addAll(node.activations);
+            }
+        }
+    }
+
+    record Activation(CompiledRule rule, int condition) {
+    }
+
+    private static final class Node {
+        private final Pattern constants;
+        private final List<Activation> activations = new ArrayList<>();
+
+        private Node(Pattern constants) {
+            this.constants = constants;
+        }
+
+        private boolean matches(int subject, int predicate, int object) {
+            return (constants.subject() == TripleStore.ANY || constants.subject() == subject)
+                    && (constants.predicate() == TripleStore.ANY || constants.predicate() == predicate)
+                    && (constants.object() == TripleStore.ANY || constants.object() == object);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.eugentia.app.flumen.rules;
+
+import com.eugentia.app.flumen.store.Dictionary;
+import org.springframework.lang.Nullable;
+
+import java.math.BigDecimal;
+
+/**
+ * Test between two rule terms. Numeric literals compare by value, anything else by term text.
+ */
+record Comparison(int left, String operator, int right) {
+
+    boolean test(int[] bindings, Dictionary dictionary) {
+        int l = Pattern.resolve(left, bindings);
+        int r = Pattern.resolve(right, bindings);
+
+        return switch (operator) {
+            case "==" -> l == r || compare(dictionary.decode(l), dictionary.decode(r)) == 0;
+            case "!=" -> l != r && compare(dictionary.decode(l), dictionary.decode(r)) != 0;
+            case "<" -> compare(dictionary.decode(l), dictionary.decode(r)) < 0;
+            case "<=" -> compare(dictionary.decode(l), dictionary.decode(r)) <= 0;
+            case ">" -> compare(dictionary.decode(l), dictionary.decode(r)) > 0;
+            case ">=" -> compare(dictionary.decode(l), dictionary.decode(r)) >= 0;
+            default -> throw new IllegalStateException("Unknown operator " + operator);
+        };
+    }
+
+    static int compare(String left, String right) {
+        BigDecimal l = number(left);
+        BigDecimal r = number(right);
+        return l != null && r != null ? l.compareTo(r) : left.compareTo(right);
+    }
+
+    @Nullable
+    private static BigDecimal number(String term) {
+        if (term.isEmpty() || !(Character.isDigit(term.charAt(0)) || term.charAt(0) == '-' || term.charAt(0) == '+'
+                || term.charAt(0) == '.')) {
+            return null;
+        }
+
+        try {
+            return new BigDecimal(term);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.eugentia.app.flumen.rules;
+
+import java.util.List;
+
+/**
+ * A query statement compiled to triple patterns, as produced by {@link RuleCompiler}.
+ * Executed by {@link QueryExecutor}.
+ */
+public final class CompiledQuery {
+
+    public enum Kind {
+        /**
+         * {@code select} and plain expressions; one row per solution.
+         */
+        SELECT,
+        /**
+         * {@code ask}; a single row holding {@code true} or {@code false}.
+         */
+        ASK,
+        /**
+         * {@code construct}; one subject/predicate/object row per solution.
+         */
+        CONSTRUCT
+    }
+
+    private final String name;
+
+    private final Kind kind;
+
+    private final List<String> columns;
+
+    final Pattern[] conditions;
+
+    final Comparison[] comparisons;
+
+    /**
+     * Variables of the result columns; for {@link Kind#CONSTRUCT} the subject, predicate and
+     * object terms, which may be constants.
+     */
+    final int[] projection;
+
+    final boolean distinct;
+
+    final int[] orderBy;
+
+    final boolean[] descending;
+
+    final int variables;
+
+    CompiledQuery(String name, Kind kind, List<String> columns, List<Pattern> conditions,
+                  List<Comparison> comparisons, int[] projection, boolean distinct, int[] orderBy,
+                  boolean[] descending, int variables) {
+        this.name = name;
+        this.kind = kind;
+        this.columns = List.copyOf(columns);
+        this.conditions = conditions.toArray(Pattern[]::new);
+        this.comparisons = comparisons.toArray(Comparison[]::new);
+        this.projection = projection;
+        this.distinct = distinct;
+        this.orderBy = orderBy;
+        this.descending = descending;
+        this.variables = variables;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,165 @@
+package com.eugentia.app.flumen.rules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A rule compiled to triple patterns over variables, as produced by {@link RuleCompiler}.
+ * <p>
+ * For every condition the rule carries a join plan that starts from a triple matching that
+ * condition, so a new fact is joined with the rest of the store from wherever it enters the rule.
+ */
+public final class CompiledRule {
+
+    private final String name;
+
+    private final int stage;
+
+    final Pattern[] conditions;
+
+    final Pattern[] conclusions;
+
+    /**
+     * Number of leading conclusions that must not already hold for the rule to fire; used for
+     * {@code there exists} and for conclusions that introduce new (blank) instances.
+     */
+    final int existential;
+
+    final int variables;
+
+    final Plan[] plans;
+
+    CompiledRule(String name, int stage, List<Pattern> conditions, List<Comparison> comparisons,
+                 List<Pattern> conclusions, int existential, int variables) {
+        this.name = name;
+        this.stage = stage;
+        this.conditions = conditions.toArray(Pattern[]::new);
+        this.conclusions = conclusions.toArray(Pattern[]::new);
+        this.variables = variables;
+        this.existential = existential > 0 ? existential : introducesInstances() ? this.conclusions.length : 0;
+        this.plans = new Plan[this.conditions.length];
+        for (int seed = 0; seed < this.conditions.length; seed++) {
+            plans[seed] = plan(seed, comparisons);
+        }
+        if (this.conditions.length == 0 && !comparisons.isEmpty()) {
+            throw new IllegalArgumentException("Rule " + name + " compares values without any condition");
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return the stage number, 0 if the rule applies in every stage
+     */
+    public int stage() {
+        return stage;
+    }
+
+    int[] newBindings() {
+        int[] bindings = new int[variables];
+        Arrays.fill(bindings, Pattern.UNBOUND);
+        return bindings;
+    }
+
+    private boolean introducesInstances() {
+        boolean[] bound = new boolean[variables];
+        for (Pattern condition : conditions) {
+            markBound(condition, bound);
+        }
+        for (Pattern conclusion : conclusions) {
+            if (unbound(conclusion.subject(), bound) || unbound(conclusion.predicate(), bound)
+                    || unbound(conclusion.object(), bound)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Orders the remaining conditions so that each step shares as many terms as possible with the
+     * ones before it, and places each comparison right after the step that binds its variables.
+     */
+    private Plan plan(int seed, List<Comparison> comparisons) {
+        boolean[] bound = new boolean[variables];
+        boolean[] used = new boolean[conditions.length];
+        int[] order = new int[conditions.length - 1];
+        List<List<Comparison>> tests = new ArrayList<>();
+        List<Comparison> remaining = new ArrayList<>(comparisons);
+
+        markBound(conditions[seed], bound);
+        used[seed] = true;
+        tests.add(ready(remaining, bound));
+
+        for (int step = 0; step < order.length; step++) {
+            int best = -1;
+            int bestScore = -1;
+            for (int i = 0; i < conditions.length; i++) {
+                if (!used[i]) {
+                    int score = boundTerms(conditions[i], bound);
+                    if (score > bestScore) {
+                        best = i;
+                        bestScore = score;
+                    }
+                }
+            }
+            used[best] = true;
+            order[step] = best;
+            markBound(conditions[best], bound);
+            tests.add(ready(remaining, bound));
+        }
+
+        if (!remaining.isEmpty()) {
+            throw new IllegalArgumentException("Rule " + name + " compares a variable that no condition binds");
+        }
+
+        return new Plan(order, tests.stream().map(list -> list.toArray(Comparison[]::new)).toArray(Comparison[][]::new));
+    }
+
+    private static List<Comparison> ready(List<Comparison> remaining, boolean[] bound) {
+        List<Comparison> ready = new ArrayList<>();
+        remaining.removeIf(comparison -> {
+            if (unbound(comparison.left(), bound) || unbound(comparison.right(), bound)) {
+                return false;
+            }
+            ready.add(comparison);
+            return true;
+        });
+        return ready;
+    }
+
+    private static void markBound(Pattern pattern, boolean[] bound) {
+        markBound(pattern.subject(), bound);
+        markBound(pattern.predicate(), bound);
+        markBound(pattern.object(), bound);
+    }
+
+    private static void markBound(int term, boolean[] bound) {
+        if (Pattern.isVariable(term)) {
+            bound[Pattern.index(term)] = true;
+        }
+    }
+
+    private static boolean unbound(int term, boolean[] bound) {
+        return Pattern.isVariable(term) && !bound[Pattern.index(term)];
+    }
+
+    private static int boundTerms(Pattern pattern, boolean[] bound) {
+        return (unbound(pattern.subject(), bound) ? 0 : 1) + (unbound(pattern.predicate(), bound) ? 0 : 1)
+                + (unbound(pattern.object(), bound) ? 0 : 1);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * @param order       conditions to join after the seed condition
+     * @param comparisons comparisons to test after the seed ({@code [0]}) and after each step
+     */
+    record Plan(int[] order, Comparison[][] comparisons) {
+    }
+}
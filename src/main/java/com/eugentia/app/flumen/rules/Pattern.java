@@ -0,0 +1,63 @@
+package com.eugentia.app.flumen.rules;
+
+import com.eugentia.app.flumen.store.TripleStore;
+
+/**
+ * Triple pattern of a compiled rule. A term is either a constant term id ({@code >= 0}) or a
+ * variable, encoded as {@code -2 - index} so that it never collides with {@link TripleStore#ANY}.
+ */
+record Pattern(int subject, int predicate, int object) {
+
+    /**
+     * Value of a variable that is not bound yet; equal to {@link TripleStore#ANY}, so resolved
+     * patterns can be passed to the store as they are.
+     */
+    static final int UNBOUND = TripleStore.ANY;
+
+    static int variable(int index) {
+        return -2 - index;
+    }
+
+    static boolean isVariable(int term) {
+        return term <= -2;
+    }
+
+    static int index(int variable) {
+        return -2 - variable;
+    }
+
+    static int resolve(int term, int[] bindings) {
+        return isVariable(term) ? bindings[index(term)] : term;
+    }
+
+    /**
+     * @return the pattern with variables replaced by {@link TripleStore#ANY}
+     */
+    Pattern constants() {
+        return new Pattern(isVariable(subject) ? TripleStore.ANY : subject,
+                isVariable(predicate) ? TripleStore.ANY : predicate,
+                isVariable(object) ? TripleStore.ANY : object);
+    }
+
+    /**
+     * Binds the variables of this pattern to a matching triple.
+     *
+     * @return false if the triple contradicts a constant or an already bound variable
+     */
+    boolean bind(int s, int p, int o, int[] bindings) {
+        return bind(subject, s, bindings) && bind(predicate, p, bindings) && bind(object, o, bindings);
+    }
+
+    private static boolean bind(int term, int value, int[] bindings) {
+        if (!isVariable(term)) {
+            return term == value;
+        }
+
+        int index = index(term);
+        if (bindings[index] == UNBOUND) {
+            bindings[index] = value;
+            return true;
+        }
+        return bindings[index] == value;
+    }
+}
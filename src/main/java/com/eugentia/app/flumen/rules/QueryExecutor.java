@@ -0,0 +1,387 @@
+package com.eugentia.app.flumen.rules;
+
+import com.eugentia.app.flumen.rules.QueryPlan.*;
+import com.eugentia.app.flumen.store.Dictionary;
+import com.eugentia.app.flumen.store.TripleCursor;
+import com.eugentia.app.flumen.store.TripleStore;
+
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Executes compiled queries against a {@link TripleStore}.
+ * <p>
+ * Solutions are produced lazily by a pipeline of join iterators, so a page of an unordered result
+ * only evaluates as many solutions as it needs. Ordered results keep the best
+ * {@code offset + limit} rows in a bounded heap instead of sorting all solutions. The store must
+ * not be modified while a result stream is being consumed.
+ */
+public class QueryExecutor {
+
+    private final TripleStore store;
+
+    private final Dictionary dictionary;
+
+    public QueryExecutor(TripleStore store) {
+        this.store = store;
+        this.dictionary = store.getDictionary();
+    }
+
+    /**
+     * @return the rows of the query from {@code offset}, at most {@code limit} of them, with the
+     * terms of {@link CompiledQuery#columns()}
+     */
+    public Stream<String[]> execute(CompiledQuery query, int offset, int limit) {
+        if (query.kind() == CompiledQuery.Kind.ASK) {
+            Stream<String[]> row = Stream.<String[]>of(new String[]{Boolean.toString(ask(query))});
+            return row.skip(offset).limit(limit);
+        }
+
+        Stream<int[]> rows = stream(solutions(query)).map(solution -> project(query, solution));
+        if (query.distinct || query.kind() == CompiledQuery.Kind.CONSTRUCT) {
+            Set<Key> seen = new HashSet<>();
+            rows = rows.filter(row -> seen.add(new Key(row)));
+        }
+
+        if (query.orderBy.length > 0) {
+            rows = top(query, rows, (int) Math.min(Integer.MAX_VALUE, (long) offset + limit));
+        }
+        return rows.skip(offset).limit(limit).map(this::decode);
+    }
+
+    public boolean ask(CompiledQuery query) {
+        return solutions(query).hasNext();
+    }
+
+    /**
+     * @return the estimated number of solutions, for sizing a lazy result before it is fetched
+     */
+    public double estimate(CompiledQuery query) {
+        return QueryPlanner.plan(query, store).estimate();
+    }
+
+    private Iterator<int[]> solutions(CompiledQuery query) {
+        QueryPlan plan = QueryPlanner.plan(query, store);
+        int[] empty = new int[query.variables];
+        Arrays.fill(empty, Pattern.UNBOUND);
+        if (plan.empty() || !test(plan.preconditions(), empty)) {
+            return Collections.emptyIterator();
+        }
+
+        Iterator<int[]> solutions = List.of(empty).iterator();
+        for (Step step : plan.steps()) {
+            Iterator<int[]> joined = switch (step) {
+                case Scan scan -> new IndexJoinIterator(solutions, scan.pattern());
+                case MergeJoin merge -> new MergeJoinIterator(empty, merge);
+                case IndexJoin join -> new IndexJoinIterator(solutions, join.pattern());
+                case HashJoin join -> new HashJoinIterator(solutions, join, query.variables);
+            };
+            solutions = filter(joined, step.filters());
+        }
+        return solutions;
+    }
+
+    private int[] project(CompiledQuery query, int[] solution) {
+        int[] row = new int[query.projection.length];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = Pattern.resolve(query.projection[i], solution);
+        }
+        if (query.orderBy.length == 0) {
+            return row;
+        }
+
+        // order keys travel behind the projected terms until the rows are ranked
+        int[] keyed = Arrays.copyOf(row, row.length + query.orderBy.length);
+        for (int i = 0; i < query.orderBy.length; i++) {
+            keyed[row.length + i] = Pattern.resolve(query.orderBy[i], solution);
+        }
+        return keyed;
+    }
+
+    /**
+     * @return the first {@code k} rows in query order, keeping at most {@code k} rows at a time
+     */
+    private Stream<int[]> top(CompiledQuery query, Stream<int[]> rows, int k) {
+        int keys = query.projection.length;
+        Comparator<int[]> order = (left, right) -> {
+            for (int i = 0; i < query.orderBy.length; i++) {
+                int result = compare(left[keys + i], right[keys + i]);
+                if (result != 0) {
+                    return query.descending[i] ? -result : result;
+                }
+            }
+            return 0;
+        };
+
+        if (k <= 0) {
+            return Stream.empty();
+        }
+        PriorityQueue<int[]> heap = new PriorityQueue<>(order.reversed());
+        rows.forEach(row -> {
+            if (heap.size() < k) {
+                heap.add(row);
+            } else if (order.compare(row, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(row);
+            }
+        });
+
+        int[][] best = heap.toArray(int[][]::new);
+        Arrays.sort(best, order);
+        return Arrays.stream(best).map(row -> Arrays.copyOf(row, keys));
+    }
+
+    private int compare(int left, int right) {
+        if (left == right) {
+            return 0;
+        }
+        if (left == Pattern.UNBOUND || right == Pattern.UNBOUND) {
+            return left == Pattern.UNBOUND ? -1 : 1;
+        }
+        return Comparison.compare(dictionary.decode(left), dictionary.decode(right));
+    }
+
+    private String[] decode(int[] row) {
+        String[] terms = new String[row.length];
+        for (int i = 0; i < row.length; i++) {
+            terms[i] = row[i] == Pattern.UNBOUND ? "" : dictionary.decode(row[i]);
+        }
+        return terms;
+    }
+
+    private boolean test(Comparison[] comparisons, int[] solution) {
+        for (Comparison comparison : comparisons) {
+            if (!comparison.test(solution, dictionary)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Iterator<int[]> filter(Iterator<int[]> solutions, Comparison[] comparisons) {
+        if (comparisons.length == 0) {
+            return solutions;
+        }
+        return new Iterator<>() {
+            private int[] next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && solutions.hasNext()) {
+                    int[] solution = solutions.next();
+                    if (test(comparisons, solution)) {
+                        next = solution;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int[] solution = next;
+                next = null;
+                return solution;
+            }
+        };
+    }
+
+    private TripleCursor match(Pattern pattern, int[] solution) {
+        return store.match(Pattern.resolve(pattern.subject(), solution),
+                Pattern.resolve(pattern.predicate(), solution), Pattern.resolve(pattern.object(), solution));
+    }
+
+    private static <T> Stream<T> stream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Base of the join iterators: computes the next solution on demand.
+     */
+    private abstract static class SolutionIterator implements Iterator<int[]> {
+        private int[] next;
+
+        /**
+         * @return the next solution, or null at the end
+         */
+        protected abstract int[] advance();
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public int[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int[] solution = next;
+            next = null;
+            return solution;
+        }
+    }
+
+    private final class IndexJoinIterator extends SolutionIterator {
+        private final Iterator<int[]> input;
+        private final Pattern pattern;
+        private int[] current;
+        private TripleCursor cursor = TripleCursor.EMPTY;
+
+        private IndexJoinIterator(Iterator<int[]> input, Pattern pattern) {
+            this.input = input;
+            this.pattern = pattern;
+        }
+
+        @Override
+        protected int[] advance() {
+            while (true) {
+                while (cursor.next()) {
+                    int[] solution = current.clone();
+                    if (pattern.bind(cursor.subject(), cursor.predicate(), cursor.object(), solution)) {
+                        return solution;
+                    }
+                }
+                if (!input.hasNext()) {
+                    return null;
+                }
+                current = input.next();
+                cursor = match(pattern, current);
+            }
+        }
+    }
+
+    private final class MergeJoinIterator extends SolutionIterator {
+        private final int[] empty;
+        private final int variable;
+        private final TripleCursor left;
+        private final TripleCursor right;
+        private final Pattern leftPattern;
+        private final Pattern rightPattern;
+        private boolean leftValid;
+        private boolean rightValid;
+
+        private MergeJoinIterator(int[] empty, MergeJoin merge) {
+            this.empty = empty;
+            this.variable = merge.variable();
+            this.leftPattern = merge.left();
+            this.rightPattern = merge.right();
+            this.left = match(leftPattern, empty);
+            this.right = match(rightPattern, empty);
+            this.leftValid = left.next();
+            this.rightValid = right.next();
+        }
+
+        @Override
+        protected int[] advance() {
+            while (leftValid && rightValid) {
+                int leftValue = value(leftPattern, left);
+                int rightValue = value(rightPattern, right);
+                if (leftValue < rightValue) {
+                    leftValid = left.next();
+                } else if (leftValue > rightValue) {
+                    rightValid = right.next();
+                } else {
+                    int[] solution = empty.clone();
+                    solution[Pattern.index(variable)] = leftValue;
+                    leftValid = left.next();
+                    rightValid = right.next();
+                    return solution;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return the term the cursor binds to the shared variable
+         */
+        private int value(Pattern pattern, TripleCursor cursor) {
+            if (pattern.subject() == variable) {
+                return cursor.subject();
+            }
+            return pattern.predicate() == variable ? cursor.predicate() : cursor.object();
+        }
+    }
+
+    private final class HashJoinIterator extends SolutionIterator {
+        private final Iterator<int[]> input;
+        private final Pattern pattern;
+        private final int[] joinVariables;
+        private final int variables;
+        private Map<Key, List<int[]>> table;
+        private int[] current;
+        private Iterator<int[]> matches = Collections.emptyIterator();
+
+        private HashJoinIterator(Iterator<int[]> input, HashJoin join, int variables) {
+            this.input = input;
+            this.pattern = join.pattern();
+            this.joinVariables = join.joinVariables();
+            this.variables = variables;
+        }
+
+        @Override
+        protected int[] advance() {
+            if (table == null) {
+                table = build();
+            }
+
+            while (true) {
+                if (matches.hasNext()) {
+                    int[] match = matches.next();
+                    int[] solution = current.clone();
+                    for (int i = 0; i < solution.length; i++) {
+                        if (solution[i] == Pattern.UNBOUND) {
+                            solution[i] = match[i];
+                        }
+                    }
+                    return solution;
+                }
+                if (!input.hasNext()) {
+                    return null;
+                }
+                current = input.next();
+                matches = table.getOrDefault(key(current), List.of()).iterator();
+            }
+        }
+
+        private Map<Key, List<int[]>> build() {
+            Map<Key, List<int[]>> table = new HashMap<>();
+            Pattern constants = pattern.constants();
+            TripleCursor cursor = store.match(constants.subject(), constants.predicate(), constants.object());
+            while (cursor.next()) {
+                int[] match = new int[variables];
+                Arrays.fill(match, Pattern.UNBOUND);
+                if (pattern.bind(cursor.subject(), cursor.predicate(), cursor.object(), match)) {
+                    table.computeIfAbsent(key(match), key -> new ArrayList<>(1)).add(match);
+                }
+            }
+            return table;
+        }
+
+        private Key key(int[] solution) {
+            int[] key = new int[joinVariables.length];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = solution[Pattern.index(joinVariables[i])];
+            }
+            return new Key(key);
+        }
+    }
+
+    private record Key(int[] terms) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Arrays.equals(terms, key.terms);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(terms);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.eugentia.app.flumen.rules;
+
+import java.util.List;
+
+/**
+ * Join order and join operators for a {@link CompiledQuery}, chosen by {@link QueryPlanner}.
+ * Every step carries the comparisons that can be tested once it has bound its variables.
+ *
+ * @param preconditions comparisons between constants, tested once
+ * @param steps         the first step is a {@link Scan} or {@link MergeJoin}, the others join with it
+ * @param empty         true if some condition has no match at all
+ * @param estimate      estimated number of solutions
+ */
+record QueryPlan(Comparison[] preconditions, List<Step> steps, boolean empty, double estimate) {
+
+    sealed interface Step permits Scan, MergeJoin, IndexJoin, HashJoin {
+        Comparison[] filters();
+    }
+
+    /**
+     * Range scan of one index.
+     */
+    record Scan(Pattern pattern, Comparison[] filters) implements Step {
+    }
+
+    /**
+     * Two patterns that share their only variable, both scanned in the order of that variable.
+     */
+    record MergeJoin(Pattern left, Pattern right, int variable, Comparison[] filters) implements Step {
+    }
+
+    /**
+     * Index lookup per input solution, with the bound variables substituted.
+     */
+    record IndexJoin(Pattern pattern, Comparison[] filters) implements Step {
+    }
+
+    /**
+     * One scan of the pattern into a hash table on the join variables, probed per input solution;
+     * cheaper than an index lookup per solution when there are more solutions than matching triples.
+     */
+    record HashJoin(Pattern pattern, int[] joinVariables, Comparison[] filters) implements Step {
+    }
+}
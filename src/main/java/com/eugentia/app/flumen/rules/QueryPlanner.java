@@ -0,0 +1,172 @@
+package com.eugentia.app.flumen.rules;
+
+import com.eugentia.app.flumen.rules.QueryPlan.*;
+import com.eugentia.app.flumen.store.TripleStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cost-based planner for {@link CompiledQuery}. Pattern cardinalities come from the store's index
+ * ranges ({@link TripleStore#count}); the join selectivity of a shared variable is estimated as one
+ * over the number of distinct terms.
+ */
+final class QueryPlanner {
+
+    private QueryPlanner() {
+    }
+
+    static QueryPlan plan(CompiledQuery query, TripleStore store) {
+        Pattern[] conditions = query.conditions;
+        int[] cardinalities = new int[conditions.length];
+        for (int i = 0; i < conditions.length; i++) {
+            Pattern constants = conditions[i].constants();
+            cardinalities[i] = store.count(constants.subject(), constants.predicate(), constants.object());
+            if (cardinalities[i] == 0) {
+                return new QueryPlan(new Comparison[0], List.of(), true, 0);
+            }
+        }
+
+        double terms = Math.max(1, store.getDictionary().size());
+        boolean[] bound = new boolean[query.variables];
+        boolean[] used = new boolean[conditions.length];
+        List<Comparison> remaining = new ArrayList<>(Arrays.asList(query.comparisons));
+        List<Step> steps = new ArrayList<>();
+        Comparison[] preconditions = ready(remaining, bound);
+        double rows = 1;
+
+        if (conditions.length > 0) {
+            int seed = 0;
+            for (int i = 1; i < conditions.length; i++) {
+                if (cardinalities[i] < cardinalities[seed]) {
+                    seed = i;
+                }
+            }
+            used[seed] = true;
+            markBound(conditions[seed], bound);
+            rows = cardinalities[seed];
+
+            int partner = mergePartner(conditions, cardinalities, seed);
+            if (partner >= 0) {
+                used[partner] = true;
+                rows = Math.min(cardinalities[seed], cardinalities[partner]);
+                steps.add(new MergeJoin(conditions[seed], conditions[partner], onlyVariable(conditions[seed]),
+                        ready(remaining, bound)));
+            } else {
+                steps.add(new Scan(conditions[seed], ready(remaining, bound)));
+            }
+        }
+
+        for (int step = steps.size(); step < conditions.length; step++) {
+            int next = -1;
+            double nextRows = Double.MAX_VALUE;
+            boolean nextConnected = false;
+            for (int i = 0; i < conditions.length; i++) {
+                if (used[i]) {
+                    continue;
+                }
+                int shared = boundVariables(conditions[i], bound);
+                double estimate = Math.max(1, rows * cardinalities[i] / Math.pow(terms, shared));
+                // avoid cartesian products while a connected pattern is left
+                boolean connected = shared > 0;
+                if (connected && !nextConnected || connected == nextConnected && estimate < nextRows) {
+                    next = i;
+                    nextRows = estimate;
+                    nextConnected = connected;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+
+            Pattern pattern = conditions[next];
+            int[] joinVariables = joinVariables(pattern, bound);
+            used[next] = true;
+            markBound(pattern, bound);
+            Comparison[] filters = ready(remaining, bound);
+            if (joinVariables.length > 0 && cardinalities[next] < rows) {
+                steps.add(new HashJoin(pattern, joinVariables, filters));
+            } else {
+                steps.add(new IndexJoin(pattern, filters));
+            }
+            rows = nextRows;
+        }
+
+        if (!remaining.isEmpty()) {
+            throw new IllegalArgumentException("Query " + query.name() + " compares a variable that no condition binds");
+        }
+
+        return new QueryPlan(preconditions, steps, false, rows);
+    }
+
+    /**
+     * @return a pattern with the same single variable as the seed, or -1
+     */
+    private static int mergePartner(Pattern[] conditions, int[] cardinalities, int seed) {
+        int variable = onlyVariable(conditions[seed]);
+        if (variable == TripleStore.ANY) {
+            return -1;
+        }
+
+        int partner = -1;
+        for (int i = 0; i < conditions.length; i++) {
+            if (i != seed && onlyVariable(conditions[i]) == variable
+                    && (partner < 0 || cardinalities[i] < cardinalities[partner])) {
+                partner = i;
+            }
+        }
+        return partner;
+    }
+
+    /**
+     * @return the variable of a pattern with exactly one variable term, or {@link TripleStore#ANY}
+     */
+    static int onlyVariable(Pattern pattern) {
+        int variable = TripleStore.ANY;
+        for (int term : new int[]{pattern.subject(), pattern.predicate(), pattern.object()}) {
+            if (Pattern.isVariable(term)) {
+                if (variable != TripleStore.ANY) {
+                    return TripleStore.ANY;
+                }
+                variable = term;
+            }
+        }
+        return variable;
+    }
+
+    private static int[] joinVariables(Pattern pattern, boolean[] bound) {
+        return Arrays.stream(new int[]{pattern.subject(), pattern.predicate(), pattern.object()})
+                .filter(term -> Pattern.isVariable(term) && bound[Pattern.index(term)])
+                .distinct()
+                .toArray();
+    }
+
+    private static int boundVariables(Pattern pattern, boolean[] bound) {
+        return joinVariables(pattern, bound).length;
+    }
+
+    private static void markBound(Pattern pattern, boolean[] bound) {
+        for (int term : new int[]{pattern.subject(), pattern.predicate(), pattern.object()}) {
+            if (Pattern.isVariable(term)) {
+                bound[Pattern.index(term)] = true;
+            }
+        }
+    }
+
+    private static Comparison[] ready(List<Comparison> remaining, boolean[] bound) {
+        List<Comparison> ready = new ArrayList<>();
+        remaining.removeIf(comparison -> {
+            if (isUnbound(comparison.left(), bound) || isUnbound(comparison.right(), bound)) {
+                return false;
+            }
+            ready.add(comparison);
+            return true;
+        });
+        return ready.toArray(Comparison[]::new);
+    }
+
+    private static boolean isUnbound(int term, boolean[] bound) {
+        return Pattern.isVariable(term) && !bound[Pattern.index(term)];
+    }
+}
@@ -0,0 +1,443 @@
+package com.eugentia.app.flumen.rules;
+
+import com.eugentia.app.antlr4.flumenParser.*;
+import com.eugentia.app.flumen.store.Dictionary;
+import com.eugentia.app.flumen.store.FlumenVocabulary;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.springframework.lang.Nullable;
+
+import java.util.*;
+
+/**
+ * Compiles flumen {@code Rule} statements and {@code Ask}/{@code Graph} queries into triple patterns.
+ * <p>
+ * Supported conditions and conclusions are conjunctions ({@code and}) of
+ * <ul>
+ * <li>{@code x is a T} - type of x</li>
+ * <li>{@code p of x is y}, {@code x has p y} - property values, where {@code p of q of x} chains
+ * through intermediate values</li>
+ * <li>{@code a T}, {@code the T} - an instance of T, new for the indefinite article</li>
+ * <li>{@code x < y}, {@code x != y} and other comparisons, in conditions only</li>
+ * </ul>
+ * A name that is not a term of the model (see {@link Dictionary#lookup}) is a rule variable, so
+ * rules should be compiled after the facts of the model have been loaded. Negation, disjunction,
+ * arithmetic and built-in functions would make the rules non-monotonic or need evaluation beyond
+ * pattern matching and are rejected with an {@link IllegalArgumentException}.
+ */
+public class RuleCompiler {
+
+    private final Dictionary dictionary;
+
+    public RuleCompiler(Dictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public List<CompiledRule> compile(FlumenModelContext model) {
+        List<CompiledRule> rules = new ArrayList<>();
+        for (FlumenModelElementContext element : model.elements) {
+            if (element.ruleStatement() != null) {
+                rules.add(compile(element.ruleStatement()));
+            }
+        }
+        return rules;
+    }
+
+    public CompiledRule compile(RuleStatementContext rule) {
+        return new Scope(rule.name.name.getText()).compile(rule);
+    }
+
+    /**
+     * Compiles the {@code Ask} and {@code Graph} statements of a model. Unnamed queries are named
+     * after their line.
+     */
+    public List<CompiledQuery> compileQueries(FlumenModelContext model) {
+        List<CompiledQuery> queries = new ArrayList<>();
+        for (FlumenModelElementContext element : model.elements) {
+            if (element.queryStatement() != null) {
+                queries.add(compile(element.queryStatement()));
+            }
+        }
+        return queries;
+    }
+
+    public CompiledQuery compile(QueryStatementContext query) {
+        String name = query.name != null ? query.name.name.getText()
+                : query.start.getText() + " (line " + query.start.getLine() + ")";
+        Scope scope = new Scope(name);
+        if (query.srname != null) {
+            throw scope.unsupported("named query reference", query);
+        }
+        return scope.compile(query.queryStatementExpression());
+    }
+
+    private final class Scope {
+
+        private final String name;
+
+        private final Map<String, Integer> variables = new LinkedHashMap<>();
+
+        /**
+         * Last instance introduced for each type, referred to by the definite article.
+         */
+        private final Map<Integer, Integer> instances = new HashMap<>();
+
+        private final List<Pattern> conditions = new ArrayList<>();
+
+        private final List<Comparison> comparisons = new ArrayList<>();
+
+        private final List<Pattern> conclusions = new ArrayList<>();
+
+        private List<Pattern> target = conditions;
+
+        private int variableCount;
+
+        private Scope(String name) {
+            this.name = name;
+        }
+
+        private CompiledRule compile(RuleStatementContext rule) {
+            rule.ifs.forEach(this::conjunction);
+
+            target = conclusions;
+            int existential = 0;
+            if (rule.then != null) {
+                conjunction(rule.then);
+            } else {
+                conjunction(rule.there.match);
+                existential = conclusions.size();
+                if (rule.there.plus != null) {
+                    conjunction(rule.there.plus);
+                }
+            }
+
+            int stage = rule.stage != null ? Integer.parseInt(rule.stage.getText()) : 0;
+            return new CompiledRule(name, stage, conditions, comparisons, conclusions, existential, variableCount);
+        }
+
+        private CompiledQuery compile(QueryStatementExpressionContext query) {
+            if (query.askExpression() != null) {
+                conjunction(query.askExpression().whereExpression);
+                return query(CompiledQuery.Kind.ASK, List.of(), new int[0], false, List.of());
+            }
+
+            if (query.constructExpression() != null) {
+                ConstructExpressionContext construct = query.constructExpression();
+                conjunction(construct.whereExpression);
+                int[] template = {bound(construct.subj), constant(construct.pred.name.getText()), bound(construct.obj)};
+                return query(CompiledQuery.Kind.CONSTRUCT, List.of("subject", "predicate", "object"), template, false,
+                        List.of());
+            }
+
+            ExpressionContext expression = query.expression();
+            if (expression.whereExpression == null) {
+                conjunction(expression.expressionParameterized());
+                return query(CompiledQuery.Kind.SELECT, List.copyOf(variables.keySet()),
+                        variables.values().stream().mapToInt(Integer::intValue).toArray(), false, List.of());
+            }
+
+            conjunction(expression.whereExpression);
+            List<String> columns = new ArrayList<>();
+            int[] projection;
+            if (expression.selectFrom.isEmpty()) {
+                columns.addAll(variables.keySet());
+                projection = variables.values().stream().mapToInt(Integer::intValue).toArray();
+            } else {
+                projection = new int[expression.selectFrom.size()];
+                for (int i = 0; i < projection.length; i++) {
+                    FlumenResourceContext column = expression.selectFrom.get(i);
+                    columns.add(column.name.getText());
+                    projection[i] = variable(column);
+                }
+            }
+            return query(CompiledQuery.Kind.SELECT, columns, projection, expression.distinct != null,
+                    expression.orderList);
+        }
+
+        private CompiledQuery query(CompiledQuery.Kind kind, List<String> columns, int[] projection, boolean distinct,
+                                    List<OrderElementContext> order) {
+            int[] orderBy = new int[order.size()];
+            boolean[] descending = new boolean[order.size()];
+            for (int i = 0; i < orderBy.length; i++) {
+                orderBy[i] = variable(order.get(i).orderBy);
+                descending[i] = order.get(i).desc != null;
+            }
+            return new CompiledQuery(name, kind, columns, conditions, comparisons, projection, distinct, orderBy,
+                    descending, variableCount);
+        }
+
+        /**
+         * @return a constant, or a variable bound by the conditions
+         */
+        private int bound(FlumenResourceContext resource) {
+            String name = resource.name.getText();
+            return variables.containsKey(name) || dictionary.lookup(name) == Dictionary.NOT_FOUND
+                    ? variable(resource) : constant(name);
+        }
+
+        private int variable(FlumenResourceContext resource) {
+            Integer variable = variables.get(resource.name.getText());
+            if (variable == null) {
+                throw unsupported("unknown variable " + resource.name.getText(), resource);
+            }
+            return variable;
+        }
+
+        private void conjunction(ExpressionContext expression) {
+            if (expression.whereExpression != null) {
+                throw unsupported("select", expression);
+            }
+            conjunction(expression.expressionParameterized());
+        }
+
+        private void conjunction(ExpressionParameterizedContext parameterized) {
+            OrExpressionContext or = parameterized.orExpression();
+            if (or == null) {
+                throw unsupported("sublist", parameterized);
+            }
+            if (!or.right.isEmpty()) {
+                throw unsupported("or", or);
+            }
+
+            conjunct(or.left.left);
+            or.left.right.forEach(this::conjunct);
+        }
+
+        private void conjunct(EqualityExpressionContext equality) {
+            if (equality.right.isEmpty()) {
+                RelationalExpressionContext relational = equality.left;
+                if (relational.right.isEmpty()) {
+                    term(relational);
+                } else if (relational.right.size() == 1) {
+                    compare(term(relational.left), relational.op.getText(), term(relational.right.getFirst()),
+                            relational);
+                } else {
+                    throw unsupported("chained comparison", relational);
+                }
+                return;
+            }
+            if (equality.right.size() > 1) {
+                throw unsupported("chained comparison", equality);
+            }
+
+            RelationalExpressionContext left = equality.left;
+            RelationalExpressionContext right = equality.right.getFirst();
+            switch (equality.op.getText()) {
+                case "is", "=", "==", "isthesameas" -> equals(left, right);
+                case "!=", "isdifferentfrom" -> compare(term(left), "!=", term(right), equality);
+                default -> throw unsupported(equality.op.getText(), equality);
+            }
+        }
+
+        private void equals(RelationalExpressionContext left, RelationalExpressionContext right) {
+            PrimaryExpressionContext primary = primary(right);
+            if (primary != null && primary.declaration() != null) {
+                target.add(new Pattern(term(left), constant(FlumenVocabulary.TYPE), type(primary.declaration())));
+                return;
+            }
+
+            PropOfSubjectContext chain = propOfSubject(left);
+            if (chain != null && chain.of != null) {
+                int subject = term(of(chain));
+                target.add(new Pattern(subject, property(chain.left), term(right)));
+                return;
+            }
+
+            compare(term(left), "==", term(right), left.getParent());
+        }
+
+        private void compare(int left, String operator, int right, ParserRuleContext context) {
+            if (target != conditions) {
+                throw unsupported("comparison in a conclusion", context);
+            }
+            comparisons.add(new Comparison(left, operator, right));
+        }
+
+        private int term(RelationalExpressionContext relational) {
+            if (!relational.right.isEmpty()) {
+                throw unsupported("comparison", relational);
+            }
+            return term(relational.left);
+        }
+
+        private int term(AdditionContext addition) {
+            PropOfSubjectContext propOfSubject = propOfSubject(addition);
+            if (propOfSubject == null) {
+                throw unsupported("arithmetic", addition);
+            }
+            return term(propOfSubject);
+        }
+
+        private int term(PropOfSubjectContext propOfSubject) {
+            if (propOfSubject.of != null) {
+                // a chained value is a fact the rule depends on, even inside a conclusion
+                int subject = term(of(propOfSubject));
+                int value = newVariable();
+                conditions.add(new Pattern(subject, property(propOfSubject.left), value));
+                return value;
+            }
+
+            int subject = term(propOfSubject.left);
+            for (PropOfSubjectStatementContext statement : propOfSubject.statement) {
+                int object = statement.element != null ? term(statement.element) : newVariable();
+                target.add(new Pattern(subject, constant(statement.prop.name.getText()), object));
+            }
+            return subject;
+        }
+
+        private PropOfSubjectContext of(PropOfSubjectContext chain) {
+            if (!"of".equals(chain.of.getText())) {
+                throw unsupported(chain.of.getText(), chain);
+            }
+            return chain.propOfSubject();
+        }
+
+        private int term(ElementInListContext element) {
+            if (element.before != null || element.after != null || "element".equals(element.getStart().getText())) {
+                throw unsupported("list element", element);
+            }
+
+            UnitExpressionContext unit = element.element;
+            UnaryExpressionContext unary = unit.unaryExpression();
+            if (unit.unit_ != null) {
+                throw unsupported("unit", unit);
+            }
+            if (unary.op != null) {
+                throw unsupported(unary.op.getText(), unary);
+            }
+            return term(unary.expr);
+        }
+
+        private int term(PrimaryExpressionContext primary) {
+            if (primary.flumenName() != null) {
+                FlumenNameContext name = primary.flumenName();
+                if (name.function != null) {
+                    throw unsupported("function", name);
+                }
+                return name(name.name.getText());
+            }
+            if (primary.declaration() != null) {
+                return instance(primary.declaration());
+            }
+            if (primary.stringLiteral != null) {
+                return constant(primary.stringLiteral.getText());
+            }
+            if (primary.numberLiteral != null) {
+                return constant(primary.numberLiteral.getText());
+            }
+            if (primary.booleanLiteral != null) {
+                return constant(primary.booleanLiteral.getText());
+            }
+            throw unsupported(primary.getText(), primary);
+        }
+
+        /**
+         * @return the instance a declaration refers to, typed by a new condition or conclusion
+         */
+        private int instance(DeclarationContext declaration) {
+            int type = type(declaration);
+            if (declaration.article.definiteArticle() != null) {
+                Integer instance = instances.get(type);
+                if (instance != null) {
+                    return instance;
+                }
+            }
+
+            int instance = newVariable();
+            instances.put(type, instance);
+            target.add(new Pattern(instance, constant(FlumenVocabulary.TYPE), type));
+            return instance;
+        }
+
+        private int type(DeclarationContext declaration) {
+            if (declaration.ordinal() != null || !declaration.arglist.isEmpty() || declaration.len != null) {
+                throw unsupported("declaration", declaration);
+            }
+
+            FlumenPrimaryTypeReferenceContext type = declaration.type;
+            if (type.flumenSimpleTypeReference() != null && type.flumenSimpleTypeReference().list == null) {
+                return constant(type.flumenSimpleTypeReference().type.getText());
+            }
+            if (type.flumenPrimitiveDataType() != null && type.flumenPrimitiveDataType().list == null) {
+                return constant(FlumenVocabulary.XSD + type.flumenPrimitiveDataType().primitiveType.getText());
+            }
+            throw unsupported("type " + type.getText(), type);
+        }
+
+        private int property(ElementInListContext element) {
+            PrimaryExpressionContext primary = element.element.unaryExpression().expr;
+            if (primary.flumenName() == null) {
+                throw unsupported("property " + element.getText(), element);
+            }
+            return constant(primary.flumenName().name.getText());
+        }
+
+        private int name(String name) {
+            Integer variable = variables.get(name);
+            if (variable != null) {
+                return variable;
+            }
+
+            int id = dictionary.lookup(name);
+            if (id != Dictionary.NOT_FOUND) {
+                return id;
+            }
+
+            variable = newVariable();
+            variables.put(name, variable);
+            return variable;
+        }
+
+        private int constant(String term) {
+            return dictionary.encode(term);
+        }
+
+        private int newVariable() {
+            return Pattern.variable(variableCount++);
+        }
+
+        private IllegalArgumentException unsupported(String what, ParserRuleContext context) {
+            return new IllegalArgumentException("Rule " + name + ": " + what + " is not supported (line "
+                    + context.getStart().getLine() + ")");
+        }
+    }
+
+    /**
+     * @return the single primary expression of a relational expression, null if it is compound
+     */
+    @Nullable
+    private static PrimaryExpressionContext primary(RelationalExpressionContext relational) {
+        PropOfSubjectContext propOfSubject = propOfSubject(relational);
+        if (propOfSubject == null || propOfSubject.of != null || !propOfSubject.statement.isEmpty()) {
+            return null;
+        }
+
+        ElementInListContext element = propOfSubject.left;
+        UnitExpressionContext unit = element.element;
+        if (element.before != null || element.after != null || unit.unit_ != null
+                || unit.unaryExpression().op != null) {
+            return null;
+        }
+        return unit.unaryExpression().expr;
+    }
+
+    /**
+     * @return the term of an expression without operators, null otherwise
+     */
+    @Nullable
+    private static PropOfSubjectContext propOfSubject(RelationalExpressionContext relational) {
+        return relational.right.isEmpty() ? propOfSubject(relational.left) : null;
+    }
+
+    @Nullable
+    private static PropOfSubjectContext propOfSubject(AdditionContext addition) {
+        if (!addition.right.isEmpty()) {
+            return null;
+        }
+        MultiplicationContext multiplication = addition.left;
+        if (!multiplication.right.isEmpty()) {
+            return null;
+        }
+        PowerContext power = multiplication.left;
+        return power.right.isEmpty() ? power.left : null;
+    }
+}
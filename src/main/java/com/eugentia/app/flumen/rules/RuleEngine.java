@@ -0,0 +1,270 @@
+package com.eugentia.app.flumen.rules;
+
+import com.eugentia.app.flumen.rules.AlphaNetwork.Activation;
+import com.eugentia.app.flumen.store.Dictionary;
+import com.eugentia.app.flumen.store.TripleCursor;
+import com.eugentia.app.flumen.store.TripleStore;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Forward-chaining rule engine over a {@link TripleStore}.
+ * <p>
+ * Rules are compiled into a shared alpha network of constant tests; the store's indexes serve as
+ * the alpha memories, so no partial matches are kept (TREAT rather than RETE beta memories). The
+ * first {@link #run()} after rules are added evaluates them against the whole store; after that
+ * only facts inserted through the engine are propagated: each new fact activates the conditions
+ * it matches and is joined with the rest of the store through index lookups, which costs the
+ * same regardless of the size of the model.
+ * <p>
+ * Rules run by {@code Stage}: staged rules run in ascending stage order, each stage to a
+ * fixpoint, and rules without a stage take part in every stage. Inference is monotonic; facts
+ * are never retracted. Not thread-safe, like the store.
+ */
+public class RuleEngine {
+
+    private final TripleStore store;
+
+    private final Dictionary dictionary;
+
+    private final AlphaNetwork alphaNetwork = new AlphaNetwork();
+
+    private final List<CompiledRule> rules = new ArrayList<>();
+
+    private final List<CompiledRule> unevaluated = new ArrayList<>();
+
+    private final List<int[]> pending = new ArrayList<>();
+
+    public RuleEngine(TripleStore store) {
+        this.store = store;
+        this.dictionary = store.getDictionary();
+    }
+
+    public void addRules(Collection<CompiledRule> rules) {
+        rules.forEach(this::addRule);
+    }
+
+    public void addRule(CompiledRule rule) {
+        rules.add(rule);
+        unevaluated.add(rule);
+        alphaNetwork.add(rule);
+    }
+
+    public List<CompiledRule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Adds a fact to the store; it is propagated on the next {@link #run()}.
+     *
+     * @return true if the fact was not already in the store
+     */
+    public boolean insert(String subject, String predicate, String object) {
+        return insert(dictionary.encode(subject), dictionary.encode(predicate), dictionary.encode(object));
+    }
+
+    public boolean insert(int subject, int predicate, int object) {
+        if (!store.add(subject, predicate, object)) {
+            return false;
+        }
+        pending.add(new int[]{subject, predicate, object});
+        return true;
+    }
+
+    /**
+     * Evaluates new rules and propagates the facts inserted since the last run.
+     *
+     * @return number of inferred facts
+     */
+    public int run() {
+        List<int[]> delta = new ArrayList<>(pending);
+        int inserted = pending.size();
+        pending.clear();
+
+        for (int stage : stages()) {
+            Deque<int[]> queue = new ArrayDeque<>(delta);
+            Consumer<int[]> derived = triple -> {
+                delta.add(triple);
+                queue.add(triple);
+            };
+
+            unevaluated.removeIf(rule -> {
+                if (!isActive(rule, stage)) {
+                    return false;
+                }
+                evaluate(rule, derived);
+                return true;
+            });
+
+            int[] triple;
+            while ((triple = queue.poll()) != null) {
+                propagate(triple, stage, derived);
+            }
+        }
+
+        return delta.size() - inserted;
+    }
+
+    private SortedSet<Integer> stages() {
+        SortedSet<Integer> stages = new TreeSet<>();
+        for (CompiledRule rule : rules) {
+            if (rule.stage() != 0) {
+                stages.add(rule.stage());
+            }
+        }
+        if (stages.isEmpty()) {
+            stages.add(0);
+        }
+        return stages;
+    }
+
+    private static boolean isActive(CompiledRule rule, int stage) {
+        return rule.stage() == 0 || rule.stage() == stage;
+    }
+
+    /**
+     * Matches a rule against the whole store, starting from its most selective condition.
+     */
+    private void evaluate(CompiledRule rule, Consumer<int[]> derived) {
+        List<int[]> matches = new ArrayList<>();
+        if (rule.conditions.length == 0) {
+            matches.add(rule.newBindings());
+        } else {
+            int seed = 0;
+            int best = Integer.MAX_VALUE;
+            for (int i = 0; i < rule.conditions.length; i++) {
+                Pattern constants = rule.conditions[i].constants();
+                int count = store.count(constants.subject(), constants.predicate(), constants.object());
+                if (count < best) {
+                    seed = i;
+                    best = count;
+                }
+            }
+
+            Pattern condition = rule.conditions[seed];
+            Pattern constants = condition.constants();
+            TripleCursor cursor = store.match(constants.subject(), constants.predicate(), constants.object());
+            while (cursor.next()) {
+                int[] bindings = rule.newBindings();
+                if (condition.bind(cursor.subject(), cursor.predicate(), cursor.object(), bindings)) {
+                    join(rule, rule.plans[seed], 0, bindings, matches);
+                }
+            }
+        }
+
+        // fire only after all cursors are closed, as firing modifies the store
+        matches.forEach(bindings -> fire(rule, bindings, derived));
+    }
+
+    private void propagate(int[] triple, int stage, Consumer<int[]> derived) {
+        List<Activation> activations = new ArrayList<>();
+        alphaNetwork.activate(triple[0], triple[1], triple[2], activations);
+
+        List<Activation> fired = new ArrayList<>();
+        List<int[]> matches = new ArrayList<>();
+        for (Activation activation : activations) {
+            CompiledRule rule = activation.rule();
+            if (!isActive(rule, stage)) {
+                continue;
+            }
+
+            int[] bindings = rule.newBindings();
+            if (rule.conditions[activation.condition()].bind(triple[0], triple[1], triple[2], bindings)) {
+                int before = matches.size();
+                join(rule, rule.plans[activation.condition()], 0, bindings, matches);
+                for (int i = before; i < matches.size(); i++) {
+                    fired.add(activation);
+                }
+            }
+        }
+
+        for (int i = 0; i < matches.size(); i++) {
+            fire(fired.get(i).rule(), matches.get(i), derived);
+        }
+    }
+
+    /**
+     * Extends a partial match with the remaining conditions of a plan.
+     *
+     * @param step number of plan conditions bound so far, besides the seed
+     */
+    private void join(CompiledRule rule, CompiledRule.Plan plan, int step, int[] bindings, List<int[]> matches) {
+        for (Comparison comparison : plan.comparisons()[step]) {
+            if (!comparison.test(bindings, dictionary)) {
+                return;
+            }
+        }
+        if (step == plan.order().length) {
+            matches.add(bindings.clone());
+            return;
+        }
+
+        Pattern condition = rule.conditions[plan.order()[step]];
+        TripleCursor cursor = match(condition, bindings);
+        int[] saved = bindings.clone();
+        while (cursor.next()) {
+            if (condition.bind(cursor.subject(), cursor.predicate(), cursor.object(), bindings)) {
+                join(rule, plan, step + 1, bindings, matches);
+            }
+            System.arraycopy(saved, 0, bindings, 0, saved.length);
+        }
+    }
+
+    private void fire(CompiledRule rule, int[] bindings, Consumer<int[]> derived) {
+        if (rule.existential > 0 && holds(rule.conclusions, 0, rule.existential, bindings.clone())) {
+            return;
+        }
+
+        for (Pattern conclusion : rule.conclusions) {
+            int subject = instantiate(conclusion.subject(), bindings);
+            int predicate = instantiate(conclusion.predicate(), bindings);
+            int object = instantiate(conclusion.object(), bindings);
+            if (store.add(subject, predicate, object)) {
+                derived.accept(new int[]{subject, predicate, object});
+            }
+        }
+    }
+
+    /**
+     * @return true if the patterns {@code [from, to)} already match for some binding of the
+     * variables that are still unbound
+     */
+    private boolean holds(Pattern[] patterns, int from, int to, int[] bindings) {
+        if (from == to) {
+            return true;
+        }
+
+        Pattern pattern = patterns[from];
+        TripleCursor cursor = match(pattern, bindings);
+        int[] saved = bindings.clone();
+        while (cursor.next()) {
+            if (pattern.bind(cursor.subject(), cursor.predicate(), cursor.object(), bindings)
+                    && holds(patterns, from + 1, to, bindings)) {
+                return true;
+            }
+            System.arraycopy(saved, 0, bindings, 0, saved.length);
+        }
+        return false;
+    }
+
+    /**
+     * @return the term bound to a conclusion term, binding a new blank node to unbound variables
+     */
+    private int instantiate(int term, int[] bindings) {
+        if (!Pattern.isVariable(term)) {
+            return term;
+        }
+
+        int index = Pattern.index(term);
+        if (bindings[index] == Pattern.UNBOUND) {
+            bindings[index] = dictionary.encode(store.newBlankNode());
+        }
+        return bindings[index];
+    }
+
+    private TripleCursor match(Pattern pattern, int[] bindings) {
+        return store.match(Pattern.resolve(pattern.subject(), bindings), Pattern.resolve(pattern.predicate(), bindings),
+                Pattern.resolve(pattern.object(), bindings));
+    }
+}
@@ -0,0 +1,4 @@
+@NonNullApi
+package com.eugentia.app.flumen.rules;
+
+import org.springframework.lang.NonNullApi;
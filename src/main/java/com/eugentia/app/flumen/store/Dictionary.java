@@ -0,0 +1,56 @@
+package com.eugentia.app.flumen.store;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps terms (resource names and literals) to dense {@code int} ids, starting at 0.
+ * Ids are never reused.
+ */
+public class Dictionary {
+
+    public static final int NOT_FOUND = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    private String[] terms = new String[1024];
+
+    private int size;
+
+    /**
+     * @return id of the term, assigning a new one if the term is unknown
+     */
+    public int encode(String term) {
+        Integer id = ids.get(term);
+        if (id != null) {
+            return id;
+        }
+
+        if (size == terms.length) {
+            terms = Arrays.copyOf(terms, size + (size >> 1));
+        }
+        terms[size] = term;
+        ids.put(term, size);
+        return size++;
+    }
+
+    /**
+     * @return id of the term, or {@link #NOT_FOUND}
+     */
+    public int lookup(String term) {
+        Integer id = ids.get(term);
+        return id != null ? id : NOT_FOUND;
+    }
+
+    public String decode(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown term id " + id);
+        }
+        return terms[id];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,270 @@
+package com.eugentia.app.flumen.store;
+
+import com.eugentia.app.antlr4.flumenParser.*;
+import com.eugentia.app.flumen.ParsedModel;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static com.eugentia.app.flumen.store.FlumenVocabulary.*;
+
+/**
+ * Turns the declarative statements of a parsed model (classes, properties, instances and their
+ * property values) into triples. Rules, queries and other statements are not facts and are
+ * skipped. Literals are stored with their source text, so string literals keep their quotes.
+ * <p>
+ * All triples of a model are collected first and added to the store with one bulk insert.
+ */
+public class FlumenFactLoader {
+
+    private final TripleStore store;
+
+    private final List<String[]> triples = new ArrayList<>();
+
+    public FlumenFactLoader(TripleStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Loads a model and, transitively, the models it imports.
+     *
+     * @return number of triples added to the store
+     */
+    public int load(ParsedModel model) {
+        Set<ParsedModel> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        collect(model, visited);
+        return flush();
+    }
+
+    /**
+     * @return number of triples added to the store
+     */
+    public int load(FlumenModelContext model) {
+        collect(model);
+        return flush();
+    }
+
+    private void collect(ParsedModel model, Set<ParsedModel> visited) {
+        if (!visited.add(model)) {
+            return;
+        }
+        collect(model.tree());
+        model.imports().values().forEach(imported -> collect(imported, visited));
+    }
+
+    private void collect(FlumenModelContext model) {
+        for (FlumenModelElementContext element : model.elements) {
+            FlumenStatementContext statement = element.flumenStatement();
+            if (statement != null) {
+                statement(statement);
+            }
+        }
+    }
+
+    private int flush() {
+        try {
+            return store.addAll(triples);
+        } finally {
+            triples.clear();
+        }
+    }
+
+    private void statement(FlumenStatementContext statement) {
+        if (statement.flumenResourceClass() != null) {
+            resourceClass(statement.flumenResourceClass());
+        } else if (statement.flumenClassOrPropertyDeclaration() != null) {
+            classOrPropertyDeclaration(statement.flumenClassOrPropertyDeclaration());
+        } else if (statement.flumenRelationshipProperty() != null) {
+            relationshipProperty(statement.flumenRelationshipProperty());
+        } else if (statement.flumenArticleStatement() != null) {
+            articleStatement(statement.flumenArticleStatement());
+        }
+    }
+
+    private void resourceClass(FlumenResourceClassContext context) {
+        String resource = name(context.flumenResource());
+        FlumenClassOrPropertyDeclarationClassContext declaration = context.flumenClassOrPropertyDeclarationClass();
+
+        if (declaration.flumenTopProperty() != null) {
+            FlumenTopPropertyContext topProperty = declaration.flumenTopProperty();
+            add(resource, TYPE, CLASS);
+            if (topProperty.superElement != null) {
+                String superClass = typeName(topProperty.superElement);
+                if (superClass != null) {
+                    add(resource, SUB_CLASS_OF, superClass);
+                }
+            }
+            topProperty.describedBy.forEach(property -> propertyDeclaration(resource, property));
+        } else if (declaration.flumenProperty() != null) {
+            add(resource, TYPE, PROPERTY);
+            declaration.flumenProperty().restrictions.forEach(restriction -> propertyRestriction(resource, restriction));
+        } else if (declaration.flumenRestriction() != null) {
+            declaration.flumenRestriction().restrictions.forEach(restriction -> propertyRestriction(resource, restriction));
+        } else if (declaration.flumenSameAs() != null) {
+            FlumenSameAsContext sameAs = declaration.flumenSameAs();
+            String other = typeName(sameAs.sameAs);
+            if (sameAs.complement == null && other != null) {
+                add(resource, SAME_AS, other);
+            }
+        } else if (declaration.flumenInstanceDef() != null) {
+            FlumenInstanceDefContext instance = declaration.flumenInstanceDef();
+            if (instance.type != null) {
+                String type = typeName(instance.type);
+                if (type != null) {
+                    add(resource, TYPE, type);
+                }
+            }
+            instance.propertyInitializers.forEach(initializer -> propertyInitializer(resource, initializer));
+        }
+    }
+
+    private void classOrPropertyDeclaration(FlumenClassOrPropertyDeclarationContext context) {
+        if (context.flumenDisjointClassTypes() != null || context.flumenDifferent() != null) {
+            return;
+        }
+
+        String superElement = context.superElement != null ? typeName(context.superElement) : null;
+        for (FlumenResourceContext resourceContext : context.classOrProperty) {
+            String resource = name(resourceContext);
+            if (context.oftype != null && "instances".equals(context.oftype.getText())) {
+                if (superElement != null) {
+                    add(resource, TYPE, superElement);
+                }
+                continue;
+            }
+
+            add(resource, TYPE, CLASS);
+            if (superElement != null) {
+                add(resource, SUB_CLASS_OF, superElement);
+            }
+            context.describedBy.forEach(property -> propertyDeclaration(resource, property));
+        }
+    }
+
+    private void relationshipProperty(FlumenRelationshipPropertyContext context) {
+        String property = name(context.property);
+        add(property, TYPE, PROPERTY);
+
+        String domain = typeName(context.from);
+        if (domain != null) {
+            add(property, DOMAIN, domain);
+        }
+        String range = typeName(context.to);
+        if (range != null) {
+            add(property, RANGE, range);
+        }
+    }
+
+    private void articleStatement(FlumenArticleStatementContext context) {
+        FlumenInstanceContext instance = context.flumenInstance();
+        if (instance == null) {
+            return;
+        }
+
+        instance(instance.instance, context.flumenUnionType(), instance.propertyInitializers);
+    }
+
+    private void propertyDeclaration(String domain, FlumenPropertyDeclarationContext context) {
+        String property = name(context.nameDeclaration);
+        add(property, TYPE, PROPERTY);
+        add(property, DOMAIN, domain);
+        context.restrictions.forEach(restriction -> propertyRestriction(property, restriction));
+    }
+
+    private void propertyRestriction(String property, FlumenPropertyRestrictionContext context) {
+        if (context.flumenTypeAssociation() != null) {
+            String domain = typeName(context.flumenTypeAssociation().domain);
+            if (domain != null) {
+                add(property, DOMAIN, domain);
+            }
+        } else if (context.flumenRangeRestriction() != null && context.flumenRangeRestriction().range != null) {
+            String range = typeName(context.flumenRangeRestriction().range);
+            if (range != null) {
+                add(property, RANGE, range);
+            }
+        }
+    }
+
+    private void propertyInitializer(String subject, FlumenPropertyInitializerContext context) {
+        if (context.flumenHasPropertyInitializer() != null) {
+            FlumenHasPropertyInitializerContext initializer = context.flumenHasPropertyInitializer();
+            add(subject, initializer.property.getText(), value(initializer.value, initializer.instance));
+        } else if (context.flumenOfPropertyInitializer() != null) {
+            FlumenOfPropertyInitializerContext initializer = context.flumenOfPropertyInitializer();
+            add(subject, initializer.property.getText(), value(initializer.value, initializer.instance));
+        } else if (context.flumenIsPropertyInitializer() != null) {
+            // "x is p of y" states (y, p, x)
+            FlumenIsPropertyInitializerContext initializer = context.flumenIsPropertyInitializer();
+            add(initializer.type.getText(), initializer.property.getText(), subject);
+        }
+    }
+
+    private String value(@Nullable FlumenExplicitValueContext value, @Nullable FlumenNestedInstanceContext instance) {
+        if (instance != null) {
+            if (instance.flumenInstance() != null) {
+                FlumenInstanceContext nested = instance.flumenInstance();
+                return instance(nested.instance, instance.type, nested.propertyInitializers);
+            }
+            return instance(instance.instance, instance.type, instance.propertyInitializers);
+        }
+
+        if (value == null) {
+            throw new IllegalStateException("Property initializer without a value");
+        }
+        FlumenExplicitValueLiteralContext literal = value.value;
+        String text = literal.resourceLiteral != null ? name(literal.resourceLiteral) : literal.getText();
+        return value.operator != null && "-".equals(value.operator.getText()) ? "-" + text : text;
+    }
+
+    /**
+     * @return the instance term, a blank node if the instance is anonymous
+     */
+    private String instance(@Nullable FlumenResourceContext resource, @Nullable FlumenUnionTypeContext typeContext,
+                            List<FlumenPropertyInitializerContext> initializers) {
+        String instance = resource != null ? name(resource) : store.newBlankNode();
+        if (typeContext != null) {
+            String type = typeName(typeContext);
+            if (type != null) {
+                add(instance, TYPE, type);
+            }
+        }
+        initializers.forEach(initializer -> propertyInitializer(instance, initializer));
+        return instance;
+    }
+
+    /**
+     * @return the named type, or null for unions, intersections and anonymous types
+     */
+    @Nullable
+    private static String typeName(FlumenUnionTypeContext context) {
+        if (!context.right.isEmpty() || !context.left.right.isEmpty()) {
+            return null;
+        }
+        return typeName(context.left.left);
+    }
+
+    @Nullable
+    private static String typeName(FlumenPrimaryTypeReferenceContext context) {
+        if (context.flumenSimpleTypeReference() != null) {
+            FlumenSimpleTypeReferenceContext type = context.flumenSimpleTypeReference();
+            return type.list == null ? type.type.getText() : null;
+        }
+        if (context.flumenPrimitiveDataType() != null) {
+            FlumenPrimitiveDataTypeContext type = context.flumenPrimitiveDataType();
+            return type.list == null ? XSD + type.primitiveType.getText() : null;
+        }
+        return null;
+    }
+
+    private static String name(FlumenResourceContext context) {
+        return context.name.getText();
+    }
+
+    private void add(String subject, String predicate, String object) {
+        triples.add(new String[]{subject, predicate, object});
+    }
+}
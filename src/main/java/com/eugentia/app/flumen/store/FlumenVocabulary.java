@@ -0,0 +1,29 @@
+package com.eugentia.app.flumen.store;
+
+/**
+ * Terms used by {@link FlumenFactLoader} for the schema part of a model.
+ */
+public final class FlumenVocabulary {
+
+    public static final String TYPE = "rdf:type";
+
+    public static final String PROPERTY = "rdf:Property";
+
+    public static final String SUB_CLASS_OF = "rdfs:subClassOf";
+
+    public static final String DOMAIN = "rdfs:domain";
+
+    public static final String RANGE = "rdfs:range";
+
+    public static final String CLASS = "owl:Class";
+
+    public static final String SAME_AS = "owl:sameAs";
+
+    /**
+     * Prefix of primitive data types, e.g. {@code xsd:string}.
+     */
+    public static final String XSD = "xsd:";
+
+    private FlumenVocabulary() {
+    }
+}
@@ -0,0 +1,367 @@
+package com.eugentia.app.flumen.store;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.function.IntSupplier;
+
+/**
+ * One sort order of the triples, stored as (a, b) packed into a {@code long} plus c in a parallel
+ * {@code int} array, sorted by (a, b, c). Any pattern that binds a prefix of (a, b, c) is a
+ * contiguous range found by binary search.
+ * <p>
+ * Single additions go into a small sorted pending run that is merged into the main run once it
+ * grows past a fraction of the main run, so adds stay cheap and the main arrays are rewritten
+ * only occasionally.
+ */
+final class PermutationIndex {
+
+    private static final int MIN_PENDING = 4096;
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private long[] keys = new long[0];
+
+    private int[] values = new int[0];
+
+    private int size;
+
+    private long[] pendingKeys = new long[64];
+
+    private int[] pendingValues = new int[64];
+
+    private int pendingSize;
+
+    static long key(int a, int b) {
+        return ((long) a << 32) | (b & 0xFFFFFFFFL);
+    }
+
+    static int first(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int second(long key) {
+        return (int) key;
+    }
+
+    int size() {
+        return size + pendingSize;
+    }
+
+    boolean contains(int a, int b, int c) {
+        long key = key(a, b);
+        return find(keys, values, size, key, c) >= 0 || find(pendingKeys, pendingValues, pendingSize, key, c) >= 0;
+    }
+
+    /**
+     * Adds a triple that is known not to be in the index.
+     */
+    void add(int a, int b, int c) {
+        long key = key(a, b);
+        int position = -(find(pendingKeys, pendingValues, pendingSize, key, c) + 1);
+
+        if (pendingSize == pendingKeys.length) {
+            pendingKeys = Arrays.copyOf(pendingKeys, pendingSize * 2);
+            pendingValues = Arrays.copyOf(pendingValues, pendingSize * 2);
+        }
+        System.arraycopy(pendingKeys, position, pendingKeys, position + 1, pendingSize - position);
+        System.arraycopy(pendingValues, position, pendingValues, position + 1, pendingSize - position);
+        pendingKeys[position] = key;
+        pendingValues[position] = c;
+        pendingSize++;
+
+        if (pendingSize > Math.max(MIN_PENDING, size >>> 6)) {
+            merge(pendingKeys, pendingValues, pendingSize);
+            pendingSize = 0;
+        }
+    }
+
+    /**
+     * Adds many triples at once. Duplicates, within the batch or with the index, are dropped.
+     *
+     * @return number of triples actually added
+     */
+    int addAll(long[] batchKeys, int[] batchValues, int count) {
+        sort(batchKeys, batchValues, 0, count - 1);
+
+        int before = size();
+        if (pendingSize > 0) {
+            merge(pendingKeys, pendingValues, pendingSize);
+            pendingSize = 0;
+        }
+        merge(batchKeys, batchValues, count);
+        return size() - before;
+    }
+
+    boolean remove(int a, int b, int c) {
+        long key = key(a, b);
+
+        int position = find(pendingKeys, pendingValues, pendingSize, key, c);
+        if (position >= 0) {
+            System.arraycopy(pendingKeys, position + 1, pendingKeys, position, pendingSize - position - 1);
+            System.arraycopy(pendingValues, position + 1, pendingValues, position, pendingSize - position - 1);
+            pendingSize--;
+            return true;
+        }
+
+        position = find(keys, values, size, key, c);
+        if (position >= 0) {
+            System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+            System.arraycopy(values, position + 1, values, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Counts the triples matching a prefix pattern; {@link TripleStore#ANY} ends the prefix.
+     */
+    int count(int a, int b, int c) {
+        Range range = new Range(a, b, c);
+        return (range.end(keys, values, size) - range.start(keys, values, size))
+                + (range.end(pendingKeys, pendingValues, pendingSize)
+                - range.start(pendingKeys, pendingValues, pendingSize));
+    }
+
+    /**
+     * Opens a cursor over a prefix pattern, yielding (a, b, c) in sort order.
+     */
+    Cursor scan(int a, int b, int c, IntSupplier modCount) {
+        Range range = new Range(a, b, c);
+        return new Cursor(keys, values, range.start(keys, values, size), range.end(keys, values, size),
+                pendingKeys, pendingValues, range.start(pendingKeys, pendingValues, pendingSize),
+                range.end(pendingKeys, pendingValues, pendingSize), modCount);
+    }
+
+    private void merge(long[] otherKeys, int[] otherValues, int otherSize) {
+        long[] mergedKeys = new long[size + otherSize];
+        int[] mergedValues = new int[size + otherSize];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+
+        while (i < size || j < otherSize) {
+            long key;
+            int value;
+            if (j >= otherSize || i < size && compare(keys[i], values[i], otherKeys[j], otherValues[j]) <= 0) {
+                key = keys[i];
+                value = values[i++];
+            } else {
+                key = otherKeys[j];
+                value = otherValues[j++];
+            }
+
+            if (n == 0 || mergedKeys[n - 1] != key || mergedValues[n - 1] != value) {
+                mergedKeys[n] = key;
+                mergedValues[n++] = value;
+            }
+        }
+
+        keys = n == mergedKeys.length ? mergedKeys : Arrays.copyOf(mergedKeys, n);
+        values = n == mergedValues.length ? mergedValues : Arrays.copyOf(mergedValues, n);
+        size = n;
+    }
+
+    private static int compare(long key1, int value1, long key2, int value2) {
+        int result = Long.compare(key1, key2);
+        return result != 0 ? result : Integer.compare(value1, value2);
+    }
+
+    /**
+     * @return index of (key, value), or -(insertion point) - 1
+     */
+    private static int find(long[] keys, int[] values, int size, long key, int value) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int result = compare(keys[mid], values[mid], key, value);
+            if (result < 0) {
+                low = mid + 1;
+            } else if (result > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * @return first index whose (key, value) is not less than the given one
+     */
+    private static int lowerBound(long[] keys, int[] values, int size, long key, int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(keys[mid], values[mid], key, value) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void sort(long[] keys, int[] values, int low, int high) {
+        while (high - low > INSERTION_SORT_THRESHOLD) {
+            int mid = (low + high) >>> 1;
+            long pivotKey = keys[mid];
+            int pivotValue = values[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(keys[i], values[i], pivotKey, pivotValue) < 0) {
+                    i++;
+                }
+                while (compare(keys[j], values[j], pivotKey, pivotValue) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(keys, values, i++, j--);
+                }
+            }
+            // recurse into the smaller half to bound the stack depth
+            if (j - low < high - i) {
+                sort(keys, values, low, j);
+                low = i;
+            } else {
+                sort(keys, values, i, high);
+                high = j;
+            }
+        }
+
+        for (int i = low + 1; i <= high; i++) {
+            long key = keys[i];
+            int value = values[i];
+            int j = i - 1;
+            while (j >= low && compare(keys[j], values[j], key, value) > 0) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            values[j + 1] = value;
+        }
+    }
+
+    private static void swap(long[] keys, int[] values, int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    /**
+     * Bounds of a prefix pattern as [(fromKey, fromValue), (toKey, toValue)].
+     */
+    private static final class Range {
+        private final long fromKey;
+        private final int fromValue;
+        private final long toKey;
+        private final int toValue;
+
+        private Range(int a, int b, int c) {
+            if (a == TripleStore.ANY) {
+                fromKey = Long.MIN_VALUE;
+                fromValue = Integer.MIN_VALUE;
+                toKey = Long.MAX_VALUE;
+                toValue = Integer.MAX_VALUE;
+            } else if (b == TripleStore.ANY) {
+                fromKey = key(a, 0);
+                fromValue = Integer.MIN_VALUE;
+                toKey = key(a, Integer.MAX_VALUE);
+                toValue = Integer.MAX_VALUE;
+            } else if (c == TripleStore.ANY) {
+                fromKey = key(a, b);
+                fromValue = Integer.MIN_VALUE;
+                toKey = fromKey;
+                toValue = Integer.MAX_VALUE;
+            } else {
+                fromKey = key(a, b);
+                fromValue = c;
+                toKey = fromKey;
+                toValue = c;
+            }
+        }
+
+        int start(long[] keys, int[] values, int size) {
+            return lowerBound(keys, values, size, fromKey, fromValue);
+        }
+
+        int end(long[] keys, int[] values, int size) {
+            // exclusive: first element greater than (toKey, toValue)
+            if (toValue == Integer.MAX_VALUE && toKey == Long.MAX_VALUE) {
+                return size;
+            }
+            return toValue == Integer.MAX_VALUE
+                    ? lowerBound(keys, values, size, toKey + 1, Integer.MIN_VALUE)
+                    : lowerBound(keys, values, size, toKey, toValue + 1);
+        }
+    }
+
+    /**
+     * Merges the matching slices of the main and the pending run.
+     */
+    static final class Cursor {
+        private final long[] keys1;
+        private final int[] values1;
+        private final int end1;
+        private final long[] keys2;
+        private final int[] values2;
+        private final int end2;
+        private final IntSupplier modCount;
+        private final int expectedModCount;
+        private int i1;
+        private int i2;
+        private long key;
+        private int value;
+
+        private Cursor(long[] keys1, int[] values1, int start1, int end1, long[] keys2, int[] values2, int start2,
+                       int end2, IntSupplier modCount) {
+            this.keys1 = keys1;
+            this.values1 = values1;
+            this.i1 = start1;
+            this.end1 = end1;
+            this.keys2 = keys2;
+            this.values2 = values2;
+            this.i2 = start2;
+            this.end2 = end2;
+            this.modCount = modCount;
+            this.expectedModCount = modCount.getAsInt();
+        }
+
+        boolean next() {
+            if (modCount.getAsInt() != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (i1 < end1 && (i2 >= end2 || compare(keys1[i1], values1[i1], keys2[i2], values2[i2]) <= 0)) {
+                key = keys1[i1];
+                value = values1[i1++];
+                return true;
+            }
+            if (i2 < end2) {
+                key = keys2[i2];
+                value = values2[i2++];
+                return true;
+            }
+            return false;
+        }
+
+        int a() {
+            return first(key);
+        }
+
+        int b() {
+            return second(key);
+        }
+
+        int c() {
+            return value;
+        }
+    }
+}
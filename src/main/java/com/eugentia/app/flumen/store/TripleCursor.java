@@ -0,0 +1,42 @@
+package com.eugentia.app.flumen.store;
+
+/**
+ * Forward-only cursor over matching triples. Call {@link #next()} before reading the first triple.
+ * Cursors fail with a {@link java.util.ConcurrentModificationException} when the store changes
+ * while they are open.
+ */
+public interface TripleCursor {
+
+    TripleCursor EMPTY = new TripleCursor() {
+        @Override
+        public boolean next() {
+            return false;
+        }
+
+        @Override
+        public int subject() {
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public int predicate() {
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public int object() {
+            throw new IllegalStateException();
+        }
+    };
+
+    /**
+     * @return true if the cursor moved to another triple
+     */
+    boolean next();
+
+    int subject();
+
+    int predicate();
+
+    int object();
+}
@@ -0,0 +1,258 @@
+package com.eugentia.app.flumen.store;
+
+import java.util.Collection;
+
+/**
+ * In-memory triple store. Terms are dictionary-encoded to {@code int} ids and every triple is kept
+ * in three sorted permutations (SPO, POS, OSP), so each of the eight subject/predicate/object
+ * patterns is answered by a single range scan of one index.
+ * <p>
+ * Not thread-safe; callers that share a store must synchronize around it.
+ */
+public class TripleStore {
+
+    /**
+     * Wildcard for {@link #match(int, int, int)} and {@link #count(int, int, int)}.
+     */
+    public static final int ANY = -1;
+
+    private final Dictionary dictionary = new Dictionary();
+
+    private final PermutationIndex spo = new PermutationIndex();
+
+    private final PermutationIndex pos = new PermutationIndex();
+
+    private final PermutationIndex osp = new PermutationIndex();
+
+    private int modCount;
+
+    private int blankNodes;
+
+    public Dictionary getDictionary() {
+        return dictionary;
+    }
+
+    public int size() {
+        return spo.size();
+    }
+
+    /**
+     * @return a blank node term that is unique within this store
+     */
+    public String newBlankNode() {
+        return "_:b" + blankNodes++;
+    }
+
+    /**
+     * @return true if the triple was not already in the store
+     */
+    public boolean add(String subject, String predicate, String object) {
+        return add(dictionary.encode(subject), dictionary.encode(predicate), dictionary.encode(object));
+    }
+
+    public boolean add(int subject, int predicate, int object) {
+        if (spo.contains(subject, predicate, object)) {
+            return false;
+        }
+        spo.add(subject, predicate, object);
+        pos.add(predicate, object, subject);
+        osp.add(object, subject, predicate);
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Adds many triples with one sort and one merge per index instead of an insert per triple.
+     *
+     * @param triples triples as {subject, predicate, object} term arrays
+     * @return number of triples that were not already in the store
+     */
+    public int addAll(Collection<String[]> triples) {
+        int count = triples.size();
+        if (count == 0) {
+            return 0;
+        }
+
+        long[] spoKeys = new long[count];
+        int[] spoValues = new int[count];
+        long[] posKeys = new long[count];
+        int[] posValues = new int[count];
+        long[] ospKeys = new long[count];
+        int[] ospValues = new int[count];
+
+        int i = 0;
+        for (String[] triple : triples) {
+            int s = dictionary.encode(triple[0]);
+            int p = dictionary.encode(triple[1]);
+            int o = dictionary.encode(triple[2]);
+            spoKeys[i] = PermutationIndex.key(s, p);
+            spoValues[i] = o;
+            posKeys[i] = PermutationIndex.key(p, o);
+            posValues[i] = s;
+            ospKeys[i] = PermutationIndex.key(o, s);
+            ospValues[i++] = p;
+        }
+
+        int added = spo.addAll(spoKeys, spoValues, count);
+        pos.addAll(posKeys, posValues, count);
+        osp.addAll(ospKeys, ospValues, count);
+        modCount++;
+        return added;
+    }
+
+    public boolean remove(String subject, String predicate, String object) {
+        int s = dictionary.lookup(subject);
+        int p = dictionary.lookup(predicate);
+        int o = dictionary.lookup(object);
+        return s != Dictionary.NOT_FOUND && p != Dictionary.NOT_FOUND && o != Dictionary.NOT_FOUND
+                && remove(s, p, o);
+    }
+
+    public boolean remove(int subject, int predicate, int object) {
+        if (!spo.remove(subject, predicate, object)) {
+            return false;
+        }
+        pos.remove(predicate, object, subject);
+        osp.remove(object, subject, predicate);
+        modCount++;
+        return true;
+    }
+
+    public boolean contains(String subject, String predicate, String object) {
+        int s = dictionary.lookup(subject);
+        int p = dictionary.lookup(predicate);
+        int o = dictionary.lookup(object);
+        return s != Dictionary.NOT_FOUND && p != Dictionary.NOT_FOUND && o != Dictionary.NOT_FOUND
+                && contains(s, p, o);
+    }
+
+    public boolean contains(int subject, int predicate, int object) {
+        return spo.contains(subject, predicate, object);
+    }
+
+    /**
+     * Matches a pattern of terms, where {@code null} is a wildcard. A term that was never added
+     * matches nothing.
+     */
+    public TripleCursor match(String subject, String predicate, String object) {
+        int s = subject == null ? ANY : dictionary.lookup(subject);
+        int p = predicate == null ? ANY : dictionary.lookup(predicate);
+        int o = object == null ? ANY : dictionary.lookup(object);
+        if (subject != null && s == Dictionary.NOT_FOUND || predicate != null && p == Dictionary.NOT_FOUND
+                || object != null && o == Dictionary.NOT_FOUND) {
+            return TripleCursor.EMPTY;
+        }
+        return match(s, p, o);
+    }
+
+    /**
+     * Matches a pattern of term ids, where {@link #ANY} is a wildcard. Each pattern is a range of
+     * one sorted index, so when two terms are bound the triples come ordered by the id of the
+     * third, which allows merge joins.
+     */
+    public TripleCursor match(int subject, int predicate, int object) {
+        if (subject != ANY) {
+            if (predicate == ANY && object != ANY) {
+                PermutationIndex.Cursor cursor = osp.scan(object, subject, ANY, this::modCount);
+                return new OspCursor(cursor);
+            }
+            return new SpoCursor(spo.scan(subject, predicate, object, this::modCount));
+        }
+        if (predicate != ANY) {
+            return new PosCursor(pos.scan(predicate, object, ANY, this::modCount));
+        }
+        if (object != ANY) {
+            return new OspCursor(osp.scan(object, ANY, ANY, this::modCount));
+        }
+        return new SpoCursor(spo.scan(ANY, ANY, ANY, this::modCount));
+    }
+
+    /**
+     * Counts the triples matching a pattern without visiting them, for cost-based planning.
+     */
+    public int count(int subject, int predicate, int object) {
+        if (subject != ANY) {
+            if (predicate == ANY && object != ANY) {
+                return osp.count(object, subject, ANY);
+            }
+            return spo.count(subject, predicate, object);
+        }
+        if (predicate != ANY) {
+            return pos.count(predicate, object, ANY);
+        }
+        if (object != ANY) {
+            return osp.count(object, ANY, ANY);
+        }
+        return size();
+    }
+
+    private int modCount() {
+        return modCount;
+    }
+
+    private record SpoCursor(PermutationIndex.Cursor cursor) implements TripleCursor {
+        @Override
+        public boolean next() {
+            return cursor.next();
+        }
+
+        @Override
+        public int subject() {
+            return cursor.a();
+        }
+
+        @Override
+        public int predicate() {
+            return cursor.b();
+        }
+
+        @Override
+        public int object() {
+            return cursor.c();
+        }
+    }
+
+    private record PosCursor(PermutationIndex.Cursor cursor) implements TripleCursor {
+        @Override
+        public boolean next() {
+            return cursor.next();
+        }
+
+        @Override
+        public int subject() {
+            return cursor.c();
+        }
+
+        @Override
+        public int predicate() {
+            return cursor.a();
+        }
+
+        @Override
+        public int object() {
+            return cursor.b();
+        }
+    }
+
+    private record OspCursor(PermutationIndex.Cursor cursor) implements TripleCursor {
+        @Override
+        public boolean next() {
+            return cursor.next();
+        }
+
+        @Override
+        public int subject() {
+            return cursor.b();
+        }
+
+        @Override
+        public int predicate() {
+            return cursor.c();
+        }
+
+        @Override
+        public int object() {
+            return cursor.a();
+        }
+    }
+}
@@ -0,0 +1,4 @@
+@NonNullApi
+package com.eugentia.app.flumen.store;
+
+import org.springframework.lang.NonNullApi;
@@ -1,6 +1,9 @@
 package com.eugentia.app.listeners;
 
+import com.eugentia.app.download.FileDownloadHandler;
 import com.eugentia.app.errorhandlers.CustomErrorHandler;
+import com.eugentia.app.pdf.PdfPageHandler;
+import com.eugentia.app.upload.ChunkedUploadHandler;
 import com.vaadin.flow.component.PushConfiguration;
 import com.vaadin.flow.component.ReconnectDialogConfiguration;
 import com.vaadin.flow.component.UI;
@@ -21,8 +24,18 @@ public class ServiceInitListener implements VaadinServiceInitListener {
 
     private final I18NProvider i18nProvider;
 
-    public ServiceInitListener(I18NProvider i18nProvider) {
+    private final FileDownloadHandler fileDownloadHandler;
+
+    private final ChunkedUploadHandler chunkedUploadHandler;
+
+    private final PdfPageHandler pdfPageHandler;
+
+    public ServiceInitListener(I18NProvider i18nProvider, FileDownloadHandler fileDownloadHandler,
+            ChunkedUploadHandler chunkedUploadHandler, PdfPageHandler pdfPageHandler) {
         this.i18nProvider = i18nProvider;
+        this.fileDownloadHandler = fileDownloadHandler;
+        this.chunkedUploadHandler = chunkedUploadHandler;
+        this.pdfPageHandler = pdfPageHandler;
     }
 
     @Override
@@ -52,6 +65,10 @@ public class ServiceInitListener implements VaadinServiceInitListener {
             // RequestHandler to change how responses are handled
             return false;
         });
+
+        event.addRequestHandler(fileDownloadHandler);
+        event.addRequestHandler(chunkedUploadHandler);
+        event.addRequestHandler(pdfPageHandler);
     }
 
     private void initLanguage(UI ui) {
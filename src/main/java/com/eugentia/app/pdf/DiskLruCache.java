@@ -0,0 +1,144 @@
+package com.eugentia.app.pdf;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Least recently used cache of small files on disk, bounded by their total size.
+ * <p>
+ * The recency order is kept in memory and restored from the modification times after a restart, which
+ * reads touch. Entries are written to a temporary file and renamed, so a file in the cache is complete.
+ */
+final class DiskLruCache {
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private long bytes;
+
+    /**
+     * @param directory holds nothing but the cache
+     */
+    DiskLruCache(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    private Logger getLogger() {
+        return LoggerFactory.getLogger(getClass());
+    }
+
+    /**
+     * @param key relative path, e.g. {@code "ab12.../thumbnail-1.jpg"}
+     */
+    @Nullable
+    byte[] get(String key) {
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                return null;
+            }
+        }
+
+        Path file = directory.resolve(key);
+        try {
+            byte[] data = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return data;
+        } catch (NoSuchFileException e) {
+            // evicted since the lookup
+            return null;
+        } catch (IOException e) {
+            getLogger().warn("Cannot read cached {}", key, e);
+            return null;
+        }
+    }
+
+    void put(String key, byte[] data) throws IOException {
+        Path file = directory.resolve(key);
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), TMP_SUFFIX);
+        Files.write(tmp, data);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        synchronized (this) {
+            Long previous = entries.put(key, (long) data.length);
+            if (previous != null) {
+                bytes -= previous;
+            }
+            bytes += data.length;
+            evict();
+        }
+    }
+
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            bytes -= entry.getValue();
+            try {
+                Files.deleteIfExists(directory.resolve(entry.getKey()));
+            } catch (IOException e) {
+                getLogger().warn("Cannot evict {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(directory)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        }
+
+        record Cached(Path file, long size, long lastModified) {
+        }
+        List<Cached> cached = new ArrayList<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(TMP_SUFFIX)) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            cached.add(new Cached(file, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+        }
+        cached.sort(Comparator.comparingLong(Cached::lastModified));
+
+        synchronized (this) {
+            for (Cached entry : cached) {
+                String key = directory.relativize(entry.file()).toString()
+                        .replace(directory.getFileSystem().getSeparator(), "/");
+                entries.put(key, entry.size());
+                bytes += entry.size();
+            }
+            evict();
+        }
+    }
+}
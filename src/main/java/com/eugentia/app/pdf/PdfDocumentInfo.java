@@ -0,0 +1,10 @@
+package com.eugentia.app.pdf;
+
+/**
+ * A PDF known to the {@link PdfPageService}.
+ *
+ * @param sha256    hex SHA-256 of the file, which identifies it in the page cache
+ * @param pageCount number of pages
+ */
+public record PdfDocumentInfo(String sha256, int pageCount) {
+}
@@ -0,0 +1,131 @@
+package com.eugentia.app.pdf;
+
+import com.eugentia.app.download.RangeFileSender;
+import com.vaadin.flow.server.RequestHandler;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinServletRequest;
+import com.vaadin.flow.server.VaadinServletResponse;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.spring.annotation.SpringComponent;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves the page images of the {@link PdfPageService} as
+ * {@code /pdf-pages/{sha256}/{thumbnail|preview}/{page}.jpg} and the documents themselves as
+ * {@code /pdf-pages/{sha256}.pdf}.
+ * <p>
+ * The URL names the document by content, so a response never changes and is cached by the browser for
+ * good. Page images are rendered when they are first requested, which with a lazily rendered page list
+ * means only the pages in view. Documents are sent by the {@link RangeFileSender}, so a viewer that
+ * loads them with range requests, like pdf.js, only fetches the parts it shows.
+ */
+@SpringComponent
+public class PdfPageHandler implements RequestHandler {
+
+    public static final String PATH_PREFIX = "/pdf-pages/";
+
+    private static final String ROLE = "USER";
+
+    private static final Pattern PAGE_PATH = Pattern.compile("([0-9a-f]{64})/(thumbnail|preview)/(\\d{1,6})\\.jpg");
+
+    private static final Pattern DOCUMENT_PATH = Pattern.compile("([0-9a-f]{64})\\.pdf");
+
+    private static final long CACHE_SECONDS = 365L * 24 * 60 * 60;
+
+    private final PdfPageService pageService;
+
+    public PdfPageHandler(PdfPageService pageService) {
+        this.pageService = pageService;
+    }
+
+    /**
+     * @param page page number, starting at 1
+     * @return the URL of a page image, relative to the application root
+     */
+    public static String getUrl(PdfDocumentInfo document, PdfPageService.Kind kind, int page) {
+        return PATH_PREFIX.substring(1) + document.sha256() + "/" + kind.name().toLowerCase(Locale.ROOT) + "/"
+                + page + ".jpg";
+    }
+
+    /**
+     * @return the URL of a document, relative to the application root
+     */
+    public static String getUrl(PdfDocumentInfo document) {
+        return PATH_PREFIX.substring(1) + document.sha256() + ".pdf";
+    }
+
+    @Override
+    public boolean handleRequest(VaadinSession session, VaadinRequest request, VaadinResponse response)
+            throws IOException {
+        String pathInfo = request.getPathInfo();
+        if (pathInfo == null || !pathInfo.startsWith(PATH_PREFIX)) {
+            return false;
+        }
+
+        Matcher document = DOCUMENT_PATH.matcher(pathInfo.substring(PATH_PREFIX.length()));
+        if (document.matches() && request.isUserInRole(ROLE)
+                && request instanceof VaadinServletRequest servletRequest
+                && response instanceof VaadinServletResponse servletResponse) {
+            serveDocument(servletRequest.getHttpServletRequest(), servletResponse.getHttpServletResponse(),
+                    document.group(1));
+            return true;
+        }
+
+        Matcher matcher = PAGE_PATH.matcher(pathInfo.substring(PATH_PREFIX.length()));
+        if (!"GET".equals(request.getMethod()) || !request.isUserInRole(ROLE) || !matcher.matches()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Not found");
+            return true;
+        }
+
+        String etag = "\"" + matcher.group(1) + "-" + matcher.group(2) + "-" + matcher.group(3) + "\"";
+        if (etag.equals(request.getHeader("If-None-Match"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+
+        PdfPageService.Kind kind = PdfPageService.Kind.valueOf(matcher.group(2).toUpperCase(Locale.ROOT));
+        Optional<byte[]> image = pageService.getPage(matcher.group(1), kind, Integer.parseInt(matcher.group(3)));
+        if (image.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Not found");
+            return true;
+        }
+
+        response.setContentType("image/jpeg");
+        response.setContentLengthLong(image.get().length);
+        response.setHeader("ETag", etag);
+        response.setCacheTime(CACHE_SECONDS * 1000);
+        response.getOutputStream().write(image.get());
+        return true;
+    }
+
+    private void serveDocument(HttpServletRequest request, HttpServletResponse response, String sha256)
+            throws IOException {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            response.setHeader("Allow", "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        Optional<Path> file = pageService.getDocumentFile(sha256);
+        if (file.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Not found");
+            return;
+        }
+
+        response.setHeader("Cache-Control", "private, max-age=" + CACHE_SECONDS + ", immutable");
+        RangeFileSender.send(request, response, file.get(), Files.size(file.get()),
+                Files.getLastModifiedTime(file.get()).toMillis(), "\"" + sha256 + "\"", "application/pdf",
+                "inline; filename=\"" + sha256 + ".pdf\"", "HEAD".equals(method));
+    }
+}
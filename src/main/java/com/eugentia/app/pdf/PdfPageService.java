@@ -0,0 +1,402 @@
+package com.eugentia.app.pdf;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Renders PDF pages to small images on the server, so viewers can show page thumbnails and previews
+ * without downloading and rasterizing the whole document in the browser.
+ * <p>
+ * Documents are copied to disk under the SHA-256 of their content when they are registered. Rendered
+ * pages go into a size-bounded {@link DiskLruCache} keyed by that hash, so a document is rendered once
+ * no matter how often or under which name it is opened, and the cache survives restarts. Registering a
+ * document queues the rendering of all its thumbnails, then its previews, in the background; pages
+ * requested before they were pre-rendered are rendered on demand.
+ */
+@Service
+public class PdfPageService {
+
+    public enum Kind {
+        /**
+         * Page strip thumbnails.
+         */
+        THUMBNAIL(160),
+        /**
+         * Low resolution page images, enough to recognise a page.
+         */
+        PREVIEW(480);
+
+        private final int width;
+
+        Kind(int width) {
+            this.width = width;
+        }
+
+        /**
+         * @return image width in pixels
+         */
+        public int getWidth() {
+            return width;
+        }
+    }
+
+    private static final Path ROOT = Path.of("pdf-cache").toAbsolutePath();
+
+    private static final long CACHE_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * Open documents kept for rendering; each may hold a few megabytes of parsed objects.
+     */
+    private static final int OPEN_DOCUMENTS = 4;
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path documents;
+
+    private final DiskLruCache pages;
+
+    private final ExecutorService preRenderer;
+
+    private final Map<String, PdfDocumentInfo> resources = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> pageCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Guarded by itself, and only held for bookkeeping: documents are loaded, rendered and closed outside
+     * of it, so a slow render never holds up requests for other documents.
+     */
+    private final LinkedHashMap<String, OpenDocument> openDocuments = new LinkedHashMap<>(8, 0.75f, true);
+
+    public PdfPageService() throws IOException {
+        this.documents = Files.createDirectories(ROOT.resolve("documents"));
+        this.pages = new DiskLruCache(ROOT.resolve("pages"), CACHE_BYTES);
+
+        // pre-rendering is background work and must leave cores for requests
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.preRenderer = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "pdf-pre-render");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    private Logger getLogger() {
+        return LoggerFactory.getLogger(getClass());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        preRenderer.shutdownNow();
+        List<PDDocument> unused = new ArrayList<>();
+        synchronized (openDocuments) {
+            for (OpenDocument open : openDocuments.values()) {
+                if (open.evict()) {
+                    unused.add(open.document);
+                }
+            }
+            openDocuments.clear();
+        }
+        unused.forEach(PdfPageService::closeQuietly);
+    }
+
+    /**
+     * Registers a PDF from the class path. The content is hashed once per resource.
+     *
+     * @param resource absolute class path resource, e.g. {@code "/pdf/example.pdf"}
+     */
+    public PdfDocumentInfo registerResource(String resource) {
+        return resources.computeIfAbsent(resource, key -> {
+            try (InputStream in = PdfPageService.class.getResourceAsStream(key)) {
+                if (in == null) {
+                    throw new IllegalArgumentException("No such resource: " + key);
+                }
+                return register(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Stores a PDF under its content hash and queues the pre-rendering of its pages.
+     */
+    public PdfDocumentInfo register(InputStream content) throws IOException {
+        Path tmp = Files.createTempFile(documents, "document", ".tmp");
+        MessageDigest digest = newDigest();
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(tmp), digest)) {
+            content.transferTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        Path file = getDocumentPath(sha256);
+        if (Files.exists(file)) {
+            Files.delete(tmp);
+        } else {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        PdfDocumentInfo info = new PdfDocumentInfo(sha256, getPageCount(sha256)
+                .orElseThrow(() -> new IOException("Not a readable PDF")));
+        preRenderer.execute(() -> preRender(info));
+        return info;
+    }
+
+    /**
+     * @return the page count of a registered document
+     */
+    public Optional<Integer> getPageCount(String sha256) {
+        if (!SHA256.matcher(sha256).matches()) {
+            return Optional.empty();
+        }
+        Integer count = pageCounts.get(sha256);
+        if (count == null && Files.isRegularFile(getDocumentPath(sha256))) {
+            try {
+                count = withDocument(sha256, PDDocument::getNumberOfPages);
+                pageCounts.put(sha256, count);
+            } catch (IOException e) {
+                getLogger().warn("Cannot read PDF {}", sha256, e);
+            }
+        }
+        return Optional.ofNullable(count);
+    }
+
+    /**
+     * @param page page number, starting at 1
+     * @return the page as JPEG, or nothing if the document or page does not exist
+     */
+    public Optional<byte[]> getPage(String sha256, Kind kind, int page) throws IOException {
+        Optional<Integer> count = getPageCount(sha256);
+        if (count.isEmpty() || page < 1 || page > count.get()) {
+            return Optional.empty();
+        }
+
+        String key = key(sha256, kind, page);
+        byte[] image = pages.get(key);
+        if (image == null) {
+            image = render(sha256, kind, page);
+        }
+        return Optional.of(image);
+    }
+
+    /**
+     * @return the copy of a registered document made when it was registered; it must not be modified
+     */
+    public Optional<Path> getDocumentFile(String sha256) {
+        if (!SHA256.matcher(sha256).matches()) {
+            return Optional.empty();
+        }
+        Path file = getDocumentPath(sha256);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    private void preRender(PdfDocumentInfo info) {
+        try {
+            for (Kind kind : Kind.values()) {
+                for (int page = 1; page <= info.pageCount(); page++) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    if (pages.get(key(info.sha256(), kind, page)) == null) {
+                        render(info.sha256(), kind, page);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            getLogger().warn("Cannot pre-render PDF {}", info.sha256(), e);
+        }
+    }
+
+    private byte[] render(String sha256, Kind kind, int page) throws IOException {
+        String key = key(sha256, kind, page);
+        BufferedImage image = withDocument(sha256, document -> {
+            // rendered meanwhile by the pre-renderer or another request
+            if (pages.get(key) != null) {
+                return null;
+            }
+
+            PDPage pdPage = document.getPage(page - 1);
+            PDRectangle box = pdPage.getCropBox();
+            boolean rotated = pdPage.getRotation() % 180 != 0;
+            float width = rotated ? box.getHeight() : box.getWidth();
+
+            PDFRenderer renderer = new PDFRenderer(document);
+            // small images do not need full resolution embedded images
+            renderer.setSubsamplingAllowed(true);
+            return renderer.renderImage(page - 1, kind.getWidth() / width, ImageType.RGB);
+        });
+        if (image == null) {
+            byte[] cached = pages.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            // evicted again right away; render without the shortcut
+            return render(sha256, kind, page);
+        }
+
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", jpeg);
+        byte[] data = jpeg.toByteArray();
+        pages.put(key, data);
+        return data;
+    }
+
+    /**
+     * Runs an action with exclusive use of an open document, since PDFBox documents are not thread-safe.
+     */
+    @Nullable
+    private <T> T withDocument(String sha256, DocumentAction<T> action) throws IOException {
+        OpenDocument open = acquire(sha256);
+        try {
+            synchronized (open) {
+                return action.apply(open.document);
+            }
+        } finally {
+            release(open);
+        }
+    }
+
+    /**
+     * @return an open document that is not closed before it is {@linkplain #release released}
+     */
+    private OpenDocument acquire(String sha256) throws IOException {
+        synchronized (openDocuments) {
+            OpenDocument open = openDocuments.get(sha256);
+            if (open != null) {
+                open.users++;
+                return open;
+            }
+        }
+
+        // loaded without the lock; if another thread loaded the document meanwhile, one copy is dropped
+        PDDocument document = Loader.loadPDF(getDocumentPath(sha256).toFile());
+        List<PDDocument> unused = new ArrayList<>();
+        OpenDocument open;
+        synchronized (openDocuments) {
+            open = openDocuments.get(sha256);
+            if (open == null) {
+                open = new OpenDocument(document);
+                openDocuments.put(sha256, open);
+                Iterator<OpenDocument> eldest = openDocuments.values().iterator();
+                while (openDocuments.size() > OPEN_DOCUMENTS) {
+                    OpenDocument evicted = eldest.next();
+                    eldest.remove();
+                    if (evicted.evict()) {
+                        unused.add(evicted.document);
+                    }
+                }
+            } else {
+                unused.add(document);
+            }
+            open.users++;
+        }
+        unused.forEach(PdfPageService::closeQuietly);
+        return open;
+    }
+
+    private void release(OpenDocument open) {
+        boolean close;
+        synchronized (openDocuments) {
+            open.users--;
+            close = open.evicted && open.users == 0;
+        }
+        if (close) {
+            closeQuietly(open.document);
+        }
+    }
+
+    private Path getDocumentPath(String sha256) {
+        return documents.resolve(sha256 + ".pdf");
+    }
+
+    private static String key(String sha256, Kind kind, int page) {
+        return sha256 + "/" + kind.name().toLowerCase(Locale.ROOT) + "-" + page + ".jpg";
+    }
+
+    private static void closeQuietly(PDDocument document) {
+        try {
+            document.close();
+        } catch (IOException ignored) {
+            // nothing was written
+        }
+    }
+
+    /**
+     * A document and the number of threads using it, both guarded by {@code openDocuments}. A document
+     * that drops out of the open documents while it is in use is closed by its last user.
+     */
+    private static final class OpenDocument {
+        private final PDDocument document;
+
+        private int users;
+
+        private boolean evicted;
+
+        private OpenDocument(PDDocument document) {
+            this.document = document;
+        }
+
+        /**
+         * @return whether the document is unused and can be closed right away
+         */
+        private boolean evict() {
+            evicted = true;
+            return users == 0;
+        }
+    }
+
+    @FunctionalInterface
+    private interface DocumentAction<T> {
+        @Nullable
+        T apply(PDDocument document) throws IOException;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
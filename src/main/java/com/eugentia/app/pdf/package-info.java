@@ -0,0 +1,4 @@
+@NonNullApi
+package com.eugentia.app.pdf;
+
+import org.springframework.lang.NonNullApi;
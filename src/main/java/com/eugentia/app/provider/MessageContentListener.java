@@ -0,0 +1,57 @@
+package com.eugentia.app.provider;
+
+import com.eugentia.app.data.entity.MessageContent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalidates the cached translations of {@link SimpleI18NProvider} when a {@link MessageContent}
+ * is written through JPA. Created by Hibernate through Spring's bean container; the provider is
+ * looked up lazily because it depends on the repositories of the entity manager factory.
+ * <p>
+ * The callbacks run when the change is flushed, before it is committed, so a reload at that point
+ * would still read the old rows. Inside a transaction the cache is therefore invalidated once the
+ * transaction commits.
+ */
+@Component
+public class MessageContentListener {
+
+    private final ObjectProvider<SimpleI18NProvider> provider;
+
+    public MessageContentListener(ObjectProvider<SimpleI18NProvider> provider) {
+        this.provider = provider;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(MessageContent content) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+
+        // once per transaction, however many rows it writes
+        if (!TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(MessageContentListener.this);
+                    if (status == STATUS_COMMITTED) {
+                        invalidate();
+                    }
+                }
+            });
+        }
+    }
+
+    private void invalidate() {
+        provider.ifAvailable(SimpleI18NProvider::invalidate);
+    }
+}
@@ -0,0 +1,148 @@
+package com.eugentia.app.provider;
+
+import org.springframework.lang.Nullable;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Translation pattern compiled once, with the same output as {@link MessageFormat}.
+ * <p>
+ * A pattern without arguments is formatted once into a constant. A pattern with only plain
+ * {@code {n}} arguments is split into literal and argument parts, and String arguments are
+ * appended into a per-thread builder. Anything else (typed arguments such as
+ * {@code {0,number}}, or non-String values) goes through a per-thread copy of the parsed
+ * {@link MessageFormat}, so it is never parsed again and never shared between threads. The copies
+ * of all templates live in one per-thread map with weak keys, so templates replaced by a reload
+ * leave nothing behind in the threads that used them.
+ * <p>
+ * Immutable and thread-safe.
+ */
+final class MessageTemplate {
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    private static final int MAX_BUILDER_CAPACITY = 8192;
+
+    private static final ThreadLocal<Map<MessageTemplate, MessageFormat>> FORMATS =
+            ThreadLocal.withInitial(WeakHashMap::new);
+
+    private final String constant;
+
+    private final String[] literals;
+
+    private final int[] arguments;
+
+    private final MessageFormat format;
+
+    private MessageTemplate(@Nullable String constant, @Nullable String[] literals, @Nullable int[] arguments,
+                            MessageFormat format) {
+        this.constant = constant;
+        this.literals = literals;
+        this.arguments = arguments;
+        this.format = format;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    static MessageTemplate compile(String pattern, Locale locale) {
+        MessageFormat format = new MessageFormat(pattern, locale);
+        if (format.getFormatsByArgumentIndex().length == 0) {
+            return new MessageTemplate(format.format(new Object[0]), null, null, format);
+        }
+
+        List<String> literals = new ArrayList<>();
+        List<Integer> arguments = new ArrayList<>();
+        if (!split(pattern, literals, arguments)) {
+            return new MessageTemplate(null, null, null, format);
+        }
+        return new MessageTemplate(null, literals.toArray(String[]::new),
+                arguments.stream().mapToInt(Integer::intValue).toArray(), format);
+    }
+
+    String format(Object... params) {
+        if (constant != null) {
+            return constant;
+        }
+        if (literals == null || !allStrings(params)) {
+            // only read through clones, since MessageFormat is not thread-safe
+            return FORMATS.get().computeIfAbsent(this, template -> (MessageFormat) template.format.clone())
+                    .format(params);
+        }
+
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        for (int i = 0; i < arguments.length; i++) {
+            builder.append(literals[i]);
+            int argument = arguments[i];
+            if (argument < params.length) {
+                builder.append(params[argument]);
+            } else {
+                builder.append('{').append(argument).append('}');
+            }
+        }
+        builder.append(literals[arguments.length]);
+
+        String result = builder.toString();
+        if (builder.capacity() > MAX_BUILDER_CAPACITY) {
+            BUILDER.remove();
+        }
+        return result;
+    }
+
+    /**
+     * Plain String arguments are appended as they are; other values need the locale-specific
+     * formats of {@link MessageFormat}. Null is written as "null" by both.
+     */
+    private boolean allStrings(Object[] params) {
+        for (int argument : arguments) {
+            if (argument < params.length && params[argument] != null && !(params[argument] instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits a pattern into literals and {@code {n}} arguments, applying the quoting rules of
+     * {@link MessageFormat}.
+     *
+     * @return false if the pattern has typed arguments
+     */
+    private static boolean split(String pattern, List<String> literals, List<Integer> arguments) {
+        StringBuilder literal = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                    literal.append('\'');
+                    i += 2;
+                    continue;
+                }
+                quoted = !quoted;
+            } else if (c == '{' && !quoted) {
+                int end = pattern.indexOf('}', i);
+                String argument = pattern.substring(i + 1, end).trim();
+                if (argument.isEmpty() || !argument.chars().allMatch(Character::isDigit)) {
+                    return false;
+                }
+                literals.add(literal.toString());
+                arguments.add(Integer.parseInt(argument));
+                literal.setLength(0);
+                i = end;
+            } else {
+                literal.append(c);
+            }
+            i++;
+        }
+        literals.add(literal.toString());
+        return true;
+    }
+}
@@ -1,23 +1,26 @@
 package com.eugentia.app.provider;
 
-import com.eugentia.app.data.entity.MessageKey;
-import com.eugentia.app.data.entity.MessageLocale;
 import com.eugentia.app.data.repository.MessageContentRepository;
-import com.eugentia.app.data.repository.MessageKeyRepository;
 import com.eugentia.app.data.repository.MessageLocaleRepository;
 import com.vaadin.flow.i18n.I18NProvider;
-import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
-import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Simple implementation of {@link I18NProvider}.
  * <p>
- * Actual translations can be found in the labelsbundle_{lang_code}.properties
- * files.
+ * Translations are stored in the messageContents table. All of them are read with one query
+ * into an in-memory table per locale, which is replaced as a whole by {@link #reload()}; after
+ * {@link #invalidate()} the next translation reloads it. Patterns are compiled on load into
+ * {@link MessageTemplate}s.
  * <p>
  * Singleton scope.
  */
@@ -27,55 +30,109 @@ public class SimpleI18NProvider implements I18NProvider {
     @Autowired
     private MessageContentRepository messageContentRepository;
 
-    @Autowired
-    private MessageKeyRepository messageKeyRepository;
-
     @Autowired
     private MessageLocaleRepository messageLocaleRepository;
 
-    @PostConstruct
-    private void initMap() {
+    /**
+     * Incremented by {@link #invalidate()}; the translations are current while they were loaded at
+     * the same version.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    @Nullable
+    private volatile Translations translations;
+
+    private Logger getLogger() {
+        return LoggerFactory.getLogger(getClass());
+    }
+
+    /**
+     * Loads all locales and translations.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        // read first, so a change during the reload is picked up by the next one
+        long loadedVersion = version.get();
+
         /*
          * Use no-country versions, so that e.g. both en_US and en_GB work.
          */
-        List<Locale> providedLocales = getProvidedLocales();
+        List<Locale> locales = new ArrayList<>();
+        for (String messageLocale : messageLocaleRepository.getMessageLocales()) {
+            locales.add(new Locale.Builder().setLanguage(messageLocale).build());
+        }
+
+        Map<String, Map<String, MessageTemplate>> messages = new HashMap<>();
+        for (MessageContentRepository.Translation translation : messageContentRepository.getTranslations()) {
+            try {
+                Locale locale = new Locale.Builder().setLanguage(translation.getLocaleCode()).build();
+                messages.computeIfAbsent(translation.getLocaleCode(), code -> new HashMap<>())
+                        .put(translation.getMessageKey(), MessageTemplate.compile(translation.getContent(), locale));
+            } catch (final IllegalArgumentException e) {
+                getLogger().error("Invalid translation for key {{}} and locale {}", translation.getMessageKey(),
+                        translation.getLocaleCode(), e);
+            }
+        }
+
+        translations = new Translations(loadedVersion, Collections.unmodifiableList(locales), messages);
+        getLogger().info("Loaded {} translations for {} locales",
+                messages.values().stream().mapToInt(Map::size).sum(), locales.size());
+    }
 
-        // Read the translation file for each locale
-        Map<String, ResourceBundle> localeMap = new HashMap<>();
-        for (final Locale locale : providedLocales) {
+    /**
+     * Marks the translations as changed, e.g. after messageContents rows were written.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
 
-            final ResourceBundle resourceBundle = ResourceBundle.getBundle("labelsbundle", locale);
-            localeMap.put(locale.getLanguage(), resourceBundle);
+    private Translations getTranslations() {
+        Translations current = translations;
+        if (current == null || current.version() != version.get()) {
+            synchronized (this) {
+                current = translations;
+                if (current == null || current.version() != version.get()) {
+                    reload();
+                    current = translations;
+                }
+            }
         }
+        return current;
     }
 
     @Override
     public List<Locale> getProvidedLocales() {
-        List<String> messageLocales = messageLocaleRepository.getMessageLocales();
-        List<Locale> locales = new ArrayList<>();
-        for (String messageLocale : messageLocales) {
-            locales.add(new Locale.Builder().setLanguage(messageLocale).build());
-        }
-        return Collections.unmodifiableList(locales);
+        return getTranslations().locales();
     }
 
     @Override
+    @Nullable
     public String getTranslation(String key, Locale locale, Object... params) {
-        try {
-            MessageLocale messageLocale = messageLocaleRepository.getMessageLocaleByLocale(locale.getLanguage());
-            MessageKey messageKey = messageKeyRepository.getMessageKeyByKey(key);
-            String rawstring = messageContentRepository.getMessageContent(messageLocale, messageKey);
-
-            return MessageFormat.format(rawstring, params);
-
-        } catch (final MissingResourceException e) {
+        MessageTemplate template = getTranslations().template(key, locale);
+        if (template == null) {
             // Translation isn't found, return error message instead of null as per API
-            System.out.printf("No translation found for key {%s}%n", key);
+            getLogger().warn("No translation found for key {{}}", key);
             return String.format("!{%s}", key);
+        }
+
+        try {
+            return template.format(params);
         } catch (final IllegalArgumentException e) {
-            e.printStackTrace(); // for devs to find where this happened
-            // Incorrect parameters
+            getLogger().error("Incorrect parameters for key {{}}", key, e);
             return null;
         }
     }
+
+    /**
+     * Immutable snapshot of the translation table, with patterns compiled by locale and key.
+     */
+    private record Translations(long version, List<Locale> locales,
+                                Map<String, Map<String, MessageTemplate>> messages) {
+
+        @Nullable
+        private MessageTemplate template(String key, Locale locale) {
+            Map<String, MessageTemplate> localeMessages = messages.get(locale.getLanguage());
+            return localeMessages != null ? localeMessages.get(key) : null;
+        }
+    }
 }
@@ -0,0 +1,12 @@
+package com.eugentia.app.search;
+
+/**
+ * Text of an entity as it is indexed.
+ *
+ * @param type  entity type, e.g. {@code "person"}
+ * @param id    entity id
+ * @param title short display text, indexed with a higher weight than the text
+ * @param text  remaining searchable text
+ */
+public record SearchDocument(String type, long id, String title, String text) {
+}
@@ -0,0 +1,12 @@
+package com.eugentia.app.search;
+
+/**
+ * One search result.
+ *
+ * @param type  entity type
+ * @param id    entity id
+ * @param title display text of the entity
+ * @param score relevance, higher is better; only comparable within one search
+ */
+public record SearchHit(String type, long id, String title, double score) {
+}
@@ -0,0 +1,422 @@
+package com.eugentia.app.search;
+
+import org.springframework.lang.Nullable;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index with BM25 ranking.
+ * <p>
+ * Text is split into lower-cased, accent-free words. Every query word matches the indexed words
+ * equal to it, the words it is a prefix of when it is the last query word (search as you type),
+ * and the words one edit away when it is long enough. Typo candidates are found through a map from
+ * the one-character deletions of every indexed word to the word, so a lookup costs a few hash
+ * probes instead of a scan of the dictionary. A document scores the best of its matches for each
+ * query word, summed over the query words.
+ * <p>
+ * Readers share a lock, writers are exclusive; updates are cheap enough to be applied one by one.
+ */
+public class SearchIndex {
+
+    /**
+     * Number of best hits that can be paged through; deeper pages are empty.
+     */
+    public static final int MAX_HITS = 10_000;
+
+    private static final float K1 = 1.2f;
+
+    private static final float B = 0.75f;
+
+    private static final int TITLE_WEIGHT = 2;
+
+    private static final float PREFIX_WEIGHT = 0.8f;
+
+    private static final float TYPO_WEIGHT = 0.6f;
+
+    private static final int MIN_TYPO_LENGTH = 4;
+
+    private static final int MAX_EXPANSIONS = 64;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> documentIds = new HashMap<>();
+
+    private final List<Document> documents = new ArrayList<>();
+
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+
+    private final Map<String, List<String>> deletions = new HashMap<>();
+
+    private long totalLength;
+
+    /**
+     * Adds a document or replaces the document with the same type and id.
+     */
+    public void put(SearchDocument document) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String word : analyze(document.title())) {
+            frequencies.merge(word, TITLE_WEIGHT, Integer::sum);
+            length += TITLE_WEIGHT;
+        }
+        for (String word : analyze(document.text())) {
+            frequencies.merge(word, 1, Integer::sum);
+            length++;
+        }
+
+        lock.writeLock().lock();
+        try {
+            String key = key(document.type(), document.id());
+            Integer previous = documentIds.get(key);
+            if (previous != null) {
+                unindex(previous);
+            }
+
+            int id = previous != null ? previous : freeIds.isEmpty() ? documents.size() : freeIds.pop();
+            Document entry = new Document(document.type(), document.id(), document.title(),
+                    frequencies.keySet().toArray(String[]::new), length);
+            if (id == documents.size()) {
+                documents.add(entry);
+            } else {
+                documents.set(id, entry);
+            }
+            documentIds.put(key, id);
+            totalLength += length;
+
+            frequencies.forEach((word, frequency) -> postings.computeIfAbsent(word, this::newWord).add(id, frequency));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String type, long id) {
+        lock.writeLock().lock();
+        try {
+            Integer documentId = documentIds.remove(key(type, id));
+            if (documentId != null) {
+                unindex(documentId);
+                documents.set(documentId, null);
+                freeIds.push(documentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all documents of a type.
+     */
+    public void clear(String type) {
+        lock.writeLock().lock();
+        try {
+            for (Document document : documents) {
+                if (document != null && document.type().equals(type)) {
+                    remove(type, document.id());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param query  search text
+     * @param type   only documents of this type, or null for all
+     * @param offset number of best hits to skip
+     * @param limit  maximum number of hits
+     * @return hits, best first; none beyond the first {@value #MAX_HITS}
+     * @throws IllegalArgumentException if the offset or limit is negative
+     */
+    public List<SearchHit> search(String query, @Nullable String type, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+        List<String> words = analyze(query);
+        if (words.isEmpty() || limit == 0 || offset >= MAX_HITS) {
+            return List.of();
+        }
+        // offset + limit stays within MAX_HITS, so it cannot overflow
+        int boundedLimit = Math.min(limit, MAX_HITS - offset);
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Float> scores = new HashMap<>();
+            float averageLength = documentIds.isEmpty() ? 1 : (float) totalLength / documentIds.size();
+
+            for (int i = 0; i < words.size(); i++) {
+                Map<Integer, Float> wordScores = new HashMap<>();
+                for (Map.Entry<String, Float> expansion : expand(words.get(i), i == words.size() - 1).entrySet()) {
+                    score(postings.get(expansion.getKey()), expansion.getValue(), type, averageLength, wordScores);
+                }
+                wordScores.forEach((document, score) -> scores.merge(document, score, Float::sum));
+            }
+
+            return top(scores, offset, boundedLimit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> analyze(@Nullable String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        for (String word : SEPARATORS.split(folded)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * @return the indexed words a query word matches, with the weight of the match
+     */
+    private Map<String, Float> expand(String word, boolean last) {
+        Map<String, Float> expansions = new HashMap<>();
+
+        if (word.length() >= MIN_TYPO_LENGTH) {
+            for (String candidate : typoCandidates(word)) {
+                if (expansions.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                if (withinOneEdit(word, candidate)) {
+                    expansions.put(candidate, TYPO_WEIGHT);
+                }
+            }
+        }
+
+        if (last) {
+            int added = 0;
+            for (String candidate : postings.subMap(word, false, word + Character.MAX_VALUE, false).keySet()) {
+                if (added++ >= MAX_EXPANSIONS) {
+                    break;
+                }
+                expansions.merge(candidate, PREFIX_WEIGHT, Math::max);
+            }
+        }
+
+        if (postings.containsKey(word)) {
+            expansions.put(word, 1f);
+        }
+        return expansions;
+    }
+
+    private Set<String> typoCandidates(String word) {
+        Set<String> candidates = new HashSet<>(deletions.getOrDefault(word, List.of()));
+        for (int i = 0; i < word.length(); i++) {
+            String deletion = deletion(word, i);
+            if (postings.containsKey(deletion)) {
+                candidates.add(deletion);
+            }
+            candidates.addAll(deletions.getOrDefault(deletion, List.of()));
+        }
+        candidates.remove(word);
+        return candidates;
+    }
+
+    private void score(@Nullable Postings list, float weight, @Nullable String type, float averageLength,
+            Map<Integer, Float> scores) {
+        if (list == null) {
+            return;
+        }
+
+        int count = documentIds.size();
+        double idf = Math.log(1 + (count - list.size + 0.5) / (list.size + 0.5));
+        for (int i = 0; i < list.size; i++) {
+            Document document = documents.get(list.documents[i]);
+            if (type != null && !type.equals(document.type())) {
+                continue;
+            }
+
+            int frequency = list.frequencies[i];
+            float score = (float) (weight * idf * frequency * (K1 + 1)
+                    / (frequency + K1 * (1 - B + B * document.length() / averageLength)));
+            scores.merge(list.documents[i], score, Math::max);
+        }
+    }
+
+    private List<SearchHit> top(Map<Integer, Float> scores, int offset, int limit) {
+        int size = offset + limit;
+        Comparator<Map.Entry<Integer, Float>> order = Map.Entry.<Integer, Float>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        PriorityQueue<Map.Entry<Integer, Float>> heap = new PriorityQueue<>(order);
+
+        for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+            if (heap.size() < size) {
+                heap.add(entry);
+            } else if (order.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        List<Map.Entry<Integer, Float>> best = new ArrayList<>(heap);
+        best.sort(order.reversed());
+
+        List<SearchHit> hits = new ArrayList<>();
+        for (int i = offset; i < best.size(); i++) {
+            Document document = documents.get(best.get(i).getKey());
+            hits.add(new SearchHit(document.type(), document.id(), document.title(), best.get(i).getValue()));
+        }
+        return hits;
+    }
+
+    private void unindex(int id) {
+        Document document = documents.get(id);
+        totalLength -= document.length();
+
+        for (String word : document.words()) {
+            Postings list = postings.get(word);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(word);
+                removeDeletions(word);
+            }
+        }
+    }
+
+    private Postings newWord(String word) {
+        if (word.length() >= MIN_TYPO_LENGTH) {
+            for (int i = 0; i < word.length(); i++) {
+                deletions.computeIfAbsent(deletion(word, i), key -> new ArrayList<>(1)).add(word);
+            }
+        }
+        return new Postings();
+    }
+
+    private void removeDeletions(String word) {
+        if (word.length() >= MIN_TYPO_LENGTH) {
+            for (int i = 0; i < word.length(); i++) {
+                String deletion = deletion(word, i);
+                List<String> words = deletions.get(deletion);
+                if (words != null && words.remove(word) && words.isEmpty()) {
+                    deletions.remove(deletion);
+                }
+            }
+        }
+    }
+
+    private static String deletion(String word, int index) {
+        return word.substring(0, index) + word.substring(index + 1);
+    }
+
+    /**
+     * @return whether the words differ by at most one insertion, deletion, substitution or
+     * transposition of adjacent characters
+     */
+    static boolean withinOneEdit(String a, String b) {
+        int lengthDifference = a.length() - b.length();
+        if (Math.abs(lengthDifference) > 1) {
+            return false;
+        }
+
+        int start = 0;
+        while (start < a.length() && start < b.length() && a.charAt(start) == b.charAt(start)) {
+            start++;
+        }
+        if (lengthDifference > 0) {
+            return a.substring(start + 1).equals(b.substring(start));
+        }
+        if (lengthDifference < 0) {
+            return b.substring(start + 1).equals(a.substring(start));
+        }
+        if (start == a.length() || a.substring(start + 1).equals(b.substring(start + 1))) {
+            return true;
+        }
+        return start + 1 < a.length()
+                && a.charAt(start) == b.charAt(start + 1) && a.charAt(start + 1) == b.charAt(start)
+                && a.substring(start + 2).equals(b.substring(start + 2));
+    }
+
+    private static String key(String type, long id) {
+        return type + ':' + id;
+    }
+
+    private record Document(String type, long id, String title, String[] words, int length) {
+    }
+
+    /**
+     * Documents containing a word, unordered, with the frequency of the word in each. Lists of common
+     * words also map each document to its position, so removing a document does not scan them.
+     */
+    private static final class Postings {
+        private static final int MIN_MAPPED_SIZE = 16;
+
+        private int[] documents = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+        @Nullable
+        private Map<Integer, Integer> positions;
+
+        void add(int document, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+
+            if (positions != null) {
+                positions.put(document, size - 1);
+            } else if (size >= MIN_MAPPED_SIZE) {
+                positions = new HashMap<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    positions.put(documents[i], i);
+                }
+            }
+        }
+
+        boolean remove(int document) {
+            int i = positionOf(document);
+            if (i < 0) {
+                return false;
+            }
+            size--;
+            documents[i] = documents[size];
+            frequencies[i] = frequencies[size];
+            if (positions != null) {
+                positions.remove(document);
+                if (i < size) {
+                    positions.put(documents[i], i);
+                }
+            }
+            return true;
+        }
+
+        private int positionOf(int document) {
+            if (positions != null) {
+                return positions.getOrDefault(document, -1);
+            }
+            for (int i = 0; i < size; i++) {
+                if (documents[i] == document) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
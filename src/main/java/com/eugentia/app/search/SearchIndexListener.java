@@ -0,0 +1,39 @@
+package com.eugentia.app.search;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PreRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports searchable entities written through JPA to the {@link SearchIndexer}. Created by Hibernate
+ * through Spring's bean container; the indexer is looked up lazily because it depends on the
+ * repositories of the entity manager factory.
+ */
+@Component
+public class SearchIndexListener {
+
+    private final ObjectProvider<SearchIndexer> indexer;
+
+    public SearchIndexListener(ObjectProvider<SearchIndexer> indexer) {
+        this.indexer = indexer;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void changed(Object entity) {
+        indexer.ifAvailable(searchIndexer -> searchIndexer.changed(entity));
+    }
+
+    @PreRemove
+    public void removing(Object entity) {
+        indexer.ifAvailable(searchIndexer -> searchIndexer.removing(entity));
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        indexer.ifAvailable(searchIndexer -> searchIndexer.removed(entity));
+    }
+}
@@ -0,0 +1,290 @@
+package com.eugentia.app.search;
+
+import com.eugentia.app.data.entity.Item;
+import com.eugentia.app.data.entity.Label;
+import com.eugentia.app.data.entity.SamplePerson;
+import com.eugentia.app.data.repository.ItemRepository;
+import com.eugentia.app.data.repository.LabelRepository;
+import com.eugentia.app.data.repository.SamplePersonRepository;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the {@link SearchIndex} in sync with the searchable entities.
+ * <p>
+ * The index is built from the database on startup. After that, {@link SearchIndexListener} reports
+ * every written entity; the changes of a transaction are collected and applied once it commits, by
+ * reloading the changed entities, so rolled back changes never reach the index. Items are indexed
+ * with the values of their labels, so a changed label also re-indexes the items carrying it, and a
+ * removed label the items that carried it, which are collected before it is gone.
+ */
+@Service
+public class SearchIndexer {
+
+    public static final String PERSON = "person";
+
+    public static final String ITEM = "item";
+
+    public static final String LABEL = "label";
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final SearchIndex index = new SearchIndex();
+
+    private final SamplePersonRepository personRepository;
+
+    private final ItemRepository itemRepository;
+
+    private final LabelRepository labelRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public SearchIndexer(SamplePersonRepository personRepository, ItemRepository itemRepository,
+            LabelRepository labelRepository, PlatformTransactionManager transactionManager) {
+        this.personRepository = personRepository;
+        this.itemRepository = itemRepository;
+        this.labelRepository = labelRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Changes are applied after the writing transaction completed, so they need their own
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    private Logger getLogger() {
+        return LoggerFactory.getLogger(getClass());
+    }
+
+    public SearchIndex getIndex() {
+        return index;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        rebuild(PERSON, personRepository, SearchIndexer::document);
+        rebuild(ITEM, itemRepository, SearchIndexer::document);
+        rebuild(LABEL, labelRepository, SearchIndexer::document);
+        getLogger().info("Search index built with {} documents in {} ms", index.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private <T> void rebuild(String type, JpaRepository<T, Long> repository, Function<T, SearchDocument> mapper) {
+        index.clear(type);
+
+        int page = 0;
+        boolean hasNext;
+        do {
+            PageRequest pageable = PageRequest.of(page++, CHUNK_SIZE, Sort.by("id"));
+            Boolean next = transactionTemplate.execute(status -> {
+                Slice<T> slice = repository.findAll(pageable);
+                slice.forEach(entity -> index.put(mapper.apply(entity)));
+                return slice.hasNext();
+            });
+            hasNext = Boolean.TRUE.equals(next);
+        } while (hasNext);
+    }
+
+    /**
+     * Re-indexes an entity once the current transaction commits, or right away outside of a transaction.
+     */
+    void changed(Object entity) {
+        enqueue(entity, false);
+    }
+
+    /**
+     * Removes an entity from the index once the current transaction commits, or right away outside
+     * of a transaction.
+     */
+    void removed(Object entity) {
+        enqueue(entity, true);
+    }
+
+    /**
+     * Re-indexes the items carrying a label that is about to be removed, since they cannot be found
+     * through the label once it is gone.
+     */
+    void removing(Object entity) {
+        if (entity instanceof Label label && label.getId() != null) {
+            for (Long itemId : itemRepository.findIdsByLabelId(label.getId())) {
+                enqueue(new Change(ITEM, itemId), false);
+            }
+        }
+    }
+
+    private void enqueue(Object entity, boolean removed) {
+        Change change = change(entity);
+        if (change != null) {
+            enqueue(change, removed);
+        }
+    }
+
+    private void enqueue(Change change, boolean removed) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(Map.of(change, removed));
+            return;
+        }
+
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.put(change, removed);
+    }
+
+    /**
+     * Applies the changes with one query per type, so a transaction that wrote many rows is not
+     * followed by a query per row.
+     */
+    private void apply(Map<Change, Boolean> changes) {
+        Map<String, Set<Long>> changed = new HashMap<>();
+        Set<Long> changedLabels = new HashSet<>();
+        changes.forEach((change, removed) -> {
+            if (removed) {
+                index.remove(change.type(), change.id());
+            } else {
+                changed.computeIfAbsent(change.type(), type -> new LinkedHashSet<>()).add(change.id());
+                if (LABEL.equals(change.type())) {
+                    changedLabels.add(change.id());
+                }
+            }
+        });
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                this.<SamplePerson>reindex(PERSON, changed.get(PERSON), personRepository::findAllById,
+                        SearchIndexer::document);
+                this.<Item>reindex(ITEM, changed.get(ITEM), ids -> itemRepository.findAll(withLabels(
+                        (root, query, criteriaBuilder) -> root.get("id").in(ids))), SearchIndexer::document);
+                this.<Label>reindex(LABEL, changed.get(LABEL), labelRepository::findAllById,
+                        SearchIndexer::document);
+                reindexItemsOf(changedLabels);
+            });
+        } catch (RuntimeException e) {
+            getLogger().warn("Could not update the search index", e);
+        }
+    }
+
+    /**
+     * Re-indexes the entities with the given ids and removes those that no longer exist.
+     */
+    private <T> void reindex(String type, @Nullable Set<Long> ids, Function<List<Long>, List<T>> loader,
+            Function<T, SearchDocument> mapper) {
+        if (ids == null) {
+            return;
+        }
+
+        List<Long> all = List.copyOf(ids);
+        for (int from = 0; from < all.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = all.subList(from, Math.min(all.size(), from + CHUNK_SIZE));
+            Set<Long> missing = new HashSet<>(chunk);
+            for (T entity : loader.apply(chunk)) {
+                SearchDocument document = mapper.apply(entity);
+                index.put(document);
+                missing.remove(document.id());
+            }
+            missing.forEach(id -> index.remove(type, id));
+        }
+    }
+
+    private void reindexItemsOf(Set<Long> labelIds) {
+        if (labelIds.isEmpty()) {
+            return;
+        }
+        itemRepository.findAll(withLabels((root, query, criteriaBuilder) -> {
+            // filtered in a subquery, so the fetched labels are all labels of the item
+            Subquery<Long> carrying = query.subquery(Long.class);
+            Root<Item> item = carrying.from(Item.class);
+            carrying.select(item.get("id")).where(item.join("labels").get("id").in(labelIds));
+            return root.get("id").in(carrying);
+        })).forEach(item -> index.put(document(item)));
+    }
+
+    /**
+     * Fetches the labels together with the items, which are indexed with their values.
+     */
+    private static Specification<Item> withLabels(Specification<Item> filter) {
+        return (root, query, criteriaBuilder) -> {
+            root.fetch("labels", JoinType.LEFT);
+            query.distinct(true);
+            return filter.toPredicate(root, query, criteriaBuilder);
+        };
+    }
+
+    @Nullable
+    private static Change change(Object entity) {
+        if (entity instanceof SamplePerson person && person.getId() != null) {
+            return new Change(PERSON, person.getId());
+        } else if (entity instanceof Item item && item.getId() != null) {
+            return new Change(ITEM, item.getId());
+        } else if (entity instanceof Label label && label.getId() != null) {
+            return new Change(LABEL, label.getId());
+        }
+        return null;
+    }
+
+    static SearchDocument document(SamplePerson person) {
+        return new SearchDocument(PERSON, person.getId(), join(person.getFirstName(), person.getLastName()),
+                join(person.getEmail(), person.getPhone(), person.getOccupation(), person.getRole()));
+    }
+
+    static SearchDocument document(Item item) {
+        String labels = item.getLabels() == null ? "" : item.getLabels().stream()
+                .map(Label::getValue)
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(" "));
+        return new SearchDocument(ITEM, item.getId(), join(item.getName()), labels);
+    }
+
+    static SearchDocument document(Label label) {
+        return new SearchDocument(LABEL, label.getId(), join(label.getValue()), "");
+    }
+
+    private static String join(@Nullable String... values) {
+        return Stream.of(values).filter(Objects::nonNull).collect(Collectors.joining(" "));
+    }
+
+    private record Change(String type, long id) {
+    }
+
+    /**
+     * Changes of one transaction, in the order they were made; the last change of an entity wins.
+     */
+    private final class PendingChanges implements TransactionSynchronization {
+        private final Map<Change, Boolean> changes = new LinkedHashMap<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(SearchIndexer.this);
+            if (status == STATUS_COMMITTED) {
+                apply(changes);
+            }
+        }
+    }
+}
@@ -0,0 +1,4 @@
+@NonNullApi
+package com.eugentia.app.search;
+
+import org.springframework.lang.NonNullApi;
@@ -0,0 +1,142 @@
+package com.eugentia.app.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Immutable blobs named by the SHA-256 of their content, sharded by the first two bytes of the hash
+ * ({@code ab/cd/abcd...}) so no directory grows beyond a few thousand entries.
+ * <p>
+ * New content is written to a temporary file first and renamed into place, so a blob that exists is
+ * always complete. Content that is already stored is not written again.
+ */
+final class BlobStore {
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    private static final int COPY_BUFFER = 64 * 1024;
+
+    private final Path blobs;
+
+    private final Path tmp;
+
+    BlobStore(Path root) throws IOException {
+        this.blobs = Files.createDirectories(root.resolve("blobs"));
+        this.tmp = Files.createDirectories(root.resolve("tmp"));
+        // left over by writes that were interrupted
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(tmp)) {
+            for (Path file : stale) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    Path getPath(String sha256) {
+        if (!SHA256.matcher(sha256).matches()) {
+            throw new IllegalArgumentException("Not a SHA-256: " + sha256);
+        }
+        return blobs.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    boolean contains(String sha256) {
+        return Files.isRegularFile(getPath(sha256));
+    }
+
+    /**
+     * Streams content into a temporary file while hashing it. The result is placed with {@link #place}.
+     */
+    Staged stage(InputStream in) throws IOException {
+        Path file = Files.createTempFile(tmp, "blob", ".tmp");
+        MessageDigest digest = newDigest();
+        long size = 0;
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(file), digest)) {
+            byte[] buffer = new byte[COPY_BUFFER];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+                size += read;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new Staged(file, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    /**
+     * Moves a file with known content hash into the store, or deletes it if the blob exists already.
+     *
+     * @return {@code true} if the blob was new
+     */
+    boolean place(Path file, String sha256) throws IOException {
+        Path target = getPath(sha256);
+        if (Files.exists(target)) {
+            Files.delete(file);
+            return false;
+        }
+
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // another file system: copy next to the target, then rename
+            Path copy = Files.createTempFile(target.getParent(), sha256, ".tmp");
+            Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(copy, target, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(file);
+        } catch (FileAlreadyExistsException e) {
+            Files.delete(file);
+            return false;
+        }
+        return true;
+    }
+
+    void delete(String sha256) throws IOException {
+        Files.deleteIfExists(getPath(sha256));
+    }
+
+    /**
+     * Deletes every file in the store that is not one of the given blobs, including copies left
+     * by an interrupted {@link #place}.
+     *
+     * @return number of deleted files
+     */
+    int retain(Set<String> sha256s) throws IOException {
+        List<Path> orphans;
+        try (Stream<Path> files = Files.walk(blobs)) {
+            orphans = files.filter(Files::isRegularFile)
+                    .filter(file -> !sha256s.contains(file.getFileName().toString()))
+                    .toList();
+        }
+        for (Path orphan : orphans) {
+            Files.deleteIfExists(orphan);
+        }
+        return orphans.size();
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record Staged(Path file, String sha256, long size) {
+    }
+}
@@ -0,0 +1,220 @@
+package com.eugentia.app.storage;
+
+import com.vaadin.flow.shared.Registration;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Paged, sorted access to the files of the {@link FileStore}, kept up to date incrementally.
+ * <p>
+ * Sorted views are built from the store's index once per change and sort order, so paging through
+ * them does not touch the file system at all. The {@link UploadFolder} is watched for files that are
+ * copied into it; each is imported once it has not changed for {@link #QUIET_PERIOD}, which covers
+ * copies still in progress. Only an overflow of the watch queue leads to a scan of the folder.
+ */
+@Component
+public class FileCatalog {
+
+    public static final String NAME = "name";
+
+    public static final String SIZE = "size";
+
+    public static final String LAST_MODIFIED = "lastModified";
+
+    static final Duration QUIET_PERIOD = Duration.ofSeconds(2);
+
+    private final FileStore fileStore;
+
+    private final Map<Sort, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Changed files by the time of their last event, used by the watcher thread only.
+     */
+    private final Map<Path, Long> pending = new HashMap<>();
+
+    @Nullable
+    private WatchService watchService;
+
+    public FileCatalog(FileStore fileStore) {
+        this.fileStore = fileStore;
+    }
+
+    private Logger getLogger() {
+        return LoggerFactory.getLogger(getClass());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void startWatching() {
+        Path folder = UploadFolder.getRoot();
+        try {
+            WatchService service = folder.getFileSystem().newWatchService();
+            folder.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchService = service;
+
+            Thread watcher = new Thread(() -> watch(service, folder), "upload-folder-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        } catch (IOException e) {
+            getLogger().warn("Cannot watch {}, files copied into it are not imported", folder, e);
+        }
+    }
+
+    @PreDestroy
+    synchronized void stopWatching() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+
+    @EventListener
+    public void onFileStoreChanged(FileStoreChangedEvent event) {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * @param listener called on an arbitrary thread after the catalog changed
+     */
+    public Registration addChangeListener(Runnable listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    public int count() {
+        return fileStore.size();
+    }
+
+    /**
+     * @param sort by {@value #NAME}, {@value #SIZE} or {@value #LAST_MODIFIED}; ties are ordered by name
+     */
+    public Stream<StoredFile> fetch(int offset, int limit, Sort sort) {
+        List<StoredFile> files = snapshot(sort);
+        int from = Math.min(offset, files.size());
+        return files.subList(from, Math.min(files.size(), from + limit)).stream();
+    }
+
+    private List<StoredFile> snapshot(Sort sort) {
+        // read the version first: a change after it only makes the snapshot look older than it is
+        long version = fileStore.getVersion();
+        Snapshot snapshot = snapshots.get(sort);
+        if (snapshot == null || snapshot.version() != version) {
+            List<StoredFile> files = fileStore.list();
+            files.sort(comparator(sort));
+            snapshot = new Snapshot(version, List.copyOf(files));
+            snapshots.put(sort, snapshot);
+        }
+        return snapshot.files();
+    }
+
+    private static Comparator<StoredFile> comparator(Sort sort) {
+        Comparator<StoredFile> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<StoredFile> next = switch (order.getProperty()) {
+                case NAME -> Comparator.comparing(StoredFile::name, String.CASE_INSENSITIVE_ORDER);
+                case SIZE -> Comparator.comparingLong(StoredFile::size);
+                case LAST_MODIFIED -> Comparator.comparing(StoredFile::lastModified);
+                default -> throw new IllegalArgumentException("Cannot sort by " + order.getProperty());
+            };
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<StoredFile> byName = Comparator.comparing(StoredFile::name);
+        return comparator == null ? byName : comparator.thenComparing(byName);
+    }
+
+    private void watch(WatchService service, Path folder) {
+        // files that were copied in while the application was down
+        queueFolder(folder);
+        try {
+            while (true) {
+                WatchKey key = pending.isEmpty()
+                        ? service.take()
+                        : service.poll(QUIET_PERIOD.toMillis(), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            queueFolder(folder);
+                        } else {
+                            pending.put(folder.resolve((Path) event.context()), System.currentTimeMillis());
+                        }
+                    }
+                    key.reset();
+                }
+                importQuietFiles();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // shut down
+        }
+    }
+
+    private void queueFolder(Path folder) {
+        long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, Files::isRegularFile)) {
+            for (Path file : stream) {
+                pending.put(file, now);
+            }
+        } catch (IOException e) {
+            getLogger().warn("Cannot list {}", folder, e);
+        }
+    }
+
+    private void importQuietFiles() {
+        long quietSince = System.currentTimeMillis() - QUIET_PERIOD.toMillis();
+        Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> entry = iterator.next();
+            if (entry.getValue() > quietSince) {
+                continue;
+            }
+            iterator.remove();
+
+            Path file = entry.getKey();
+            if (!Files.isRegularFile(file)) {
+                continue;
+            }
+            try {
+                StoredFile stored = fileStore.importFile(file);
+                getLogger().info("Imported {} from the upload folder", stored.name());
+            } catch (IOException | IllegalArgumentException e) {
+                getLogger().warn("Cannot import {}", file, e);
+            }
+        }
+    }
+
+    private record Snapshot(long version, List<StoredFile> files) {
+    }
+}
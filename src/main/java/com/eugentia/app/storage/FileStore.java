@@ -0,0 +1,323 @@
+package com.eugentia.app.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uploaded files, stored once per distinct content.
+ * <p>
+ * The bytes live in a content-addressed {@link BlobStore}; a name only refers to a blob. Storing the
+ * same report again adds an index entry but no bytes, and two names with the same content share one
+ * blob. Blobs no name refers to any more are deleted, and blobs left without a name by a failed store
+ * are deleted when the store is opened.
+ * <p>
+ * Content is moved into the blob store before the index is locked, so storing a large file does not
+ * block other stores and deletes; only the index update is serialized.
+ * <p>
+ * A name is never overwritten: storing other content under a name that is taken stores it under the
+ * next free name, e.g. {@code report (1).xlsx}, and storing the same content again under its name
+ * returns the file that is stored already.
+ * <p>
+ * The name index is kept in memory and persisted as an append-only journal next to the blobs. The
+ * journal is compacted when the store is opened, so it never holds more than one line per name for long.
+ */
+@Component
+public class FileStore {
+
+    private static final Path ROOT = Path.of("file-store").toAbsolutePath();
+
+    private static final String JOURNAL = "index.log";
+
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private final BlobStore blobs;
+
+    private final Path journalPath;
+
+    private final Map<String, StoredFile> files = new ConcurrentHashMap<>();
+
+    /**
+     * Number of names per blob, guarded by {@code this}.
+     */
+    private final Map<String, Integer> references = new HashMap<>();
+
+    /**
+     * Number of stores placing each blob, guarded by {@code this}. A blob being placed is not deleted
+     * when its last name goes away, since the store placing it is about to refer to it.
+     */
+    private final Map<String, Integer> placing = new HashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private FileChannel journal;
+
+    public FileStore(ApplicationEventPublisher eventPublisher) throws IOException {
+        this.eventPublisher = eventPublisher;
+        this.blobs = new BlobStore(ROOT);
+        this.journalPath = ROOT.resolve(JOURNAL);
+        load();
+    }
+
+    private Logger getLogger() {
+        return LoggerFactory.getLogger(getClass());
+    }
+
+    /**
+     * Stores a file that is not part of the store yet and deletes the original.
+     */
+    public StoredFile importFile(Path file) throws IOException {
+        BlobStore.Staged staged;
+        try (InputStream in = Files.newInputStream(file)) {
+            staged = blobs.stage(in);
+        }
+        StoredFile stored = put(validateName(file.getFileName().toString()), staged.file(), staged.sha256(),
+                staged.size());
+        Files.deleteIfExists(file);
+        return stored;
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        journal.close();
+    }
+
+    /**
+     * Stores content under a name, hashing it while it streams in.
+     *
+     * @return the stored file, whose name differs from the given one if that was taken by other content
+     */
+    public StoredFile store(String name, InputStream content) throws IOException {
+        String validName = validateName(name);
+        BlobStore.Staged staged = blobs.stage(content);
+        return put(validName, staged.file(), staged.sha256(), staged.size());
+    }
+
+    /**
+     * Stores a file whose SHA-256 is already known, e.g. because it was computed while the file was
+     * uploaded. The store takes over the file: it is moved into place, or deleted if the content is
+     * stored already.
+     *
+     * @return the stored file, whose name differs from the given one if that was taken by other content
+     */
+    public StoredFile storeFile(String name, Path file, String sha256) throws IOException {
+        return put(validateName(name), file, sha256, Files.size(file));
+    }
+
+    public Optional<StoredFile> find(String name) {
+        return Optional.ofNullable(files.get(name));
+    }
+
+    /**
+     * @return the file holding the content; it must not be modified
+     */
+    public Path getContent(StoredFile file) {
+        return blobs.getPath(file.sha256());
+    }
+
+    /**
+     * @return all files, ordered by name
+     */
+    public List<StoredFile> list() {
+        List<StoredFile> list = new ArrayList<>(files.values());
+        list.sort(Comparator.comparing(StoredFile::name));
+        return list;
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    /**
+     * @return a number that changes whenever a name is stored or deleted
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public synchronized int getBlobCount() {
+        return references.size();
+    }
+
+    public synchronized boolean delete(String name) throws IOException {
+        StoredFile removed = files.remove(name);
+        if (removed == null) {
+            return false;
+        }
+        append("D " + name);
+        release(removed.sha256());
+        version.incrementAndGet();
+        eventPublisher.publishEvent(new FileStoreChangedEvent(removed, true));
+        return true;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the name cannot be used as a file name
+     */
+    public static String validateName(String name) {
+        if (name.isBlank() || name.length() > MAX_NAME_LENGTH || name.equals(".") || name.equals("..")
+                || name.chars().anyMatch(c -> c < 0x20 || c == 0x7F || c == '/' || c == '\\')) {
+            throw new IllegalArgumentException("Invalid file name: " + name);
+        }
+        return name;
+    }
+
+    private StoredFile put(String name, Path file, String sha256, long size) throws IOException {
+        synchronized (this) {
+            placing.merge(sha256, 1, Integer::sum);
+        }
+        try {
+            if (blobs.place(file, sha256)) {
+                getLogger().debug("Stored new blob {} for {}", sha256, name);
+            } else {
+                getLogger().debug("Content of {} is stored already as {}", name, sha256);
+            }
+            return index(name, sha256, size);
+        } finally {
+            synchronized (this) {
+                placing.computeIfPresent(sha256, (key, value) -> value > 1 ? value - 1 : null);
+                if (!references.containsKey(sha256) && !placing.containsKey(sha256)) {
+                    // placed, but the index could not be updated
+                    deleteQuietly(sha256);
+                }
+            }
+        }
+    }
+
+    private synchronized StoredFile index(String name, String sha256, long size) throws IOException {
+        StoredFile existing = files.get(name);
+        if (existing != null && existing.sha256().equals(sha256)) {
+            // the same file uploaded again
+            return existing;
+        }
+        String freeName = existing == null ? name : freeName(name);
+
+        StoredFile stored = new StoredFile(freeName, sha256, size, Instant.now());
+        append("P " + sha256 + " " + size + " " + stored.lastModified().toEpochMilli() + " " + freeName);
+        references.merge(sha256, 1, Integer::sum);
+        files.put(freeName, stored);
+        version.incrementAndGet();
+        eventPublisher.publishEvent(new FileStoreChangedEvent(stored, false));
+        return stored;
+    }
+
+    /**
+     * @return {@code name (n).ext} with the lowest n that is not taken
+     */
+    private String freeName(String name) {
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int n = 1; ; n++) {
+            String suffix = " (" + n + ")" + extension;
+            String candidate = base.substring(0, Math.min(base.length(), MAX_NAME_LENGTH - suffix.length())) + suffix;
+            if (!files.containsKey(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    private void release(String sha256) throws IOException {
+        Integer count = references.computeIfPresent(sha256, (key, value) -> value > 1 ? value - 1 : null);
+        if (count == null && !placing.containsKey(sha256)) {
+            blobs.delete(sha256);
+        }
+    }
+
+    private void deleteQuietly(String sha256) {
+        try {
+            blobs.delete(sha256);
+        } catch (IOException e) {
+            getLogger().warn("Cannot delete blob {}, it is deleted when the store is opened again", sha256, e);
+        }
+    }
+
+    private void append(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+        journal.force(false);
+    }
+
+    /**
+     * Replays the journal, then rewrites it with one line per name.
+     */
+    private void load() throws IOException {
+        if (Files.exists(journalPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    replay(line);
+                }
+            }
+        }
+
+        List<StoredFile> missing = files.values().stream().filter(file -> !blobs.contains(file.sha256())).toList();
+        for (StoredFile file : missing) {
+            getLogger().warn("Blob {} of {} is missing, dropping the file", file.sha256(), file.name());
+            files.remove(file.name());
+        }
+        for (StoredFile file : files.values()) {
+            references.merge(file.sha256(), 1, Integer::sum);
+        }
+        int orphans = blobs.retain(references.keySet());
+        if (orphans > 0) {
+            getLogger().info("Deleted {} blobs no file refers to", orphans);
+        }
+
+        Path compacted = journalPath.resolveSibling(JOURNAL + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            for (StoredFile file : list()) {
+                writer.write("P " + file.sha256() + " " + file.size() + " " + file.lastModified().toEpochMilli()
+                        + " " + file.name() + "\n");
+            }
+        }
+        Files.move(compacted, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = FileChannel.open(journalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        getLogger().info("File store holds {} files in {} blobs", files.size(), references.size());
+    }
+
+    private void replay(String line) {
+        try {
+            if (line.startsWith("P ")) {
+                String[] fields = line.split(" ", 5);
+                StoredFile file = new StoredFile(fields[4], fields[1], Long.parseLong(fields[2]),
+                        Instant.ofEpochMilli(Long.parseLong(fields[3])));
+                files.put(file.name(), file);
+            } else if (line.startsWith("D ")) {
+                files.remove(line.substring(2));
+            } else if (!line.isEmpty()) {
+                getLogger().warn("Skipping journal line {}", line);
+            }
+        } catch (RuntimeException e) {
+            // a line torn by a crash while it was appended
+            getLogger().warn("Skipping journal line {}", line, e);
+        }
+    }
+}
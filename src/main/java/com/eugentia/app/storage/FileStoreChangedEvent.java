@@ -0,0 +1,10 @@
+package com.eugentia.app.storage;
+
+/**
+ * Published by the {@link FileStore} after a name was stored or deleted.
+ *
+ * @param file    the file as stored, or as it was before it was deleted
+ * @param deleted whether the name was deleted
+ */
+public record FileStoreChangedEvent(StoredFile file, boolean deleted) {
+}
@@ -0,0 +1,14 @@
+package com.eugentia.app.storage;
+
+import java.time.Instant;
+
+/**
+ * A logical file of the {@link FileStore}.
+ *
+ * @param name         file name as uploaded
+ * @param sha256       hex SHA-256 of the content, which is also the key of its blob
+ * @param size         content length in bytes
+ * @param lastModified time the name was last stored
+ */
+public record StoredFile(String name, String sha256, long size, Instant lastModified) {
+}
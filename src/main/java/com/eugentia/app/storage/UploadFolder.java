@@ -0,0 +1,29 @@
+package com.eugentia.app.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The folder uploads used to be written to. Files found there are moved into the
+ * {@link FileStore}, so it also serves as a drop folder.
+ */
+public final class UploadFolder {
+
+    private static final Path ROOT = Path.of("uploaded-files").toAbsolutePath().normalize();
+
+    private UploadFolder() {
+    }
+
+    /**
+     * @return the folder, created if it does not exist yet
+     */
+    public static Path getRoot() {
+        try {
+            return Files.createDirectories(ROOT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
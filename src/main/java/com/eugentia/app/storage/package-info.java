@@ -0,0 +1,4 @@
+@NonNullApi
+package com.eugentia.app.storage;
+
+import org.springframework.lang.NonNullApi;
@@ -0,0 +1,197 @@
+package com.eugentia.app.upload;
+
+import com.eugentia.app.storage.StoredFile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaadin.flow.server.RequestHandler;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinServletRequest;
+import com.vaadin.flow.server.VaadinServletResponse;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.spring.annotation.SpringComponent;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.Principal;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The HTTP side of chunked uploads, used by the {@code chunked-upload} element.
+ * <ul>
+ *     <li>{@code POST /uploads?name=&size=&lastModified=} starts or resumes an upload</li>
+ *     <li>{@code GET /uploads/{id}} returns its state</li>
+ *     <li>{@code PUT /uploads/{id}/chunks/{index}} with an {@value #CHECKSUM_HEADER} header stores a chunk</li>
+ *     <li>{@code POST /uploads/{id}/complete} stores the finished file</li>
+ *     <li>{@code DELETE /uploads/{id}} aborts the upload</li>
+ * </ul>
+ * The state is returned as JSON with the indices of the received chunks, which is all a client needs
+ * to send the missing ones. Chunk requests do not lock the Vaadin session, so the chunks of one file
+ * can be sent in parallel.
+ */
+@SpringComponent
+public class ChunkedUploadHandler implements RequestHandler {
+
+    public static final String PATH_PREFIX = "/uploads";
+
+    public static final String CHECKSUM_HEADER = "X-Chunk-Sha256";
+
+    private static final String ROLE = "USER";
+
+    private static final Pattern SESSION_PATH = Pattern.compile("/([0-9a-f-]{36})(?:/(complete|chunks/(\\d+)))?");
+
+    private final UploadSessionRegistry registry;
+
+    private final ObjectMapper objectMapper;
+
+    public ChunkedUploadHandler(UploadSessionRegistry registry, ObjectMapper objectMapper) {
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+    }
+
+    private Logger getLogger() {
+        return LoggerFactory.getLogger(getClass());
+    }
+
+    @Override
+    public boolean handleRequest(VaadinSession session, VaadinRequest vaadinRequest, VaadinResponse vaadinResponse)
+            throws IOException {
+        String pathInfo = vaadinRequest.getPathInfo();
+        if (pathInfo == null || !(pathInfo.equals(PATH_PREFIX) || pathInfo.startsWith(PATH_PREFIX + "/"))
+                || !(vaadinRequest instanceof VaadinServletRequest servletRequest)
+                || !(vaadinResponse instanceof VaadinServletResponse servletResponse)) {
+            return false;
+        }
+
+        HttpServletRequest request = servletRequest.getHttpServletRequest();
+        HttpServletResponse response = servletResponse.getHttpServletResponse();
+        Principal principal = request.getUserPrincipal();
+        if (principal == null || !request.isUserInRole(ROLE)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return true;
+        }
+
+        try {
+            dispatch(request, response, principal.getName(), pathInfo.substring(PATH_PREFIX.length()));
+        } catch (UploadSession.ChecksumMismatchException e) {
+            // the client sends the chunk again
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            response.sendError(HttpServletResponse.SC_CONFLICT, e.getMessage());
+        }
+        return true;
+    }
+
+    private void dispatch(HttpServletRequest request, HttpServletResponse response, String owner, String path)
+            throws IOException {
+        String method = request.getMethod();
+        if (path.isEmpty() || path.equals("/")) {
+            if (!"POST".equals(method)) {
+                response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+                return;
+            }
+            UploadSession session = registry.open(owner, requiredParameter(request, "name"),
+                    parseLong(requiredParameter(request, "size")),
+                    parseLong(Optional.ofNullable(request.getParameter("lastModified")).orElse("0")));
+            writeStatus(response, session);
+            return;
+        }
+
+        Matcher matcher = SESSION_PATH.matcher(path);
+        if (!matcher.matches()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Optional<UploadSession> found = registry.find(matcher.group(1), owner);
+        if (found.isEmpty()) {
+            // expired or never existed; the client starts over
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        UploadSession session = found.get();
+        String action = matcher.group(2);
+
+        if (action == null && "GET".equals(method)) {
+            writeStatus(response, session);
+        } else if (action == null && "DELETE".equals(method)) {
+            registry.abort(session);
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        } else if ("complete".equals(action) && "POST".equals(method)) {
+            StoredFile file = registry.complete(session);
+            getLogger().info("Upload of {} by {} complete, {} bytes", file.name(), owner, file.size());
+            // the name the file was stored under, which differs if the uploaded name was taken
+            writeStatus(response, session, file.name());
+        } else if (action != null && action.startsWith("chunks/") && "PUT".equals(method)) {
+            writeChunk(request, session, parseInt(matcher.group(3)));
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        } else {
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+        }
+    }
+
+    private void writeChunk(HttpServletRequest request, UploadSession session, int index) throws IOException {
+        String checksum = request.getHeader(CHECKSUM_HEADER);
+        if (checksum == null) {
+            throw new IllegalArgumentException("Missing " + CHECKSUM_HEADER + " header");
+        }
+
+        int length = session.getChunkLength(index);
+        long declared = request.getContentLengthLong();
+        if (declared >= 0 && declared != length) {
+            throw new IllegalArgumentException("Chunk " + index + " must have " + length + " bytes");
+        }
+
+        byte[] data;
+        try (InputStream in = request.getInputStream()) {
+            // one byte more than allowed reveals an oversized chunked request body
+            data = in.readNBytes(length + 1);
+        }
+        session.writeChunk(index, data, checksum);
+    }
+
+    private void writeStatus(HttpServletResponse response, UploadSession session) throws IOException {
+        writeStatus(response, session, session.getFileName());
+    }
+
+    private void writeStatus(HttpServletResponse response, UploadSession session, String fileName)
+            throws IOException {
+        response.setContentType("application/json");
+        response.setHeader("Cache-Control", "no-store");
+        objectMapper.writeValue(response.getOutputStream(), new Status(session.getId(), fileName,
+                session.getSize(), session.getChunkSize(), session.getChunkCount(), session.getReceivedChunks()));
+    }
+
+    private static String requiredParameter(HttpServletRequest request, String name) {
+        String value = request.getParameter(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return value;
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    record Status(String id, String fileName, long size, int chunkSize, int chunkCount, int[] received) {
+    }
+}
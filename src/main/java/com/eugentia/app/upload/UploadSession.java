@@ -0,0 +1,283 @@
+package com.eugentia.app.upload;
+
+import com.eugentia.app.storage.FileStore;
+import com.eugentia.app.storage.StoredFile;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One file being uploaded in chunks of a fixed size, in any order and possibly in parallel.
+ * <p>
+ * Each chunk is checked against the SHA-256 checksum the client computed and written at its own
+ * position of a part file, so chunks can arrive out of order and be retried individually. The set of
+ * received chunks is what a client resumes from.
+ * <p>
+ * The SHA-256 of the whole file is computed along the way: every chunk that extends the contiguous
+ * prefix is hashed as it arrives, together with the chunks after it that came early, which are read
+ * back from the part file while they are still cached.
+ * <p>
+ * Chunk writes share a lock that storing the file takes exclusively, so the part file is stored only
+ * after the writes in flight have finished, and chunks that arrive later are rejected.
+ */
+public final class UploadSession {
+
+    private final String id;
+
+    private final String owner;
+
+    private final String resumeKey;
+
+    private final String fileName;
+
+    private final long size;
+
+    private final int chunkSize;
+
+    private final int chunkCount;
+
+    private final Path partFile;
+
+    private final FileChannel channel;
+
+    private final BitSet received;
+
+    private final MessageDigest digest = newDigest();
+
+    private final ReadWriteLock channelLock = new ReentrantReadWriteLock();
+
+    /**
+     * Whether storing has started, guarded by {@link #channelLock}.
+     */
+    private boolean storing;
+
+    @Nullable
+    private StoredFile stored;
+
+    /**
+     * Number of leading chunks fed to the digest, guarded by {@code this}.
+     */
+    private int hashedChunks;
+
+    @Nullable
+    private String sha256;
+
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    UploadSession(String id, String owner, String resumeKey, String fileName, long size, int chunkSize,
+            Path partFile) throws IOException {
+        this.id = id;
+        this.owner = owner;
+        this.resumeKey = resumeKey;
+        this.fileName = fileName;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.chunkCount = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+        this.partFile = partFile;
+        this.received = new BitSet(chunkCount);
+        // positional writes on one channel are safe from several threads
+        this.channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    String getResumeKey() {
+        return resumeKey;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    Path getPartFile() {
+        return partFile;
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * @return the size of the chunk at an index; the last chunk may be shorter
+     */
+    public int getChunkLength(int index) {
+        if (index < 0 || index >= chunkCount) {
+            throw new IllegalArgumentException("Chunk " + index + " out of 0.." + (chunkCount - 1));
+        }
+        return (int) Math.min(chunkSize, size - (long) index * chunkSize);
+    }
+
+    public synchronized int[] getReceivedChunks() {
+        return received.stream().toArray();
+    }
+
+    public synchronized boolean isComplete() {
+        return received.cardinality() == chunkCount;
+    }
+
+    /**
+     * Verifies and writes one chunk. Writing a chunk again, e.g. after a lost response, is harmless.
+     *
+     * @param checksum hex SHA-256 of the chunk as computed by the client
+     * @throws ChecksumMismatchException if the bytes do not match the checksum
+     */
+    public void writeChunk(int index, byte[] data, String checksum) throws IOException {
+        lastAccess = System.currentTimeMillis();
+        if (data.length != getChunkLength(index)) {
+            throw new IllegalArgumentException("Chunk " + index + " has " + data.length + " bytes, expected "
+                    + getChunkLength(index));
+        }
+        if (!sha256(data).equalsIgnoreCase(checksum)) {
+            throw new ChecksumMismatchException("Checksum mismatch in chunk " + index);
+        }
+
+        channelLock.readLock().lock();
+        try {
+            if (storing) {
+                throw new IllegalStateException("Upload " + id + " is complete");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            long position = (long) index * chunkSize;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+
+            synchronized (this) {
+                received.set(index);
+                if (index == hashedChunks) {
+                    digest.update(data);
+                    hashedChunks++;
+                    hashReceivedChunks();
+                }
+            }
+        } finally {
+            channelLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Hands the part file to the store once the chunk writes in flight have finished. If storing fails,
+     * the part file is kept and storing can be retried; storing again after it succeeded returns the
+     * same file.
+     *
+     * @throws IllegalStateException if chunks are missing
+     */
+    StoredFile store(FileStore fileStore) throws IOException {
+        channelLock.writeLock().lock();
+        try {
+            if (stored == null) {
+                String sha256 = getSha256();
+                storing = true;
+                close(true);
+                stored = fileStore.storeFile(fileName, partFile, sha256);
+            }
+            return stored;
+        } finally {
+            channelLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return hex SHA-256 of the whole file
+     * @throws IllegalStateException if chunks are missing
+     */
+    public synchronized String getSha256() throws IOException {
+        if (sha256 == null) {
+            if (!isComplete()) {
+                throw new IllegalStateException("Upload " + id + " is missing chunks");
+            }
+            hashReceivedChunks();
+            sha256 = HexFormat.of().formatHex(digest.digest());
+        }
+        return sha256;
+    }
+
+    private void hashReceivedChunks() throws IOException {
+        while (hashedChunks < chunkCount && received.get(hashedChunks)) {
+            ByteBuffer chunk = ByteBuffer.allocate(getChunkLength(hashedChunks));
+            long position = (long) hashedChunks * chunkSize;
+            while (chunk.hasRemaining()) {
+                int read = channel.read(chunk, position + chunk.position());
+                if (read < 0) {
+                    throw new IOException("Part file " + partFile + " ends before chunk " + hashedChunks);
+                }
+            }
+            chunk.flip();
+            digest.update(chunk);
+            hashedChunks++;
+        }
+    }
+
+    /**
+     * Forces the part file to disk and closes it.
+     */
+    void close(boolean force) throws IOException {
+        if (channel.isOpen()) {
+            if (force) {
+                channel.force(false);
+            }
+            channel.close();
+        }
+    }
+
+    void delete() throws IOException {
+        channelLock.writeLock().lock();
+        try {
+            // nothing to delete once the store has taken over the part file
+            if (stored == null) {
+                close(false);
+                Files.deleteIfExists(partFile);
+            }
+        } finally {
+            channelLock.writeLock().unlock();
+        }
+    }
+
+    static String sha256(byte[] data) {
+        return HexFormat.of().formatHex(newDigest().digest(data));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class ChecksumMismatchException extends IOException {
+        public ChecksumMismatchException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.eugentia.app.upload;
+
+import com.eugentia.app.storage.FileStore;
+import com.eugentia.app.storage.StoredFile;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the chunked uploads in progress.
+ * <p>
+ * A client that starts the same file again, identified by owner, name, size and modification time,
+ * gets the existing session back together with the chunks that already arrived, so an interrupted
+ * upload continues where it stopped. Part files live next to the upload folder and are handed to the
+ * {@link FileStore} once every chunk has been received, together with the content hash computed
+ * during the upload, so the store does not read the file again. Sessions that see no chunk for {@link #EXPIRY} are discarded.
+ */
+@Component
+public class UploadSessionRegistry {
+
+    public static final int CHUNK_SIZE = 8 * 1024 * 1024;
+
+    public static final long MAX_FILE_SIZE = 1024L * 1024 * 1024;
+
+    public static final Duration EXPIRY = Duration.ofHours(24);
+
+    private static final Path PART_ROOT = Path.of("uploaded-files.partial").toAbsolutePath();
+
+    private static final String PART_SUFFIX = ".part";
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    private final Map<String, UploadSession> sessionsByResumeKey = new ConcurrentHashMap<>();
+
+    private final FileStore fileStore;
+
+    public UploadSessionRegistry(FileStore fileStore) {
+        this.fileStore = fileStore;
+    }
+
+    private Logger getLogger() {
+        return LoggerFactory.getLogger(getClass());
+    }
+
+    /**
+     * Sessions are kept in memory only, so part files left by a previous run cannot be resumed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void deleteOrphanedParts() {
+        if (!Files.isDirectory(PART_ROOT)) {
+            return;
+        }
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(PART_ROOT, "*" + PART_SUFFIX)) {
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+        } catch (IOException e) {
+            getLogger().warn("Cannot clean up {}", PART_ROOT, e);
+        }
+    }
+
+    @PreDestroy
+    void closeAll() {
+        for (UploadSession session : sessions.values()) {
+            try {
+                session.close(false);
+            } catch (IOException e) {
+                getLogger().debug("Cannot close upload {}", session.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Starts an upload or resumes the matching one.
+     *
+     * @param lastModified modification time the client reports for the file, used only to recognise it
+     */
+    public synchronized UploadSession open(String owner, String fileName, long size, long lastModified)
+            throws IOException {
+        if (size < 0 || size > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("File size must be between 0 and " + MAX_FILE_SIZE + " bytes");
+        }
+        String name = sanitizeFileName(fileName);
+        expire();
+
+        String resumeKey = owner + '\n' + name + '\n' + size + '\n' + lastModified;
+        UploadSession existing = sessionsByResumeKey.get(resumeKey);
+        if (existing != null) {
+            return existing;
+        }
+
+        Files.createDirectories(PART_ROOT);
+        String id = UUID.randomUUID().toString();
+        UploadSession session = new UploadSession(id, owner, resumeKey, name, size, CHUNK_SIZE,
+                PART_ROOT.resolve(id + PART_SUFFIX));
+        sessions.put(id, session);
+        sessionsByResumeKey.put(resumeKey, session);
+        return session;
+    }
+
+    /**
+     * @return the session, if it exists and belongs to the owner
+     */
+    public Optional<UploadSession> find(String id, String owner) {
+        UploadSession session = sessions.get(id);
+        return session != null && session.getOwner().equals(owner) ? Optional.of(session) : Optional.empty();
+    }
+
+    /**
+     * Stores a fully received upload. The session is kept until the file is stored, so a client can
+     * retry if storing fails.
+     *
+     * @return the stored file, whose name differs from the uploaded one if that was taken by other content
+     * @throws IllegalStateException if chunks are missing
+     */
+    public StoredFile complete(UploadSession session) throws IOException {
+        StoredFile stored = session.store(fileStore);
+        remove(session);
+        return stored;
+    }
+
+    public void abort(UploadSession session) throws IOException {
+        remove(session);
+        session.delete();
+    }
+
+    private synchronized void remove(UploadSession session) {
+        sessions.remove(session.getId());
+        sessionsByResumeKey.remove(session.getResumeKey(), session);
+    }
+
+    private void expire() {
+        long oldest = System.currentTimeMillis() - EXPIRY.toMillis();
+        Iterator<UploadSession> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            UploadSession session = iterator.next();
+            if (session.getLastAccess() < oldest) {
+                iterator.remove();
+                sessionsByResumeKey.remove(session.getResumeKey(), session);
+                try {
+                    session.delete();
+                } catch (IOException e) {
+                    getLogger().warn("Cannot delete expired upload {}", session.getPartFile(), e);
+                }
+            }
+        }
+    }
+
+    private static String sanitizeFileName(String fileName) {
+        // browsers may send a path; only the last segment names the file
+        String name = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1).strip();
+        return FileStore.validateName(name);
+    }
+}
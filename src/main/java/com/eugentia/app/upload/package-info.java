@@ -0,0 +1,4 @@
+@NonNullApi
+package com.eugentia.app.upload;
+
+import org.springframework.lang.NonNullApi;
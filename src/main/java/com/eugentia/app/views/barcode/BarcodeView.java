@@ -1,38 +1,72 @@
 package com.eugentia.app.views.barcode;
 
+import com.eugentia.app.barcode.BarcodeBatchService;
+import com.eugentia.app.barcode.BarcodeBatchService.ImageFormat;
+import com.eugentia.app.barcode.BarcodeRenderer;
 import com.eugentia.app.components.BarcodeComponent;
+import com.eugentia.app.components.Debouncer;
+import com.eugentia.app.components.ExcelUploadComponent;
 import com.eugentia.app.data.entity.BarcodeType;
 import com.eugentia.app.data.repository.BarcodeTypeRepository;
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.orderedlayout.FlexComponent.Alignment;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.select.Select;
+import com.vaadin.flow.component.textfield.TextArea;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.Menu;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.StreamRegistration;
+import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.server.VaadinSession;
 import jakarta.annotation.Nullable;
 import jakarta.annotation.security.RolesAllowed;
 import org.springframework.beans.factory.annotation.Autowired;
-import uk.org.okapibarcode.backend.*;
-import uk.org.okapibarcode.graphics.Color;
-import uk.org.okapibarcode.output.SvgRenderer;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 @PageTitle("Barcode")
 @Menu(icon = "line-awesome/svg/credit-card.svg", order = 17)
 @Route(value = "barcode")
 @RolesAllowed("USER")
 public class BarcodeView extends VerticalLayout {
+    private static final String ZIP_SVG = "ZIP (SVG)";
+
+    private static final String ZIP_PNG = "ZIP (PNG)";
+
+    private static final String PDF = "PDF";
+
     private final BarcodeComponent barcode;
 
     private final ComboBox<BarcodeType> barcodeType;
 
     private final TextField textField;
 
-    public BarcodeView(@Autowired BarcodeTypeRepository repository) {
+    private final BarcodeRenderer renderer;
+
+    private final BarcodeBatchService batchService;
+
+    private final Debouncer debouncer = new Debouncer(Duration.ofMillis(200));
+
+    @Nullable
+    private StreamRegistration batchRegistration;
+
+    public BarcodeView(@Autowired BarcodeTypeRepository repository, @Autowired BarcodeRenderer renderer,
+            @Autowired BarcodeBatchService batchService) {
+        this.renderer = renderer;
+        this.batchService = batchService;
+
         HorizontalLayout horizontalLayout = new HorizontalLayout();
 
         barcodeType = new ComboBox<>("Type");
@@ -52,181 +86,113 @@ public class BarcodeView extends VerticalLayout {
         barcode.addClassName("styled-svg");
 
         barcodeType.addValueChangeListener(event -> getSvgContent());
-        textField.addValueChangeListener(event -> getSvgContent());
+        textField.addValueChangeListener(event -> debouncer.run(this::getSvgContent));
 
         horizontalLayout.add(barcodeType, textField);
-        add(horizontalLayout, barcode);
+        add(horizontalLayout, barcode, createBatchLayout());
     }
 
-    private void getSvgContent() {
-        if (!textField.getValue().isEmpty()) barcode.setContent(generateBarcode());
-    }
+    private Component createBatchLayout() {
+        TextArea contents = new TextArea("Batch contents, one per line");
+        contents.setWidth("300px");
+
+        // contents of the last upload, used until the next upload or an edit of the text area
+        List<String> uploadedContents = new ArrayList<>();
+        Span uploaded = new Span();
+        ExcelUploadComponent upload = new ExcelUploadComponent(true) {
+            @Override
+            protected void readSpoolFile(File file) {
+                uploadedContents.clear();
+                super.readSpoolFile(file);
+                uploaded.setText(uploadedContents.size() + " contents uploaded");
+            }
 
-    @Nullable
-    private String generateBarcode() {
-        String type = barcodeType.getValue().getType();
+            @Override
+            protected void readExcel(String sheetName, int firstRowNum, List<List<String>> rows) {
+                // first column of every row below the header row
+                for (int i = 0; i < rows.size(); i++) {
+                    List<String> row = rows.get(i);
+                    if (firstRowNum + i > 0 && !row.isEmpty() && row.get(0) != null && !row.get(0).isBlank()) {
+                        uploadedContents.add(row.get(0));
+                    }
+                }
+            }
+        };
+        contents.addValueChangeListener(event -> {
+            uploadedContents.clear();
+            uploaded.setText("");
+        });
+
+        Select<String> format = new Select<>();
+        format.setLabel("Format");
+        format.setItems(ZIP_SVG, ZIP_PNG, PDF);
+        format.setValue(ZIP_SVG);
+
+        Button download = new Button("Download", event -> {
+            List<String> batch = !uploadedContents.isEmpty()
+                    ? List.copyOf(uploadedContents)
+                    : contents.getValue().lines().filter(line -> !line.isBlank()).toList();
+            if (batch.isEmpty() || barcodeType.getValue() == null) {
+                return;
+            }
+            downloadBatch(barcodeType.getValue().getType(), batch, format.getValue());
+        });
 
-        if (type.isBlank()) {
-            return null;
-        }
+        HorizontalLayout batchLayout = new HorizontalLayout(contents, upload, format, download, uploaded);
+        batchLayout.setAlignItems(Alignment.BASELINE);
+        return batchLayout;
+    }
 
-        Symbol barcode = null;
-        switch (type) {
-            case "AustraliaPost":
-                barcode = new AustraliaPost();
-                break;
-            case "AztecCode":
-                barcode = new AztecCode();
-                break;
-            case "AztecRune":
-                barcode = new AztecRune();
-                break;
-            case "ChannelCode":
-                barcode = new ChannelCode();
-                break;
-            case "Codabar":
-                barcode = new Codabar();
-                break;
-            case "CodablockF":
-                barcode = new CodablockF();
-                break;
-            case "Code2Of5":
-                barcode = new Code2Of5();
-                break;
-            case "Code3Of9":
-                barcode = new Code3Of9();
-                break;
-            case "Code3Of9Extended":
-                barcode = new Code3Of9Extended();
-                break;
-            case "Code11":
-                barcode = new Code11();
-                break;
-            case "Code16k":
-                barcode = new Code16k();
-                break;
-            case "Code32":
-                barcode = new Code32();
-                break;
-            case "Code49":
-                barcode = new Code49();
-                break;
-            case "Code93":
-                barcode = new Code93();
-                break;
-            case "Code128":
-                barcode = new Code128();
-                break;
-            case "CodeOne":
-                barcode = new CodeOne();
-                break;
-            case "Composite":
-                barcode = new Composite();
-                break;
-            case "DataBar14":
-                barcode = new DataBar14();
-                break;
-            case "DataBarExpanded":
-                barcode = new DataBarExpanded();
-                break;
-            case "DataBarLimited":
-                barcode = new DataBarLimited();
-                break;
-            case "DataMatrix":
-                barcode = new DataMatrix();
-                break;
-            case "Ean":
-                barcode = new Ean();
-                break;
-            case "EanUpcAddOn":
-                barcode = new EanUpcAddOn();
-                break;
-            case "GridMatrix":
-                barcode = new GridMatrix();
-                break;
-            case "JapanPost":
-                barcode = new JapanPost();
-                break;
-            case "KixCode":
-                barcode = new KixCode();
-                break;
-            case "KoreaPost":
-                barcode = new KoreaPost();
-                break;
-            case "Logmars":
-                barcode = new Logmars();
-                break;
-            case "MaxiCode":
-                barcode = new MaxiCode();
-                break;
-            case "MicroQrCode":
-                barcode = new MicroQrCode();
-                break;
-            case "MsiPlessey":
-                barcode = new MsiPlessey();
-                break;
-            case "Nve18":
-                barcode = new Nve18();
-                break;
-            case "Pdf417":
-                barcode = new Pdf417();
-                break;
-            case "Pharmacode":
-                barcode = new Pharmacode();
-                break;
-            case "Pharmacode2Track":
-                barcode = new Pharmacode2Track();
-                break;
-            case "Pharmazentralnummer":
-                barcode = new Pharmazentralnummer();
-                break;
-            case "Plessey":
-                barcode = new Plessey();
-                break;
-            case "Postnet":
-                barcode = new Postnet();
-                break;
-            case "QrCode":
-                barcode = new QrCode();
-                break;
-            case "RoyalMail4State":
-                barcode = new RoyalMail4State();
-                break;
-            case "Telepen":
-                barcode = new Telepen();
-                break;
-            case "Upc":
-                barcode = new Upc();
-                break;
-            case "UspsOneCode":
-                barcode = new UspsOneCode();
-                break;
-            case "UspsPackage":
-                barcode = new UspsPackage();
-                break;
-            default:
-                break;
+    private void downloadBatch(String symbology, List<String> contents, String format) {
+        // a download that was never fetched holds its contents until the next one replaces it
+        if (batchRegistration != null) {
+            batchRegistration.unregister();
+            batchRegistration = null;
         }
 
-        if (barcode != null) {
-            barcode.setQuietZoneHorizontal(5);
-            barcode.setQuietZoneVertical(5);
-            barcode.setFontName("Arial");
-            barcode.setFontSize(14);
-            barcode.setContent(textField.getValue());
+        String extension = PDF.equals(format) ? ".pdf" : ".zip";
+        AtomicReference<StreamRegistration> registration = new AtomicReference<>();
+        StreamResource resource = new StreamResource(symbology + extension, (stream, session) -> {
+            try {
+                switch (format) {
+                    case ZIP_PNG -> batchService.writeZip(symbology, contents, ImageFormat.PNG, stream);
+                    case PDF -> batchService.writePdf(symbology, contents, stream);
+                    default -> batchService.writeZip(symbology, contents, ImageFormat.SVG, stream);
+                }
+            } finally {
+                // written once, so the contents need not stay in the session
+                session.access(() -> unregisterBatch(registration.get()));
+            }
+        });
+        batchRegistration = VaadinSession.getCurrent().getResourceRegistry().registerResource(resource);
+        registration.set(batchRegistration);
+        UI.getCurrent().getPage().open(batchRegistration.getResourceUri().toString());
+    }
 
-            ByteArrayOutputStream stream = new ByteArrayOutputStream();
-            SvgRenderer renderer = new SvgRenderer(stream, 1.0, Color.WHITE, Color.BLACK, true);
+    private void unregisterBatch(StreamRegistration registration) {
+        registration.unregister();
+        if (batchRegistration == registration) {
+            batchRegistration = null;
+        }
+    }
 
-            try {
-                renderer.render(barcode);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+    private void getSvgContent() {
+        if (!textField.getValue().isEmpty()) {
+            String svg = generateBarcode();
+            if (svg != null) {
+                barcode.setContent(svg);
             }
+        }
+    }
 
-            return stream.toString();
+    @Nullable
+    private String generateBarcode() {
+        BarcodeType type = barcodeType.getValue();
+
+        if (type == null || type.getType().isBlank()) {
+            return null;
         }
 
-        return null;
+        return renderer.render(type.getType(), textField.getValue());
     }
 }
@@ -1,6 +1,7 @@
 package com.eugentia.app.views.collaborativemasterdetail;
 
 import com.eugentia.app.data.entity.SamplePerson;
+import com.eugentia.app.data.service.KeysetPager;
 import com.eugentia.app.data.service.SamplePersonService;
 import com.vaadin.collaborationengine.CollaborationAvatarGroup;
 import com.vaadin.collaborationengine.CollaborationBinder;
@@ -27,7 +28,6 @@ import com.vaadin.flow.data.renderer.LitRenderer;
 import com.vaadin.flow.router.*;
 import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import jakarta.annotation.security.RolesAllowed;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.util.Optional;
@@ -48,6 +48,8 @@ public class CollaborativeMasterDetailView extends Div implements BeforeEnterObs
     private final Button save = new Button("Save");
     private final CollaborationBinder<SamplePerson> binder;
     private final SamplePersonService samplePersonService;
+
+    private final KeysetPager<SamplePerson> pager;
     CollaborationAvatarGroup avatarGroup;
     private TextField firstName;
     private TextField lastName;
@@ -61,6 +63,7 @@ public class CollaborativeMasterDetailView extends Div implements BeforeEnterObs
 
     public CollaborativeMasterDetailView(SamplePersonService samplePersonService) {
         this.samplePersonService = samplePersonService;
+        this.pager = samplePersonService.pager();
         addClassNames("collaborative-master-detail-view");
 
         // UserInfo is used by Collaboration Engine and is used to share details
@@ -99,9 +102,8 @@ public class CollaborativeMasterDetailView extends Div implements BeforeEnterObs
 
         grid.addColumn(importantRenderer).setHeader("Important").setAutoWidth(true);
 
-        grid.setItems(query -> samplePersonService.list(
-                        PageRequest.of(query.getPage(), query.getPageSize(), VaadinSpringDataHelpers.toSpringDataSort(query)))
-                .stream());
+        grid.setItems(query -> pager.fetch(query.getOffset(), query.getLimit(),
+                VaadinSpringDataHelpers.toSpringDataSort(query)));
         grid.addThemeVariants(GridVariant.LUMO_NO_BORDER);
 
         // when a row is selected or deselected, populate form
@@ -210,6 +212,7 @@ public class CollaborativeMasterDetailView extends Div implements BeforeEnterObs
 
     private void refreshGrid() {
         grid.select(null);
+        pager.reset();
         grid.getDataProvider().refreshAll();
     }
 
@@ -1,5 +1,6 @@
 package com.eugentia.app.views.datagrid;
 
+import com.eugentia.app.components.GridFilterModel;
 import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.datepicker.DatePicker;
 import com.vaadin.flow.component.grid.Grid;
@@ -28,7 +29,6 @@ import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
-import org.apache.commons.lang3.StringUtils;
 
 @PageTitle("Data Grid")
 @Menu(icon = "line-awesome/svg/th-solid.svg", order = 3)
@@ -38,6 +38,8 @@ public class DataGridView extends Div {
 
     private GridPro<Client> grid;
     private GridListDataView<Client> gridListDataView;
+    private List<Client> clients;
+    private GridFilterModel<Client> filterModel;
 
     private Grid.Column<Client> clientColumn;
     private Grid.Column<Client> amountColumn;
@@ -63,7 +65,7 @@ public class DataGridView extends Div {
         grid.addThemeVariants(GridVariant.LUMO_NO_BORDER, GridVariant.LUMO_COLUMN_BORDERS);
         grid.setHeight("100%");
 
-        List<Client> clients = getClients();
+        clients = getClients();
         gridListDataView = grid.setItems(clients);
     }
 
@@ -120,8 +122,6 @@ public class DataGridView extends Div {
         clientFilter.setClearButtonVisible(true);
         clientFilter.setWidth("100%");
         clientFilter.setValueChangeMode(ValueChangeMode.EAGER);
-        clientFilter.addValueChangeListener(event -> gridListDataView
-                .addFilter(client -> StringUtils.containsIgnoreCase(client.getClient(), clientFilter.getValue())));
         filterRow.getCell(clientColumn).setComponent(clientFilter);
 
         TextField amountFilter = new TextField();
@@ -129,8 +129,6 @@ public class DataGridView extends Div {
         amountFilter.setClearButtonVisible(true);
         amountFilter.setWidth("100%");
         amountFilter.setValueChangeMode(ValueChangeMode.EAGER);
-        amountFilter.addValueChangeListener(event -> gridListDataView.addFilter(client -> StringUtils
-                .containsIgnoreCase(Double.toString(client.getAmount()), amountFilter.getValue())));
         filterRow.getCell(amountColumn).setComponent(amountFilter);
 
         ComboBox<String> statusFilter = new ComboBox<>();
@@ -138,34 +136,20 @@ public class DataGridView extends Div {
         statusFilter.setPlaceholder("Filter");
         statusFilter.setClearButtonVisible(true);
         statusFilter.setWidth("100%");
-        statusFilter.addValueChangeListener(
-                event -> gridListDataView.addFilter(client -> areStatusesEqual(client, statusFilter)));
         filterRow.getCell(statusColumn).setComponent(statusFilter);
 
         DatePicker dateFilter = new DatePicker();
         dateFilter.setPlaceholder("Filter");
         dateFilter.setClearButtonVisible(true);
         dateFilter.setWidth("100%");
-        dateFilter.addValueChangeListener(
-                event -> gridListDataView.addFilter(client -> areDatesEqual(client, dateFilter)));
         filterRow.getCell(dateColumn).setComponent(dateFilter);
-    }
-
-    private boolean areStatusesEqual(Client client, ComboBox<String> statusFilter) {
-        String statusFilterValue = statusFilter.getValue();
-        if (statusFilterValue != null) {
-            return StringUtils.equals(client.getStatus(), statusFilterValue);
-        }
-        return true;
-    }
 
-    private boolean areDatesEqual(Client client, DatePicker dateFilter) {
-        LocalDate dateFilterValue = dateFilter.getValue();
-        if (dateFilterValue != null) {
-            LocalDate clientDate = LocalDate.parse(client.getDate());
-            return dateFilterValue.equals(clientDate);
-        }
-        return true;
+        filterModel = new GridFilterModel<>(gridListDataView, clients)
+                .addTextFilter(clientFilter, Client::getClient)
+                .addTextFilter(amountFilter, client -> Double.toString(client.getAmount()))
+                .addEqualsFilter(statusFilter, Client::getStatus)
+                .addEqualsFilter(dateFilter, client -> LocalDate.parse(client.getDate()));
+        grid.addItemPropertyChangedListener(event -> filterModel.refreshItem(event.getItem()));
     }
 
     private List<Client> getClients() {
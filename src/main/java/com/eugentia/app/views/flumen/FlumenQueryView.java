@@ -0,0 +1,138 @@
+package com.eugentia.app.views.flumen;
+
+import com.eugentia.app.flumen.FlumenDocument;
+import com.eugentia.app.flumen.FlumenParserService;
+import com.eugentia.app.flumen.ParsedModel;
+import com.eugentia.app.flumen.SyntaxError;
+import com.eugentia.app.flumen.rules.CompiledQuery;
+import com.eugentia.app.flumen.rules.QueryExecutor;
+import com.eugentia.app.flumen.rules.RuleCompiler;
+import com.eugentia.app.flumen.rules.RuleEngine;
+import com.eugentia.app.flumen.store.FlumenFactLoader;
+import com.eugentia.app.flumen.store.TripleStore;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.GridVariant;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.textfield.TextArea;
+import com.vaadin.flow.data.value.ValueChangeMode;
+import com.vaadin.flow.router.Menu;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.Route;
+import jakarta.annotation.security.RolesAllowed;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@PageTitle("Flumen Query")
+@Menu(icon = "line-awesome/svg/project-diagram-solid.svg", order = 18)
+@Route(value = "flumen-query")
+@RolesAllowed("USER")
+public class FlumenQueryView extends VerticalLayout {
+
+    private final FlumenParserService parserService;
+
+    private final TextArea model = new TextArea("Model");
+
+    /**
+     * The model text, re-parsed statement by statement as it is edited.
+     */
+    private final FlumenDocument document = new FlumenDocument("");
+
+    private final ComboBox<CompiledQuery> queries = new ComboBox<>("Query");
+
+    private final Span status = new Span();
+
+    private final Grid<String[]> grid = new Grid<>();
+
+    private QueryExecutor executor;
+
+    public FlumenQueryView(FlumenParserService parserService) {
+        this.parserService = parserService;
+
+        setSizeFull();
+        model.setWidthFull();
+        model.setHeight("40%");
+        model.setValueChangeMode(ValueChangeMode.LAZY);
+        model.addValueChangeListener(event -> validate());
+
+        Button run = new Button("Run", event -> load());
+        queries.setItemLabelGenerator(CompiledQuery::name);
+        queries.addValueChangeListener(event -> show(event.getValue()));
+
+        HorizontalLayout toolbar = new HorizontalLayout(run, queries, status);
+        toolbar.setDefaultVerticalComponentAlignment(Alignment.BASELINE);
+
+        grid.addThemeVariants(GridVariant.LUMO_COLUMN_BORDERS);
+        grid.setSizeFull();
+
+        add(model, toolbar, grid);
+    }
+
+    /**
+     * @return the syntax errors of the current text
+     */
+    private List<SyntaxError> validate() {
+        document.setSource(model.getValue());
+        List<SyntaxError> errors = document.getErrors();
+        model.setInvalid(!errors.isEmpty());
+        model.setErrorMessage(errors.isEmpty() ? null
+                : errors.getFirst() + (errors.size() > 1 ? " (" + (errors.size() - 1) + " more)" : ""));
+        return errors;
+    }
+
+    private void load() {
+        List<SyntaxError> errors = validate();
+        if (!errors.isEmpty()) {
+            Notification.show(errors.stream().map(SyntaxError::toString).collect(Collectors.joining("\n")));
+            return;
+        }
+
+        // the rules and queries are compiled from the whole tree, cached by the parser service
+        ParsedModel parsed = parserService.parse(model.getValue());
+        if (parsed.hasErrors()) {
+            Notification.show(parsed.errors().stream().map(SyntaxError::toString).collect(Collectors.joining("\n")));
+            return;
+        }
+
+        try {
+            TripleStore store = new TripleStore();
+            int facts = new FlumenFactLoader(store).load(parsed);
+
+            RuleCompiler compiler = new RuleCompiler(store.getDictionary());
+            RuleEngine engine = new RuleEngine(store);
+            engine.addRules(compiler.compile(parsed.tree()));
+            int inferred = engine.run();
+
+            List<CompiledQuery> compiled = compiler.compileQueries(parsed.tree());
+            executor = new QueryExecutor(store);
+            status.setText(facts + " facts, " + inferred + " inferred");
+            queries.setItems(compiled);
+            queries.setValue(compiled.isEmpty() ? null : compiled.getFirst());
+        } catch (IllegalArgumentException e) {
+            Notification.show(e.getMessage());
+        }
+    }
+
+    private void show(CompiledQuery query) {
+        grid.removeAllColumns();
+        if (query == null) {
+            grid.setItems(List.of());
+            return;
+        }
+
+        List<String> columns = query.columns().isEmpty() ? List.of("result") : query.columns();
+        for (int i = 0; i < columns.size(); i++) {
+            int column = i;
+            grid.addColumn(row -> row[column]).setHeader(columns.get(i)).setAutoWidth(true);
+        }
+
+        // rows are fetched page by page as the grid scrolls
+        QueryExecutor executor = this.executor;
+        grid.setItems(page -> executor.execute(query, page.getOffset(), page.getLimit()));
+    }
+}
@@ -1,6 +1,10 @@
 package com.eugentia.app.views.gridwithfilters;
 
 import com.eugentia.app.data.entity.SamplePerson;
+import com.eugentia.app.data.entity.SearchKeys;
+import com.eugentia.app.data.service.CacheableSpecification;
+import com.eugentia.app.data.service.KeysetPager;
+import com.eugentia.app.data.service.SamplePersonSearch;
 import com.eugentia.app.data.service.SamplePersonService;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.Text;
@@ -28,13 +32,12 @@ import com.vaadin.flow.theme.lumo.LumoUtility;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import java.util.ArrayList;
 import java.util.List;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.jpa.domain.Specification;
+import java.util.Optional;
+import java.util.TreeSet;
 
 @PageTitle("Grid with Filters")
 @Menu(icon = "line-awesome/svg/filter-solid.svg", order = 15)
@@ -46,6 +49,7 @@ public class GridwithFiltersView extends Div {
     private Grid<SamplePerson> grid;
 
     private Filters filters;
+    private KeysetPager<SamplePerson> pager;
     private final SamplePersonService samplePersonService;
 
     public GridwithFiltersView(SamplePersonService SamplePersonService) {
@@ -54,6 +58,7 @@ public class GridwithFiltersView extends Div {
         addClassNames("gridwith-filters-view");
 
         filters = new Filters(() -> refreshGrid());
+        pager = samplePersonService.pager(filters);
         VerticalLayout layout = new VerticalLayout(createMobileFilters(), filters, createGrid());
         layout.setSizeFull();
         layout.setPadding(false);
@@ -85,7 +90,7 @@ public class GridwithFiltersView extends Div {
         return mobileFilters;
     }
 
-    public static class Filters extends Div implements Specification<SamplePerson> {
+    public static class Filters extends Div implements CacheableSpecification<SamplePerson> {
 
         private final TextField name = new TextField("Name");
         private final TextField phone = new TextField("Phone");
@@ -151,23 +156,12 @@ public class GridwithFiltersView extends Div {
             List<Predicate> predicates = new ArrayList<>();
 
             if (!name.isEmpty()) {
-                String lowerCaseFilter = name.getValue().toLowerCase();
-                Predicate firstNameMatch = criteriaBuilder.like(criteriaBuilder.lower(root.get("firstName")),
-                        lowerCaseFilter + "%");
-                Predicate lastNameMatch = criteriaBuilder.like(criteriaBuilder.lower(root.get("lastName")),
-                        lowerCaseFilter + "%");
-                predicates.add(criteriaBuilder.or(firstNameMatch, lastNameMatch));
+                predicates.add(SamplePersonSearch.nameStartsWith(name.getValue())
+                        .toPredicate(root, query, criteriaBuilder));
             }
             if (!phone.isEmpty()) {
-                String databaseColumn = "phone";
-                String ignore = "- ()";
-
-                String lowerCaseFilter = ignoreCharacters(ignore, phone.getValue().toLowerCase());
-                Predicate phoneMatch = criteriaBuilder.like(
-                        ignoreCharacters(ignore, criteriaBuilder, criteriaBuilder.lower(root.get(databaseColumn))),
-                        "%" + lowerCaseFilter + "%");
-                predicates.add(phoneMatch);
-
+                predicates.add(SamplePersonSearch.phoneContains(phone.getValue())
+                        .toPredicate(root, query, criteriaBuilder));
             }
             if (startDate.getValue() != null) {
                 String databaseColumn = "dateOfBirth";
@@ -199,24 +193,16 @@ public class GridwithFiltersView extends Div {
             return criteriaBuilder.and(predicates.toArray(Predicate[]::new));
         }
 
-        private String ignoreCharacters(String characters, String in) {
-            String result = in;
-            for (int i = 0; i < characters.length(); i++) {
-                result = result.replace("" + characters.charAt(i), "");
-            }
-            return result;
-        }
-
-        private Expression<String> ignoreCharacters(String characters, CriteriaBuilder criteriaBuilder,
-                Expression<String> inExpression) {
-            Expression<String> expression = inExpression;
-            for (int i = 0; i < characters.length(); i++) {
-                expression = criteriaBuilder.function("replace", String.class, expression,
-                        criteriaBuilder.literal(characters.charAt(i)), criteriaBuilder.literal(""));
-            }
-            return expression;
+        /**
+         * The filter values as {@link #toPredicate} applies them, with multi-select values sorted.
+         */
+        @Override
+        public Object cacheKey() {
+            return List.of(String.valueOf(SearchKeys.text(name.getValue())),
+                    phone.isEmpty() ? Optional.empty() : Optional.ofNullable(SearchKeys.digits(phone.getValue())),
+                    String.valueOf(startDate.getValue()), String.valueOf(endDate.getValue()),
+                    new TreeSet<>(occupations.getValue()), new TreeSet<>(roles.getValue()));
         }
-
     }
 
     private Component createGrid() {
@@ -229,9 +215,10 @@ public class GridwithFiltersView extends Div {
         grid.addColumn("occupation").setAutoWidth(true);
         grid.addColumn("role").setAutoWidth(true);
 
-        grid.setItems(query -> samplePersonService.list(
-                PageRequest.of(query.getPage(), query.getPageSize(), VaadinSpringDataHelpers.toSpringDataSort(query)),
-                filters).stream());
+        // the count is cached per filter, so it costs one COUNT query per search
+        grid.setItems(query -> pager.fetch(query.getOffset(), query.getLimit(),
+                VaadinSpringDataHelpers.toSpringDataSort(query)),
+                query -> (int) samplePersonService.count(filters));
         grid.addThemeVariants(GridVariant.LUMO_NO_BORDER);
         grid.addClassNames(LumoUtility.Border.TOP, LumoUtility.BorderColor.CONTRAST_10);
 
@@ -239,6 +226,7 @@ public class GridwithFiltersView extends Div {
     }
 
     private void refreshGrid() {
+        pager.reset();
         grid.getDataProvider().refreshAll();
     }
 
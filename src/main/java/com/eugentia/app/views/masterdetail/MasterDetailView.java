@@ -1,7 +1,11 @@
 package com.eugentia.app.views.masterdetail;
 
 import com.eugentia.app.data.entity.SamplePerson;
+import com.eugentia.app.data.service.KeysetPager;
 import com.eugentia.app.data.service.SamplePersonService;
+import com.eugentia.app.data.service.SearchService;
+import com.eugentia.app.search.SearchHit;
+import com.eugentia.app.search.SearchIndexer;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
@@ -21,6 +25,7 @@ import com.vaadin.flow.component.splitlayout.SplitLayout;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.binder.BeanValidationBinder;
 import com.vaadin.flow.data.binder.ValidationException;
+import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.data.renderer.LitRenderer;
 import com.vaadin.flow.router.BeforeEnterEvent;
 import com.vaadin.flow.router.BeforeEnterObserver;
@@ -29,8 +34,10 @@ import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import jakarta.annotation.security.RolesAllowed;
+import java.util.List;
 import java.util.Optional;
-import org.springframework.data.domain.PageRequest;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Pageable;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 @PageTitle("Master-Detail")
@@ -45,6 +52,8 @@ public class MasterDetailView extends Div implements BeforeEnterObserver {
 
     private final Grid<SamplePerson> grid = new Grid<>(SamplePerson.class, false);
 
+    private final TextField search = new TextField();
+
     private TextField firstName;
     private TextField lastName;
     private TextField email;
@@ -63,8 +72,14 @@ public class MasterDetailView extends Div implements BeforeEnterObserver {
 
     private final SamplePersonService samplePersonService;
 
-    public MasterDetailView(SamplePersonService samplePersonService) {
+    private final SearchService searchService;
+
+    private final KeysetPager<SamplePerson> pager;
+
+    public MasterDetailView(SamplePersonService samplePersonService, SearchService searchService) {
         this.samplePersonService = samplePersonService;
+        this.searchService = searchService;
+        this.pager = samplePersonService.pager();
         addClassNames("master-detail-view");
 
         // Create UI
@@ -92,9 +107,9 @@ public class MasterDetailView extends Div implements BeforeEnterObserver {
 
         grid.addColumn(importantRenderer).setHeader("Important").setAutoWidth(true);
 
-        grid.setItems(query -> samplePersonService.list(
-                PageRequest.of(query.getPage(), query.getPageSize(), VaadinSpringDataHelpers.toSpringDataSort(query)))
-                .stream());
+        grid.setItems(query -> search.getValue().isBlank()
+                ? pager.fetch(query.getOffset(), query.getLimit(), VaadinSpringDataHelpers.toSpringDataSort(query))
+                : searchPersons(VaadinSpringDataHelpers.toSpringPageRequest(query)));
         grid.addThemeVariants(GridVariant.LUMO_NO_BORDER);
 
         // when a row is selected or deselected, populate form
@@ -195,14 +210,32 @@ public class MasterDetailView extends Div implements BeforeEnterObserver {
     }
 
     private void createGridLayout(SplitLayout splitLayout) {
+        search.setPlaceholder("Search");
+        search.setWidthFull();
+        search.setClearButtonVisible(true);
+        search.setSuffixComponent(new Icon("lumo", "search"));
+        search.setValueChangeMode(ValueChangeMode.LAZY);
+        search.addValueChangeListener(e -> refreshGrid());
+
         Div wrapper = new Div();
         wrapper.setClassName("grid-wrapper");
         splitLayout.addToPrimary(wrapper);
-        wrapper.add(grid);
+        wrapper.add(search, grid);
+    }
+
+    /**
+     * Persons ranked by the full-text search, which ignores the sort of the grid.
+     */
+    private Stream<SamplePerson> searchPersons(Pageable pageable) {
+        List<Long> ids = searchService.search(search.getValue(), SearchIndexer.PERSON, pageable).stream()
+                .map(SearchHit::id)
+                .toList();
+        return samplePersonService.get(ids).stream();
     }
 
     private void refreshGrid() {
         grid.select(null);
+        pager.reset();
         grid.getDataProvider().refreshAll();
     }
 
@@ -1,13 +1,18 @@
 package com.eugentia.app.views.pdf;
 
+import com.eugentia.app.components.PdfPageStrip;
+import com.eugentia.app.pdf.PdfDocumentInfo;
+import com.eugentia.app.pdf.PdfPageHandler;
+import com.eugentia.app.pdf.PdfPageService;
 import com.vaadin.componentfactory.pdfviewer.PdfViewer;
 import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.router.Menu;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
-import com.vaadin.flow.server.StreamResource;
 import jakarta.annotation.security.RolesAllowed;
+import org.springframework.beans.factory.annotation.Autowired;
 
 @PageTitle("Source Change")
 @RolesAllowed("USER")
@@ -15,24 +20,37 @@ import jakarta.annotation.security.RolesAllowed;
 @Route(value = "source-change")
 public class SourceChangeExample extends VerticalLayout {
 
-    public SourceChangeExample() {
+    public SourceChangeExample(@Autowired PdfPageService pdfPageService) {
         setSizeFull();
 
         PdfViewer pdfViewer = new PdfViewer();
         pdfViewer.setSizeFull();
 
+        // server-rendered thumbnails instead of the viewer's own, which rasterize every page in the browser
+        PdfPageStrip pageStrip = new PdfPageStrip();
+        pageStrip.setHeightFull();
+        pageStrip.addItemClickListener(e -> pdfViewer.setPage(e.getItem()));
+
         ComboBox<String> filesComboBox = new ComboBox<>("Select PDF");
         filesComboBox.setWidth("300px");
         filesComboBox.setPlaceholder("Select a file");
         filesComboBox.setItems("bitcoin.pdf", "example.pdf", "example-invoice.pdf");
         filesComboBox.addValueChangeListener(e -> {
             String filename = e.getValue();
-            StreamResource resource = new StreamResource(filename,
-                    () -> getClass().getResourceAsStream("/pdf/" + filename));
-            pdfViewer.setSrc(resource);
+            if (filename == null) {
+                return;
+            }
+            PdfDocumentInfo document = pdfPageService.registerResource("/pdf/" + filename);
+            pageStrip.setDocument(document);
+            // served with range support, so the viewer only loads the parts of the document it shows
+            pdfViewer.setSrc(PdfPageHandler.getUrl(document));
         });
 
-        add(filesComboBox, pdfViewer);
+        HorizontalLayout content = new HorizontalLayout(pageStrip, pdfViewer);
+        content.setSizeFull();
+        content.setFlexGrow(1, pdfViewer);
+
+        add(filesComboBox, content);
     }
 
 }
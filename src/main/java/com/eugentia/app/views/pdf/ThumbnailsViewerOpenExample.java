@@ -1,12 +1,15 @@
 package com.eugentia.app.views.pdf;
 
+import com.eugentia.app.pdf.PdfDocumentInfo;
+import com.eugentia.app.pdf.PdfPageHandler;
+import com.eugentia.app.pdf.PdfPageService;
 import com.vaadin.componentfactory.pdfviewer.PdfViewer;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.router.Menu;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
-import com.vaadin.flow.server.StreamResource;
 import jakarta.annotation.security.RolesAllowed;
+import org.springframework.beans.factory.annotation.Autowired;
 
 @PageTitle("Thumnails Open")
 @RolesAllowed("USER")
@@ -14,13 +17,15 @@ import jakarta.annotation.security.RolesAllowed;
 @Route(value = "thumbnails-open")
 public class ThumbnailsViewerOpenExample extends VerticalLayout {
 
-    public ThumbnailsViewerOpenExample() {
+    public ThumbnailsViewerOpenExample(@Autowired PdfPageService pdfPageService) {
         setSizeFull();
 
+        PdfDocumentInfo document = pdfPageService.registerResource("/pdf/example.pdf");
+
         PdfViewer pdfViewer = new PdfViewer();
         pdfViewer.setSizeFull();
-        StreamResource resource = new StreamResource("example.pdf", () -> getClass().getResourceAsStream("/pdf/example.pdf"));
-        pdfViewer.setSrc(resource);
+        // served with range support, so the viewer only loads the parts of the document it shows
+        pdfViewer.setSrc(PdfPageHandler.getUrl(document));
         pdfViewer.openThumbnailsView();
         add(pdfViewer);
     }
@@ -0,0 +1,84 @@
+package com.eugentia.app.views.spreadsheet;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTFont;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Interns cell styles and fonts of one workbook by their effective attributes, so formatting
+ * a large selection adds at most one style per distinct result instead of one per cell.
+ * <p>
+ * Candidates are computed on copies of the XML definitions that are not part of the workbook; a
+ * real style or font is only created when no existing one has the same definition. Fills, borders
+ * and number formats set on a candidate are interned by the workbook's styles table itself.
+ */
+class CellStyleCache {
+
+    private final XSSFWorkbook workbook;
+
+    private final Map<String, XSSFCellStyle> stylesByDefinition = new HashMap<>();
+
+    private final Map<String, XSSFFont> fontsByDefinition = new HashMap<>();
+
+    // (source style index, operation) -> resulting style
+    private final Map<String, XSSFCellStyle> results = new HashMap<>();
+
+    CellStyleCache(XSSFWorkbook workbook) {
+        this.workbook = workbook;
+
+        for (int i = 0; i < workbook.getNumCellStyles(); i++) {
+            XSSFCellStyle style = workbook.getCellStyleAt(i);
+            stylesByDefinition.putIfAbsent(style.getCoreXf().toString(), style);
+        }
+        for (int i = 0; i < workbook.getNumberOfFonts(); i++) {
+            XSSFFont font = workbook.getFontAt(i);
+            fontsByDefinition.putIfAbsent(font.getCTFont().toString(), font);
+        }
+    }
+
+    boolean isFor(Object workbook) {
+        return this.workbook == workbook;
+    }
+
+    /**
+     * Returns the style that results from applying an operation to a source style.
+     *
+     * @param source       current style of the cell
+     * @param operationKey identifies the operation; equal keys must mean equal operations
+     * @param operation    modifies a copy of the source style
+     */
+    XSSFCellStyle getStyle(CellStyle source, String operationKey, Consumer<XSSFCellStyle> operation) {
+        return results.computeIfAbsent(source.getIndex() + ":" + operationKey, key -> {
+            // a style of the workbook's styles table, but not in it
+            XSSFCellStyle candidate = new XSSFCellStyle(workbook.getStylesSource());
+            candidate.getCoreXf().set(workbook.getCellStyleAt(source.getIndex()).getCoreXf());
+            operation.accept(candidate);
+
+            return stylesByDefinition.computeIfAbsent(candidate.getCoreXf().toString(), definition -> {
+                XSSFCellStyle style = workbook.createCellStyle();
+                style.getCoreXf().set(candidate.getCoreXf());
+                return style;
+            });
+        });
+    }
+
+    /**
+     * Returns the font that results from applying an operation to the font of a style.
+     */
+    XSSFFont getFont(CellStyle source, Consumer<XSSFFont> operation) {
+        XSSFFont candidate = new XSSFFont((CTFont) workbook.getFontAt(source.getFontIndex()).getCTFont().copy());
+        operation.accept(candidate);
+
+        return fontsByDefinition.computeIfAbsent(candidate.getCTFont().toString(), definition -> {
+            XSSFFont font = workbook.createFont();
+            font.getCTFont().set(candidate.getCTFont());
+            return font;
+        });
+    }
+}
@@ -52,7 +52,6 @@ import org.apache.poi.ss.usermodel.ClientAnchor;
 import org.apache.poi.ss.usermodel.Comment;
 import org.apache.poi.ss.usermodel.CreationHelper;
 import org.apache.poi.ss.usermodel.Drawing;
-import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.RichTextString;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellRangeAddress;
@@ -60,6 +59,7 @@ import org.apache.poi.ss.util.CellReference;
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
 import org.apache.poi.xssf.usermodel.XSSFColor;
 import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -74,6 +74,7 @@ public class SpreadsheetView extends VerticalLayout implements Receiver {
     private Spreadsheet spreadsheet;
     private H3 invoiceNumber;
     private Span invoiceSource;
+    private CellStyleCache cellStyleCache;
 
     public SpreadsheetView() throws IOException, URISyntaxException {
         setSizeFull();
@@ -205,37 +206,37 @@ public class SpreadsheetView extends VerticalLayout implements Receiver {
         SubMenu formatSubMenu = formatMenu.getSubMenu();
 
         createIconItem(formatSubMenu, VaadinIcon.BOLD, "Bold", "Bold",
-                e -> changeSelectedCellsFont(font -> font.setBold(!font.getBold())));
+                e -> changeSelectedCellsFont("bold", font -> font.setBold(!font.getBold())));
         createIconItem(formatSubMenu, VaadinIcon.ITALIC, "Italic", "Italic",
-                e -> changeSelectedCellsFont(font -> font.setItalic(!font.getItalic())));
+                e -> changeSelectedCellsFont("italic", font -> font.setItalic(!font.getItalic())));
 
         MenuItem colorMenu = formatSubMenu.addItem("Color");
         SubMenu colorSubMenu = colorMenu.getSubMenu();
 
         MenuItem textColorMenu = colorSubMenu.addItem("Text");
         textColorMenu.getSubMenu().addItem("Black",
-                e -> changeSelectedCellsFont(font -> font.setColor(new XSSFColor(Color.BLACK, null))));
+                e -> changeSelectedCellsFont("color:Black", font -> font.setColor(new XSSFColor(Color.BLACK, null))));
         textColorMenu.getSubMenu().addItem("Blue",
-                e -> changeSelectedCellsFont(font -> font.setColor(new XSSFColor(Color.BLUE, null))));
+                e -> changeSelectedCellsFont("color:Blue", font -> font.setColor(new XSSFColor(Color.BLUE, null))));
         textColorMenu.getSubMenu().addItem("Red",
-                e -> changeSelectedCellsFont(font -> font.setColor(new XSSFColor(Color.RED, null))));
+                e -> changeSelectedCellsFont("color:Red", font -> font.setColor(new XSSFColor(Color.RED, null))));
         textColorMenu.getSubMenu().addItem("Green",
-                e -> changeSelectedCellsFont(font -> font.setColor(new XSSFColor(Color.GREEN, null))));
+                e -> changeSelectedCellsFont("color:Green", font -> font.setColor(new XSSFColor(Color.GREEN, null))));
         textColorMenu.getSubMenu().addItem("Orange",
-                e -> changeSelectedCellsFont(font -> font.setColor(new XSSFColor(Color.ORANGE, null))));
+                e -> changeSelectedCellsFont("color:Orange", font -> font.setColor(new XSSFColor(Color.ORANGE, null))));
 
         MenuItem backgroundColorMenu = colorSubMenu.addItem("Background");
-        backgroundColorMenu.getSubMenu().addItem("Light gray", e -> changeSelectedCellsStyle(
+        backgroundColorMenu.getSubMenu().addItem("Light gray", e -> changeSelectedCellsStyle("background:Light gray",
                 cellStyle -> cellStyle.setFillBackgroundColor(new XSSFColor(Color.LIGHT_GRAY, null))));
-        backgroundColorMenu.getSubMenu().addItem("White", e -> changeSelectedCellsStyle(
+        backgroundColorMenu.getSubMenu().addItem("White", e -> changeSelectedCellsStyle("background:White",
                 cellStyle -> cellStyle.setFillBackgroundColor(new XSSFColor(Color.WHITE, null))));
-        backgroundColorMenu.getSubMenu().addItem("Cyan", e -> changeSelectedCellsStyle(
+        backgroundColorMenu.getSubMenu().addItem("Cyan", e -> changeSelectedCellsStyle("background:Cyan",
                 cellStyle -> cellStyle.setFillBackgroundColor(new XSSFColor(Color.CYAN, null))));
-        backgroundColorMenu.getSubMenu().addItem("Pink", e -> changeSelectedCellsStyle(
+        backgroundColorMenu.getSubMenu().addItem("Pink", e -> changeSelectedCellsStyle("background:Pink",
                 cellStyle -> cellStyle.setFillBackgroundColor(new XSSFColor(Color.PINK, null))));
-        backgroundColorMenu.getSubMenu().addItem("Yellow", e -> changeSelectedCellsStyle(
+        backgroundColorMenu.getSubMenu().addItem("Yellow", e -> changeSelectedCellsStyle("background:Yellow",
                 cellStyle -> cellStyle.setFillBackgroundColor(new XSSFColor(Color.YELLOW, null))));
-        backgroundColorMenu.getSubMenu().addItem("Dark gray", e -> changeSelectedCellsStyle(
+        backgroundColorMenu.getSubMenu().addItem("Dark gray", e -> changeSelectedCellsStyle("background:Dark gray",
                 cellStyle -> cellStyle.setFillBackgroundColor(new XSSFColor(Color.DARK_GRAY, null))));
 
         MenuItem mergeMenu = menuBar.addItem("Merge");
@@ -314,29 +315,35 @@ public class SpreadsheetView extends VerticalLayout implements Receiver {
         }
     }
 
-    private void changeSelectedCellsFont(Consumer<XSSFFont> fontConsumer) {
-        changeSelectedCellsStyle(cellStyle -> {
-            XSSFFont cellFont = (XSSFFont) cloneFont(cellStyle);
-            fontConsumer.accept(cellFont);
-            cellStyle.setFont(cellFont);
-        });
+    private void changeSelectedCellsFont(String operationKey, Consumer<XSSFFont> fontConsumer) {
+        changeSelectedCellsStyle("font:" + operationKey,
+                cellStyle -> cellStyle.setFont(getCellStyleCache().getFont(cellStyle, fontConsumer)));
     }
 
-    private void changeSelectedCellsStyle(Consumer<XSSFCellStyle> cellStyleConsumer) {
+    private void changeSelectedCellsStyle(String operationKey, Consumer<XSSFCellStyle> cellStyleConsumer) {
+        final CellStyleCache cache = getCellStyleCache();
         final ArrayList<Cell> cellsToRefresh = new ArrayList<>();
         spreadsheet.getSelectedCellReferences().forEach(cellReference -> {
             Cell cell = getOrCreateCell(cellReference);
             CellStyle cellStyle = cell.getCellStyle();
-            XSSFCellStyle newCellStyle = (XSSFCellStyle) spreadsheet.getWorkbook().createCellStyle();
-            newCellStyle.cloneStyleFrom(cellStyle);
-
-            cellStyleConsumer.accept(newCellStyle);
-
-            cell.setCellStyle(newCellStyle);
+            XSSFCellStyle newCellStyle = cache.getStyle(cellStyle, operationKey, cellStyleConsumer);
 
-            cellsToRefresh.add(cell);
+            if (newCellStyle.getIndex() != cellStyle.getIndex()) {
+                cell.setCellStyle(newCellStyle);
+                cellsToRefresh.add(cell);
+            }
         });
-        spreadsheet.refreshCells(cellsToRefresh);
+        if (!cellsToRefresh.isEmpty()) {
+            spreadsheet.refreshCells(cellsToRefresh);
+        }
+    }
+
+    private CellStyleCache getCellStyleCache() {
+        // a new workbook is loaded on import
+        if (cellStyleCache == null || !cellStyleCache.isFor(spreadsheet.getWorkbook())) {
+            cellStyleCache = new CellStyleCache((XSSFWorkbook) spreadsheet.getWorkbook());
+        }
+        return cellStyleCache;
     }
 
     private Cell getOrCreateCell(CellReference cellRef) {
@@ -347,23 +354,6 @@ public class SpreadsheetView extends VerticalLayout implements Receiver {
         return cell;
     }
 
-    private Font cloneFont(CellStyle cellstyle) {
-        Font newFont = spreadsheet.getWorkbook().createFont();
-        Font originalFont = spreadsheet.getWorkbook().getFontAt(cellstyle.getFontIndex());
-        if (originalFont != null) {
-            newFont.setBold(originalFont.getBold());
-            newFont.setItalic(originalFont.getItalic());
-            newFont.setFontHeight(originalFont.getFontHeight());
-            newFont.setUnderline(originalFont.getUnderline());
-            newFont.setStrikeout(originalFont.getStrikeout());
-            // This cast an only be done when using .xlsx files
-            XSSFFont originalXFont = (XSSFFont) originalFont;
-            XSSFFont newXFont = (XSSFFont) newFont;
-            newXFont.setColor(originalXFont.getXSSFColor());
-        }
-        return newFont;
-    }
-
     private MenuItem createCheckableItem(HasMenuItems menu, String item, boolean checked,
             ComponentEventListener<ClickEvent<MenuItem>> clickListener) {
         MenuItem menuItem = menu.addItem(item, clickListener);
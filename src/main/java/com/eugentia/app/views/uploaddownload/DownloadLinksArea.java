@@ -1,69 +1,88 @@
 package com.eugentia.app.views.uploaddownload;
 
-import com.vaadin.flow.component.html.Anchor;
+import com.eugentia.app.components.Debouncer;
+import com.eugentia.app.download.FileDownloadHandler;
+import com.eugentia.app.storage.FileCatalog;
+import com.eugentia.app.storage.StoredFile;
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.html.H4;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
-import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.data.renderer.LitRenderer;
+import com.vaadin.flow.shared.Registration;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.InputStream;
-import java.util.Objects;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
 
+/**
+ * Lists the stored files page by page. Links point to {@link FileDownloadHandler}, so rows cost no
+ * server-side resource until a file is actually downloaded.
+ */
 public class DownloadLinksArea extends VerticalLayout {
 
-    private final File uploadFolder;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)
+            .withZone(ZoneId.systemDefault());
 
-    public DownloadLinksArea(File uploadFolder) {
-        this.uploadFolder = uploadFolder;
-        refreshFileLinks();
+    private final FileCatalog catalog;
+
+    private final Grid<StoredFile> grid = new Grid<>();
+
+    private final Debouncer refreshDebouncer = new Debouncer(Duration.ofMillis(500));
+
+    private Registration catalogRegistration;
+
+    public DownloadLinksArea(FileCatalog catalog) {
+        this.catalog = catalog;
+
+        grid.addColumn(LitRenderer.<StoredFile>of("<a href='${item.url}' download>${item.name}</a>")
+                        .withProperty("url", file -> FileDownloadHandler.getUrl(file.name()))
+                        .withProperty("name", StoredFile::name))
+                .setHeader("Name").setSortProperty(FileCatalog.NAME).setFlexGrow(1);
+        grid.addColumn(file -> formatFileSize(file.size()))
+                .setHeader("Size").setSortProperty(FileCatalog.SIZE).setAutoWidth(true);
+        grid.addColumn(file -> DATE_FORMAT.format(file.lastModified()))
+                .setHeader("Uploaded").setSortProperty(FileCatalog.LAST_MODIFIED).setAutoWidth(true);
+        grid.setItems(query -> catalog.fetch(query.getOffset(), query.getLimit(),
+                VaadinSpringDataHelpers.toSpringDataSort(query)), query -> catalog.count());
+        grid.addThemeVariants(GridVariant.LUMO_NO_BORDER);
+
+        add(new H4("Download Links:"), grid);
         setMargin(true);
     }
 
     public void refreshFileLinks() {
-        removeAll();
-        add(new H4("Download Links:"));
+        grid.getDataProvider().refreshAll();
+    }
 
-        for (File file : Objects.requireNonNull(uploadFolder.listFiles())) {
-            addLinkToFile(file);
-        }
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        UI ui = attachEvent.getUI();
+        // uploads and files imported from the upload folder come in bursts
+        catalogRegistration = catalog.addChangeListener(
+                () -> ui.access(() -> refreshDebouncer.run(this::refreshFileLinks)));
     }
 
-    /**
-     * @param file
-     * @return
-     */
-    private String formatFileSize(File file) {
-        long size = file.length();
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        catalogRegistration.remove();
+        refreshDebouncer.cancel();
+    }
+
+    private static String formatFileSize(long size) {
         int i = 0;
 
         String[] units = new String[]{"B", "KB", "MB", "GB", "TB"};
 
-        long formattedSize = 0;
-
         for (; size >= 1024 && i < 4; i++) {
             size /= 1024;
-            formattedSize = Math.round(size);
         }
 
-        return String.format("%s (%d %s)", file.getName(), formattedSize, units[i]);
-    }
-
-    private void addLinkToFile(File file) {
-        StreamResource streamResource = new StreamResource(file.getName(), () -> getStream(file));
-        Anchor link = new Anchor(streamResource, formatFileSize(file));
-        link.getElement().setAttribute("download", true);
-        add(link);
-    }
-
-    private InputStream getStream(File file) {
-        FileInputStream stream = null;
-        try {
-            stream = new FileInputStream(file);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        }
-        return stream;
+        return String.format("%d %s", size, units[i]);
     }
 }
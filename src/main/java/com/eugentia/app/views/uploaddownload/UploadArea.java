@@ -1,35 +1,29 @@
 package com.eugentia.app.views.uploaddownload;
 
+import com.eugentia.app.components.ChunkedUpload;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
-import com.vaadin.flow.component.upload.MultiFileReceiver;
-import com.vaadin.flow.component.upload.Receiver;
-import com.vaadin.flow.component.upload.Upload;
 import lombok.Getter;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-
 public class UploadArea extends VerticalLayout {
 
     @Getter
-    private final Upload uploadField;
+    private final ChunkedUpload uploadField;
     private final Span errorField;
 
-    public UploadArea(File uploadFolder) {
-        uploadField = new Upload(createFileReceiver(uploadFolder));
+    public UploadArea() {
+        // files are sent in resumable chunks, see ChunkedUploadHandler
+        uploadField = new ChunkedUpload();
         uploadField.setMaxFiles(100);
-        // set max file size to 1 MB
+        // set max file size to 1 GB
         uploadField.setMaxFileSize(1024 * 1024 * 1024);
-        uploadField.setDropLabel(new Span("Drop file here (max 1GB)"));
+        uploadField.setDropLabel("Drop file here (max 1GB)");
 
         errorField = new Span();
         errorField.setVisible(false);
         errorField.getStyle().set("color", "red");
 
-        uploadField.addFailedListener(e -> showErrorMessage(e.getReason().getMessage()));
-        uploadField.addFileRejectedListener(e -> showErrorMessage(e.getErrorMessage()));
+        uploadField.addFailedListener(e -> showErrorMessage(e.getFileName() + ": " + e.getMessage()));
 
         add(uploadField, errorField);
     }
@@ -38,18 +32,6 @@ public class UploadArea extends VerticalLayout {
         errorField.setVisible(false);
     }
 
-    private Receiver createFileReceiver(File uploadFolder) {
-        return (MultiFileReceiver) (filename, mimeType) -> {
-            File file = new File(uploadFolder, filename);
-            try {
-                return new FileOutputStream(file);
-            } catch (FileNotFoundException e1) {
-                e1.printStackTrace();
-                return null;
-            }
-        };
-    }
-
     private void showErrorMessage(String message) {
         errorField.setVisible(true);
         errorField.setText(message);
@@ -1,12 +1,12 @@
 package com.eugentia.app.views.uploaddownload;
 
+import com.eugentia.app.storage.FileCatalog;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.router.Menu;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import jakarta.annotation.security.RolesAllowed;
-
-import java.io.File;
+import org.springframework.beans.factory.annotation.Autowired;
 
 @PageTitle("Upload and Download")
 @Menu(icon = "line-awesome/svg/upload.svg", order = 17)
@@ -14,10 +14,9 @@ import java.io.File;
 @RolesAllowed("USER")
 public class UploadDownloadView extends VerticalLayout {
 
-    public UploadDownloadView() {
-        File uploadFolder = getUploadFolder();
-        UploadArea uploadArea = new UploadArea(uploadFolder);
-        DownloadLinksArea linksArea = new DownloadLinksArea(uploadFolder);
+    public UploadDownloadView(@Autowired FileCatalog catalog) {
+        UploadArea uploadArea = new UploadArea();
+        DownloadLinksArea linksArea = new DownloadLinksArea(catalog);
 
         uploadArea.getUploadField().addSucceededListener(e -> {
             uploadArea.hideErrorField();
@@ -26,12 +25,4 @@ public class UploadDownloadView extends VerticalLayout {
 
         add(uploadArea, linksArea);
     }
-
-    private static File getUploadFolder() {
-        File folder = new File("uploaded-files");
-        if (!folder.exists()) {
-            folder.mkdirs();
-        }
-        return folder;
-    }
 }
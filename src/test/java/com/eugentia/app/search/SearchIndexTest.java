@@ -0,0 +1,196 @@
+package com.eugentia.app.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SearchIndexTest {
+
+    private static final String PERSON = "person";
+
+    private static final String ITEM = "item";
+
+    private final SearchIndex index = new SearchIndex();
+
+    @Test
+    void findsPutDocuments() {
+        index.put(new SearchDocument(PERSON, 1, "John Smith", "engineer"));
+        index.put(new SearchDocument(PERSON, 2, "Jane Doe", "designer"));
+
+        assertThat(ids("smith")).containsExactly(1L);
+        assertThat(ids("designer")).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void replacesDocumentWithSameTypeAndId() {
+        index.put(new SearchDocument(PERSON, 1, "Alice", ""));
+        index.put(new SearchDocument(PERSON, 1, "Bob", ""));
+
+        assertThat(ids("alice")).isEmpty();
+        assertThat(ids("bob")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removesDocuments() {
+        index.put(new SearchDocument(PERSON, 1, "Alice", ""));
+        index.put(new SearchDocument(ITEM, 1, "Alice", ""));
+
+        index.remove(PERSON, 1);
+
+        assertThat(index.search("alice", null, 0, 10)).extracting(SearchHit::type).containsExactly(ITEM);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void reusesIdsOfRemovedDocuments() {
+        index.put(new SearchDocument(PERSON, 1, "Alice", ""));
+        index.remove(PERSON, 1);
+        index.put(new SearchDocument(PERSON, 2, "Bob", ""));
+
+        assertThat(ids("alice")).isEmpty();
+        assertThat(ids("bob")).containsExactly(2L);
+    }
+
+    @Test
+    void clearsOneType() {
+        index.put(new SearchDocument(PERSON, 1, "Alice", ""));
+        index.put(new SearchDocument(PERSON, 2, "Alice Cooper", ""));
+        index.put(new SearchDocument(ITEM, 3, "Alice", ""));
+
+        index.clear(PERSON);
+
+        assertThat(index.search("alice", null, 0, 10)).extracting(SearchHit::type, SearchHit::id)
+                .containsExactly(tuple(ITEM, 3L));
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void filtersByType() {
+        index.put(new SearchDocument(PERSON, 1, "Alice", ""));
+        index.put(new SearchDocument(ITEM, 2, "Alice", ""));
+
+        assertThat(index.search("alice", ITEM, 0, 10)).extracting(SearchHit::id).containsExactly(2L);
+    }
+
+    @Test
+    void matchesLastWordAsPrefix() {
+        index.put(new SearchDocument(PERSON, 1, "John Smith", "engineer"));
+
+        assertThat(ids("smi")).containsExactly(1L);
+        assertThat(ids("john smi")).containsExactly(1L);
+        // only the last word is completed
+        assertThat(ids("smi xyz")).isEmpty();
+    }
+
+    @Test
+    void matchesWordsOneEditAway() {
+        index.put(new SearchDocument(PERSON, 1, "John Smith", ""));
+
+        assertThat(ids("smoth")).containsExactly(1L);
+        assertThat(ids("smtih")).containsExactly(1L);
+        assertThat(ids("smth")).containsExactly(1L);
+        assertThat(ids("smithy")).containsExactly(1L);
+        assertThat(ids("smoothy")).isEmpty();
+    }
+
+    @Test
+    void doesNotMatchTyposInShortWords() {
+        index.put(new SearchDocument(PERSON, 1, "Bob", ""));
+
+        assertThat(ids("bib")).isEmpty();
+    }
+
+    @Test
+    void ignoresCaseAndAccents() {
+        index.put(new SearchDocument(PERSON, 1, "Élodie O'Brien", ""));
+
+        assertThat(ids("ELODIE")).containsExactly(1L);
+        assertThat(ids("brien")).containsExactly(1L);
+    }
+
+    @Test
+    void ranksTitleAboveText() {
+        index.put(new SearchDocument(ITEM, 1, "", "apple"));
+        index.put(new SearchDocument(ITEM, 2, "apple", ""));
+
+        assertThat(ids("apple")).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void ranksExactMatchAboveTypo() {
+        index.put(new SearchDocument(PERSON, 1, "Smyth", ""));
+        index.put(new SearchDocument(PERSON, 2, "Smith", ""));
+
+        assertThat(ids("smith")).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void ranksByFrequencyAndPages() {
+        index.put(new SearchDocument(ITEM, 1, "", "pear"));
+        index.put(new SearchDocument(ITEM, 2, "", "pear pear"));
+        index.put(new SearchDocument(ITEM, 3, "", "pear pear pear"));
+
+        assertThat(ids("pear")).containsExactly(3L, 2L, 1L);
+        assertThat(index.search("pear", null, 1, 1)).extracting(SearchHit::id).containsExactly(2L);
+        assertThat(index.search("pear", null, 3, 10)).isEmpty();
+    }
+
+    @Test
+    void sumsScoresOverQueryWords() {
+        index.put(new SearchDocument(PERSON, 1, "John Smith", ""));
+        index.put(new SearchDocument(PERSON, 2, "John Doe", ""));
+
+        assertThat(ids("john smith")).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void removesFromLongPostingLists() {
+        IntStream.range(0, 40).forEach(id -> index.put(new SearchDocument(ITEM, id, "common", "")));
+        IntStream.range(0, 40).filter(id -> id % 2 == 0).forEach(id -> index.remove(ITEM, id));
+
+        assertThat(index.search("common", null, 0, 100)).extracting(SearchHit::id)
+                .containsExactlyInAnyOrderElementsOf(IntStream.range(0, 40).filter(id -> id % 2 == 1)
+                        .mapToObj(id -> (long) id).toList());
+    }
+
+    @Test
+    void boundsPaging() {
+        index.put(new SearchDocument(PERSON, 1, "Alice", ""));
+
+        assertThat(index.search("alice", null, SearchIndex.MAX_HITS, 10)).isEmpty();
+        assertThat(index.search("alice", null, 0, Integer.MAX_VALUE)).hasSize(1);
+        assertThatIllegalArgumentException().isThrownBy(() -> index.search("alice", null, -1, 10));
+        assertThatIllegalArgumentException().isThrownBy(() -> index.search("alice", null, 0, -1));
+    }
+
+    @Test
+    void analyzesIntoFoldedWords() {
+        assertThat(SearchIndex.analyze("Élodie O'Brien, 42")).containsExactly("elodie", "o", "brien", "42");
+        assertThat(SearchIndex.analyze("  ")).isEmpty();
+        assertThat(SearchIndex.analyze(null)).isEmpty();
+    }
+
+    @Test
+    void detectsSingleEdits() {
+        assertThat(SearchIndex.withinOneEdit("smith", "smith")).isTrue();
+        assertThat(SearchIndex.withinOneEdit("smith", "smyth")).isTrue();
+        assertThat(SearchIndex.withinOneEdit("smith", "smth")).isTrue();
+        assertThat(SearchIndex.withinOneEdit("smth", "smith")).isTrue();
+        assertThat(SearchIndex.withinOneEdit("smith", "smtih")).isTrue();
+        assertThat(SearchIndex.withinOneEdit("smith", "smiht")).isTrue();
+        assertThat(SearchIndex.withinOneEdit("smith", "smyht")).isFalse();
+        assertThat(SearchIndex.withinOneEdit("smith", "sm")).isFalse();
+        assertThat(SearchIndex.withinOneEdit("smith", "mstih")).isFalse();
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, null, 0, 10).stream().map(SearchHit::id).toList();
+    }
+}